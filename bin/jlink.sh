@@ -1,3 +1,3 @@
 #!/bin/sh
 
-./mvnw -DskipTests=true clean verify jlink:jlink
+./mvnw -DskipTests=true clean verify jlink:jlink exec:exec@cds
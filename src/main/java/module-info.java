@@ -4,5 +4,8 @@ module mk {
     requires org.panteleyev.commons;
     requires org.panteleyev.freedesktop;
     requires java.logging;
+    requires jdk.jfr;
+    requires java.management;
     exports org.panteleyev.mk52;
+    exports org.panteleyev.mk52.management to java.management;
 }
\ No newline at end of file
@@ -22,10 +22,16 @@ import static org.panteleyev.freedesktop.Utility.isLinux;
 
 public class ApplicationFiles {
     public enum AppFile {
-        EEPROM("eeprom.txt");
+        EEPROM("eeprom.txt"),
+        EEPROM_IMAGE("eeprom.bin"),
+        EEPROM_LIBRARY("eeprom.lib"),
+        STATE("state.bin");
 
         static final Set<AppFile> DATA_FILES = Set.of(
-                EEPROM
+                EEPROM,
+                EEPROM_IMAGE,
+                EEPROM_LIBRARY,
+                STATE
         );
 
         private final String fileName;
@@ -78,6 +84,10 @@ public class ApplicationFiles {
         return logDirectory;
     }
 
+    public Path getPath(AppFile appFile) {
+        return fileMap.get(appFile);
+    }
+
     public void initialize() {
         initDirectory(configDirectory, "Application");
         initDirectory(dataDirectory, "Data");
@@ -105,6 +115,14 @@ public class ApplicationFiles {
         }
     }
 
+    public void delete(AppFile appFile) {
+        try {
+            Files.deleteIfExists(fileMap.get(appFile));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
     private static void initDirectory(Path path, String name) {
         try {
             Files.createDirectories(path);
@@ -5,6 +5,7 @@
 package org.panteleyev.mk52;
 
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.text.Font;
 import javafx.stage.Stage;
@@ -36,6 +37,9 @@ public class Mk52Application extends Application {
 
     private static final String LOG_FILE_NAME = "mk52.log";
 
+    // Учебный запуск при сборке архива AppCDS: приложение завершается после показа окна
+    private static final boolean CDS_TRAINING = Boolean.getBoolean("mk52.cds.training");
+
     @Override
     public void start(Stage stage) throws Exception {
         files().initialize();
@@ -59,6 +63,10 @@ public class Mk52Application extends Application {
 
         new Mk52Controller(stage);
         stage.show();
+
+        if (CDS_TRAINING) {
+            runLater(Platform::exit);
+        }
     }
 
     private static void uncaughtException(Throwable e) {
@@ -72,5 +80,8 @@ public class Mk52Application extends Application {
 
     public static void main(String[] args) {
         launch(args);
+        if (CDS_TRAINING) {
+            System.exit(0);
+        }
     }
 }
@@ -0,0 +1,86 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+/**
+ * Хранилище, которое читает общий неизменяемый снимок и копирует его при первой записи.
+ */
+final class CopyOnWriteEepromStorage implements EepromStorage {
+    private PackedEepromStorage storage;
+    private boolean shared = true;
+
+    /**
+     * @param snapshot снимок, который больше не изменяется
+     */
+    CopyOnWriteEepromStorage(PackedEepromStorage snapshot) {
+        this.storage = snapshot;
+    }
+
+    private PackedEepromStorage writable() {
+        if (shared) {
+            storage = storage.copy();
+            shared = false;
+        }
+        return storage;
+    }
+
+    /**
+     * Возвращает текущее содержимое как неизменяемый снимок. Следующая запись снова копирует содержимое.
+     */
+    PackedEepromStorage freeze() {
+        shared = true;
+        return storage;
+    }
+
+    @Override
+    public int size() {
+        return storage.size();
+    }
+
+    @Override
+    public int get(int index) {
+        return storage.get(index);
+    }
+
+    @Override
+    public void set(int index, int tetrad) {
+        writable().set(index, tetrad);
+    }
+
+    @Override
+    public void or(int index, int tetrad) {
+        writable().or(index, tetrad);
+    }
+
+    @Override
+    public void fill(int from, int to, int tetrad) {
+        writable().fill(from, to, tetrad);
+    }
+
+    @Override
+    public void erase(int from, int to) {
+        writable().erase(from, to);
+    }
+
+    @Override
+    public void readProgramLine(int start, int[] memory, int offset) {
+        storage.readProgramLine(start, memory, offset);
+    }
+
+    @Override
+    public void orProgramLine(int start, int[] memory, int offset) {
+        writable().orProgramLine(start, memory, offset);
+    }
+
+    @Override
+    public long readRegister(int start) {
+        return storage.readRegister(start);
+    }
+
+    @Override
+    public void orRegister(int start, long register) {
+        writable().orRegister(start, register);
+    }
+}
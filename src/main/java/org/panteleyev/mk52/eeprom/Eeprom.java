@@ -7,27 +7,24 @@ package org.panteleyev.mk52.eeprom;
 import org.panteleyev.mk52.engine.IR;
 import org.panteleyev.mk52.engine.Register;
 import org.panteleyev.mk52.engine.Registers;
+import org.panteleyev.mk52.jfr.EepromExchangeEvent;
 import org.panteleyev.mk52.program.Address;
 import org.panteleyev.mk52.program.ProgramMemory;
+import org.panteleyev.mk52.util.HexDumpReader;
+import org.panteleyev.mk52.util.HexDumpWriter;
 
-import java.io.BufferedReader;
-import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static org.panteleyev.mk52.eeprom.EepromUtils.normalizeEepromIndex;
 import static org.panteleyev.mk52.engine.Constants.BYTE_0;
 import static org.panteleyev.mk52.engine.Constants.DUR_023;
 import static org.panteleyev.mk52.engine.Constants.EEPROM_LINE_SIZE;
 import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
 import static org.panteleyev.mk52.engine.Constants.TETRADS_PER_EEPROM_LINE;
 
 public final class Eeprom {
@@ -36,37 +33,131 @@ public final class Eeprom {
 
     private static final long EEPROM_STEPS_SHIFT = 4;
 
-    // Каждый byte хранит одну тетраду
-    private final byte[] eeprom = new byte[EEPROM_SIZE];
     private static final int MAX_STEPS = 98;
 
+    private final Object lock = new Object();
+    private EepromStorage storage;
+    // Шаги программы при обмене с ППЗУ
+    private final int[] programBuffer = new int[PROGRAM_MEMORY_SIZE];
+    // Тетрады при импорте и экспорте текстового дампа, создаются при первом обмене
+    private int[] dumpBuffer;
+    private HexDumpReader dumpReader;
+    private HexDumpWriter dumpWriter;
+
     private final ProgramMemory memory;
     private final Registers registers;
 
-    private final AtomicReference<EepromAddress> address = new AtomicReference<>(
-            valueToEepromAddress(0));
+    private final AtomicReference<EepromAddress> address = new AtomicReference<>();
 
     public Eeprom(ProgramMemory memory, Registers registers) {
+        this(memory, registers, new PackedEepromStorage(), valueToEepromAddress(0));
+        clear();
+    }
+
+    private Eeprom(ProgramMemory memory, Registers registers, EepromStorage storage, EepromAddress address) {
         this.memory = memory;
         this.registers = registers;
-        clear();
+        this.storage = storage;
+        this.address.set(address);
+    }
+
+    /**
+     * Возвращает копию ППЗУ с тем же адресом для другой памяти программ и регистров. Копия и исходное ППЗУ
+     * читают общий снимок содержимого, каждое копирует его при первой записи.
+     */
+    public Eeprom fork(ProgramMemory memory, Registers registers) {
+        synchronized (lock) {
+            return new Eeprom(memory, registers, new CopyOnWriteEepromStorage(snapshot()), address.get());
+        }
+    }
+
+    // Вызывается под блокировкой
+    private PackedEepromStorage snapshot() {
+        return switch (storage) {
+            case CopyOnWriteEepromStorage copyOnWrite -> copyOnWrite.freeze();
+            case PackedEepromStorage packed when packed.getClass() == PackedEepromStorage.class -> {
+                // Хранилище в памяти само становится копируемым при записи
+                storage = new CopyOnWriteEepromStorage(packed);
+                yield packed;
+            }
+            // Файл на диске продолжает изменяться, поэтому копируется сразу
+            case PackedEepromStorage packed -> packed.copy();
+            default -> {
+                var copy = new PackedEepromStorage();
+                for (int i = 0; i < EEPROM_SIZE; i++) {
+                    copy.set(i, storage.get(i));
+                }
+                yield copy;
+            }
+        };
+    }
+
+    /**
+     * Заменяет хранилище. Предыдущее хранилище закрывается, его содержимое не переносится.
+     */
+    public void setStorage(EepromStorage storage) {
+        synchronized (lock) {
+            this.storage.close();
+            this.storage = storage;
+        }
+    }
+
+    public void close() {
+        synchronized (lock) {
+            storage.close();
+        }
     }
 
     // Для тестирования
     byte[] getEeprom() {
-        return eeprom;
+        synchronized (lock) {
+            var tetrads = new byte[EEPROM_SIZE];
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                tetrads[i] = (byte) storage.get(i);
+            }
+            return tetrads;
+        }
+    }
+
+    // Для тестирования
+    void setEeprom(byte[] tetrads) {
+        synchronized (lock) {
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                storage.set(i, tetrads[i]);
+            }
+        }
     }
 
     public void setAddress(long address) {
         this.address.set(valueToEepromAddress(address));
     }
 
+    public EepromAddress getAddress() {
+        return address.get();
+    }
+
+    public void setAddress(EepromAddress address) {
+        this.address.set(address);
+    }
+
     public void exchange(EepromOperation operation, EepromMode mode) {
+        var event = new EepromExchangeEvent();
+        event.begin();
+
         switch (operation) {
             case ERASE -> erase(mode);
             case READ -> read(mode);
             case WRITE -> write(mode);
         }
+
+        if (event.shouldCommit()) {
+            var addr = address.get();
+            event.operation = operation.name();
+            event.mode = mode.name();
+            event.address = addr.start();
+            event.steps = addr.steps();
+            event.commit();
+        }
     }
 
     static EepromAddress valueToEepromAddress(long x) {
@@ -92,7 +183,9 @@ public final class Eeprom {
     }
 
     void clear() {
-        Arrays.fill(eeprom, BYTE_0);
+        synchronized (lock) {
+            storage.fill(0, EEPROM_SIZE, 0);
+        }
     }
 
     public void erase(EepromMode mode) {
@@ -101,10 +194,9 @@ public final class Eeprom {
         var alignedStart = EepromUtils.alignEraseStart(addr.start());
         var alignedEnd = EepromUtils.alignEraseEnd(addr.start() + 2 * addr.steps());
 
-        synchronized (eeprom) {
-            for (var index = alignedStart; index < alignedEnd; index++) {
-                eeprom[normalizeEepromIndex(index)] = BYTE_0;
-            }
+        synchronized (lock) {
+            storage.erase(alignedStart, alignedEnd);
+            storage.force();
 
             switch (mode) {
                 case PROGRAM -> memory.erase(addr.steps());
@@ -115,13 +207,13 @@ public final class Eeprom {
 
     public void write(EepromMode mode) {
         var addr = address.get();
-        synchronized (eeprom) {
+        synchronized (lock) {
             switch (mode) {
                 case PROGRAM -> {
-                    var mem = memory.getMemoryBytes();
+                    memory.copyCodes(programBuffer, addr.steps());
                     for (int i = 0; i < addr.steps() / EEPROM_LINE_SIZE; i++) {
-                        var line = EepromUtils.memoryToEepromLine(mem, i * EEPROM_LINE_SIZE);
-                        EepromUtils.writeEepromLine(eeprom, addr.start() + i * TETRADS_PER_EEPROM_LINE, line, mode);
+                        storage.orProgramLine(addr.start() + i * TETRADS_PER_EEPROM_LINE, programBuffer,
+                                i * EEPROM_LINE_SIZE);
                     }
                     memory.erase(addr.steps());
                 }
@@ -129,30 +221,29 @@ public final class Eeprom {
                     var regCount = addr.steps() / EEPROM_LINE_SIZE;
                     for (int i = 0; i < regCount; i++) {
                         var value = registers.load(new Address((byte) i, BYTE_0));
-                        EepromUtils.writeRegisterToEeprom(eeprom, addr.start() + i * TETRADS_PER_EEPROM_LINE, value);
+                        storage.orRegister(addr.start() + i * TETRADS_PER_EEPROM_LINE, value);
                     }
                     registers.erase(regCount);
                 }
             }
+            storage.force();
         }
     }
 
     public void read(EepromMode mode) {
         var addr = address.get();
-        synchronized (eeprom) {
+        synchronized (lock) {
             switch (mode) {
                 case PROGRAM -> {
-                    var newBytes = new int[addr.steps()];
                     for (int i = 0; i < addr.steps() / EEPROM_LINE_SIZE; i++) {
-                        var line = EepromUtils.readEepromLine(eeprom, addr.start() + i * TETRADS_PER_EEPROM_LINE);
-                        EepromUtils.memoryFromEepromLine(line, newBytes, i * EEPROM_LINE_SIZE);
+                        storage.readProgramLine(addr.start() + i * TETRADS_PER_EEPROM_LINE, programBuffer,
+                                i * EEPROM_LINE_SIZE);
                     }
-                    memory.storeCodes(newBytes);
+                    memory.storeCodes(programBuffer, addr.steps());
                 }
                 case DATA -> {
                     for (int i = 0; i < addr.steps() / EEPROM_LINE_SIZE; i++) {
-                        var value = EepromUtils.readRegisterFromEeprom(eeprom,
-                                addr.start() + i * TETRADS_PER_EEPROM_LINE);
+                        var value = storage.readRegister(addr.start() + i * TETRADS_PER_EEPROM_LINE);
                         registers.store(new Address((byte) i, BYTE_0), value);
                     }
                 }
@@ -161,43 +252,43 @@ public final class Eeprom {
     }
 
     public void exportDump(OutputStream out) {
-        synchronized (eeprom) {
-            try (var writer = new OutputStreamWriter(out)) {
-                for (int i = 0; i < eeprom.length; i++) {
-                    if (i != 0 && i % TETRADS_PER_EEPROM_LINE == 0) {
-                        writer.write("\n");
-                    }
-                    writer.write(String.format("%1X ", eeprom[i] & 0xF));
-                }
-                writer.flush();
-            } catch (IOException ex) {
-                throw new UncheckedIOException(ex);
+        synchronized (lock) {
+            var dumpBuffer = dumpBuffer();
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                dumpBuffer[i] = storage.get(i);
+            }
+            if (dumpWriter == null) {
+                dumpWriter = new HexDumpWriter(1, TETRADS_PER_EEPROM_LINE);
             }
+            dumpWriter.write(out, dumpBuffer, EEPROM_SIZE);
         }
     }
 
+    /**
+     * Загружает текстовый дамп. Недостающие тетрады заполняются нулями.
+     *
+     * @throws IllegalArgumentException если дамп содержит ошибку
+     */
     public void importDump(InputStream in) {
-        synchronized (eeprom) {
-            var newBytes = new byte[EEPROM_SIZE];
-            Arrays.fill(newBytes, BYTE_0);
-
-            var byteIndex = new AtomicInteger(0);
-            try (var reader = new BufferedReader(new InputStreamReader(in))) {
-                reader.lines().forEach(line -> {
-                    var byteStrings = line.split(" ");
-                    for (var str : byteStrings) {
-                        if (byteIndex.get() >= newBytes.length) {
-                            break;
-                        }
-                        newBytes[byteIndex.getAndIncrement()] = Byte.parseByte(str, 16);
-                    }
-                });
-
-                System.arraycopy(newBytes, 0, eeprom, 0, newBytes.length);
-            } catch (IOException ex) {
-                throw new UncheckedIOException(ex);
+        synchronized (lock) {
+            var dumpBuffer = dumpBuffer();
+            if (dumpReader == null) {
+                dumpReader = new HexDumpReader(1);
+            }
+            var count = dumpReader.read(in, dumpBuffer);
+            Arrays.fill(dumpBuffer, count, EEPROM_SIZE, 0);
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                storage.set(i, dumpBuffer[i]);
             }
+            storage.force();
+        }
+    }
+
+    private int[] dumpBuffer() {
+        if (dumpBuffer == null) {
+            dumpBuffer = new int[EEPROM_SIZE];
         }
+        return dumpBuffer;
     }
 
     public static IR convertDisplay(IR ir) {
@@ -0,0 +1,249 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+
+/**
+ * Библиотека именованных банков ППЗУ в одном файле.
+ * <p>
+ * Формат файла:
+ * <pre>
+ * MK52LIB, версия          8 байт
+ * смещение индекса         8 байт
+ * банки                    по EEPROM_SIZE / 2 байт в формате {@link PackedEepromStorage}
+ * индекс                   число банков, затем для каждого банка длина имени (2 байта), имя в UTF-8, смещение
+ * </pre>
+ * Индекс читается при открытии, поэтому выбор банка не зависит от размера библиотеки: область банка отображается
+ * в память и используется как хранилище ППЗУ без копирования.
+ * <p>
+ * Новый банк и новый индекс дописываются в конец файла, заголовок переписывается последним. Если запись прервана,
+ * заголовок указывает на прежний индекс. Прежние индексы остаются в файле неиспользуемыми.
+ */
+public final class EepromLibrary implements Closeable {
+    private static final byte[] MAGIC = new byte[]{'M', 'K', '5', '2', 'L', 'I', 'B'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1 + Long.BYTES;
+    private static final int BANK_SIZE = EEPROM_SIZE / 2;
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final Path path;
+    private final FileChannel channel;
+    // Имя банка - смещение в файле
+    private final Map<String, Long> banks;
+    private long indexOffset;
+
+    private EepromLibrary(Path path, FileChannel channel, Map<String, Long> banks, long indexOffset) {
+        this.path = path;
+        this.channel = channel;
+        this.banks = banks;
+        this.indexOffset = indexOffset;
+    }
+
+    /**
+     * Открывает библиотеку. Отсутствующий или пустой файл становится пустой библиотекой.
+     *
+     * @param path файл библиотеки
+     * @return библиотека
+     * @throws IllegalArgumentException если файл не является библиотекой ППЗУ
+     */
+    public static EepromLibrary open(Path path) {
+        try {
+            var channel = FileChannel.open(path, READ, WRITE, CREATE);
+            try {
+                if (channel.size() == 0) {
+                    var library = new EepromLibrary(path, channel, new LinkedHashMap<>(), HEADER_SIZE);
+                    library.writeIndex(HEADER_SIZE);
+                    return library;
+                }
+
+                var header = ByteBuffer.allocate(HEADER_SIZE);
+                readFully(channel, header, 0);
+                for (int i = 0; i < MAGIC.length; i++) {
+                    if (header.get(i) != MAGIC[i]) {
+                        throw new IllegalArgumentException("Not an EEPROM library: " + path);
+                    }
+                }
+                if (header.get(MAGIC.length) != VERSION) {
+                    throw new IllegalArgumentException("Unsupported EEPROM library version: " + path);
+                }
+                var indexOffset = header.getLong(MAGIC.length + 1);
+                if (indexOffset < HEADER_SIZE || indexOffset + Integer.BYTES > channel.size()) {
+                    throw new IllegalArgumentException("Corrupted EEPROM library: " + path);
+                }
+
+                var index = ByteBuffer.allocate((int) (channel.size() - indexOffset));
+                readFully(channel, index, indexOffset);
+                return new EepromLibrary(path, channel, readIndex(index.flip(), indexOffset, path), indexOffset);
+            } catch (IOException | RuntimeException ex) {
+                channel.close();
+                throw ex;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Map<String, Long> readIndex(ByteBuffer index, long indexOffset, Path path) {
+        var banks = new LinkedHashMap<String, Long>();
+        try {
+            var count = index.getInt();
+            for (int i = 0; i < count; i++) {
+                var name = new byte[Short.toUnsignedInt(index.getShort())];
+                index.get(name);
+                var offset = index.getLong();
+                if (offset < HEADER_SIZE || offset + BANK_SIZE > indexOffset) {
+                    throw new IllegalArgumentException("Corrupted EEPROM library: " + path);
+                }
+                banks.put(new String(name, StandardCharsets.UTF_8), offset);
+            }
+            return banks;
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Corrupted EEPROM library: " + path, ex);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Возвращает имена банков в порядке добавления.
+     */
+    public synchronized List<String> bankNames() {
+        return List.copyOf(banks.keySet());
+    }
+
+    public synchronized boolean contains(String name) {
+        return banks.containsKey(name);
+    }
+
+    /**
+     * Возвращает хранилище, отображенное на область банка. Изменения попадают в файл библиотеки.
+     *
+     * @param name имя банка
+     * @return хранилище
+     * @throws IllegalArgumentException если банк не найден
+     */
+    public synchronized EepromStorage bank(String name) {
+        var offset = banks.get(name);
+        if (offset == null) {
+            throw new IllegalArgumentException("Unknown EEPROM bank: " + name);
+        }
+        try {
+            return new MappedEepromStorage(channel.map(FileChannel.MapMode.READ_WRITE, offset, BANK_SIZE), 0, false);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Добавляет пустой банк.
+     *
+     * @param name имя банка
+     * @return хранилище банка
+     * @throws IllegalArgumentException если имя пустое, слишком длинное или уже существует
+     */
+    public synchronized EepromStorage addBank(String name) {
+        if (name.isBlank()) {
+            throw new IllegalArgumentException("Empty EEPROM bank name");
+        }
+        if (name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("EEPROM bank name is too long: " + name);
+        }
+        if (banks.containsKey(name)) {
+            throw new IllegalArgumentException("EEPROM bank already exists: " + name);
+        }
+
+        try {
+            // Прежний индекс не изменяется, пока заголовок не укажет на новый
+            var offset = channel.size();
+            writeFully(ByteBuffer.allocate(BANK_SIZE), offset);
+            banks.put(name, offset);
+            try {
+                writeIndex(offset + BANK_SIZE);
+            } catch (IOException ex) {
+                banks.remove(name);
+                throw ex;
+            }
+            return bank(name);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Записывает индекс по смещению и переключает на него заголовок после сброса данных на диск.
+     */
+    private void writeIndex(long offset) throws IOException {
+        var size = Integer.BYTES;
+        var names = new LinkedHashMap<byte[], Long>();
+        for (var entry : banks.entrySet()) {
+            var name = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            names.put(name, entry.getValue());
+            size += Short.BYTES + name.length + Long.BYTES;
+        }
+
+        var index = ByteBuffer.allocate(size);
+        index.putInt(names.size());
+        for (var entry : names.entrySet()) {
+            index.putShort((short) entry.getKey().length);
+            index.put(entry.getKey());
+            index.putLong(entry.getValue());
+        }
+        writeFully(index.flip(), offset);
+        channel.force(true);
+
+        var header = ByteBuffer.allocate(HEADER_SIZE);
+        header.put(MAGIC).put(VERSION).putLong(offset);
+        writeFully(header.flip(), 0);
+        channel.force(true);
+        indexOffset = offset;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            var count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new EOFException();
+            }
+            position += count;
+        }
+    }
+
+    /**
+     * Закрывает файл. Отображенные банки остаются доступными.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
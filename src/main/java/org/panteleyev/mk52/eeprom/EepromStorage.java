@@ -0,0 +1,106 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import java.io.Closeable;
+
+import static org.panteleyev.mk52.eeprom.EepromUtils.normalizeEepromIndex;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_LINE_SIZE;
+import static org.panteleyev.mk52.engine.Constants.TETRADS_PER_EEPROM_LINE;
+
+/**
+ * Хранилище тетрад ППЗУ.
+ */
+public interface EepromStorage extends Closeable {
+    /**
+     * Возвращает число тетрад.
+     */
+    int size();
+
+    int get(int index);
+
+    void set(int index, int tetrad);
+
+    default void or(int index, int tetrad) {
+        set(index, get(index) | tetrad);
+    }
+
+    default void fill(int from, int to, int tetrad) {
+        for (int i = from; i < to; i++) {
+            set(i, tetrad);
+        }
+    }
+
+    /**
+     * Обнуляет тетрады с from по to, не включая to. Индексы берутся по модулю размера ППЗУ.
+     */
+    default void erase(int from, int to) {
+        for (int i = from; i < to; i++) {
+            set(normalizeEepromIndex(i), 0);
+        }
+    }
+
+    /**
+     * Читает строку из {@link org.panteleyev.mk52.engine.Constants#EEPROM_LINE_SIZE} шагов программы. Первый шаг
+     * строки хранится в двух последних тетрадах, остальные - со сдвигом на один шаг.
+     *
+     * @param start  индекс первой тетрады строки
+     * @param memory шаги программы
+     * @param offset индекс первого шага строки в memory
+     */
+    default void readProgramLine(int start, int[] memory, int offset) {
+        memory[offset] = get(normalizeEepromIndex(start + TETRADS_PER_EEPROM_LINE - 2))
+                | get(normalizeEepromIndex(start + TETRADS_PER_EEPROM_LINE - 1)) << 4;
+        for (int i = 1; i < EEPROM_LINE_SIZE; i++) {
+            var index = start + 2 * i - 2;
+            memory[offset + i] = get(normalizeEepromIndex(index)) | get(normalizeEepromIndex(index + 1)) << 4;
+        }
+    }
+
+    /**
+     * Записывает строку шагов программы, объединяя ее с содержимым ППЗУ по ИЛИ. Порядок тетрад тот же, что и в
+     * {@link #readProgramLine(int, int[], int)}.
+     */
+    default void orProgramLine(int start, int[] memory, int offset) {
+        or(normalizeEepromIndex(start + TETRADS_PER_EEPROM_LINE - 2), memory[offset] & 0xF);
+        or(normalizeEepromIndex(start + TETRADS_PER_EEPROM_LINE - 1), (memory[offset] >> 4) & 0xF);
+        for (int i = 1; i < EEPROM_LINE_SIZE; i++) {
+            var index = start + 2 * i - 2;
+            or(normalizeEepromIndex(index), memory[offset + i] & 0xF);
+            or(normalizeEepromIndex(index + 1), (memory[offset + i] >> 4) & 0xF);
+        }
+    }
+
+    /**
+     * Читает регистр из {@link org.panteleyev.mk52.engine.Constants#TETRADS_PER_EEPROM_LINE} тетрад, младшая
+     * тетрада первая.
+     */
+    default long readRegister(int start) {
+        long register = 0;
+        for (int i = 0, shift = 0; i < TETRADS_PER_EEPROM_LINE; i++, shift += 4) {
+            register |= (long) get(normalizeEepromIndex(start + i)) << shift;
+        }
+        return register;
+    }
+
+    /**
+     * Записывает регистр, объединяя его с содержимым ППЗУ по ИЛИ.
+     */
+    default void orRegister(int start, long register) {
+        for (int i = 0; i < TETRADS_PER_EEPROM_LINE; i++, register >>= 4) {
+            or(normalizeEepromIndex(start + i), (int) (register & 0xF));
+        }
+    }
+
+    /**
+     * Сохраняет изменения на носителе.
+     */
+    default void force() {
+    }
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.panteleyev.mk52.Mk52Application.logger;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+
+/**
+ * Хранилище ППЗУ в отображенном в память файле.
+ * <p>
+ * Формат файла: заголовок {@code MK52EEP} и номер версии, затем тетрады в формате {@link PackedEepromStorage}.
+ * Изменения попадают в файл сразу, {@link #force()} сбрасывает их на диск.
+ */
+public final class MappedEepromStorage extends PackedEepromStorage {
+    private static final byte[] MAGIC = new byte[]{'M', 'K', '5', '2', 'E', 'E', 'P'};
+    private static final byte VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    static final int FILE_SIZE = HEADER_SIZE + EEPROM_SIZE / 2;
+
+    private final MappedByteBuffer buffer;
+    private final boolean created;
+
+    private MappedEepromStorage(MappedByteBuffer buffer, boolean created) {
+        this(buffer, HEADER_SIZE, created);
+    }
+
+    /**
+     * @param buffer отображенная область файла
+     * @param offset смещение тетрад ППЗУ в области
+     */
+    MappedEepromStorage(MappedByteBuffer buffer, int offset, boolean created) {
+        super(buffer.slice(offset, EEPROM_SIZE / 2));
+        this.buffer = buffer;
+        this.created = created;
+    }
+
+    /**
+     * Открывает файл ППЗУ. Если файл отсутствует, он создается с пустым содержимым. Файл неверного формата
+     * переименовывается в {@code <имя>.bak}, вместо него создается пустой.
+     *
+     * @param path файл
+     * @return хранилище
+     */
+    public static MappedEepromStorage open(Path path) {
+        try {
+            if (Files.exists(path) && Files.size(path) > 0 && !isValid(path)) {
+                // Содержимое поврежденного файла не перезаписывается
+                var backup = path.resolveSibling(path.getFileName() + ".bak");
+                Files.move(path, backup, REPLACE_EXISTING);
+                logger().warning("Неверный формат файла ППЗУ, файл перемещен в " + backup);
+            }
+
+            try (var channel = FileChannel.open(path, READ, WRITE, CREATE)) {
+                var created = channel.size() == 0;
+                var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+                if (created) {
+                    buffer.put(0, MAGIC);
+                    buffer.put(MAGIC.length, VERSION);
+                    buffer.force();
+                }
+                return new MappedEepromStorage(buffer, created);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static boolean isValid(Path path) throws IOException {
+        if (Files.size(path) != FILE_SIZE) {
+            return false;
+        }
+        try (var in = Files.newInputStream(path)) {
+            var header = in.readNBytes(HEADER_SIZE);
+            return Arrays.equals(header, 0, MAGIC.length, MAGIC, 0, MAGIC.length) && header[MAGIC.length] == VERSION;
+        }
+    }
+
+    /**
+     * Возвращает true, если при открытии файл был создан заново.
+     */
+    public boolean isCreated() {
+        return created;
+    }
+
+    @Override
+    public void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() {
+        force();
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import java.nio.ByteBuffer;
+
+import static org.panteleyev.mk52.engine.Constants.EEPROM_LINE_SIZE;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+
+/**
+ * Хранилище ППЗУ, две тетрады в байте. Младшая тетрада байта соответствует четному индексу.
+ * <p>
+ * Строка ППЗУ с четного индекса занимает целые байты, поэтому операции со строками выполняются побайтно, без
+ * промежуточных массивов. Строки с нечетного индекса обрабатываются по тетрадам.
+ */
+public class PackedEepromStorage implements EepromStorage {
+    private static final int BYTES = EEPROM_SIZE / 2;
+
+    private final ByteBuffer data;
+
+    public PackedEepromStorage() {
+        this(ByteBuffer.allocate(BYTES));
+    }
+
+    /**
+     * @param data буфер из {@code EEPROM_SIZE / 2} байт, индексы отсчитываются от начала буфера
+     */
+    PackedEepromStorage(ByteBuffer data) {
+        if (data.capacity() != BYTES) {
+            throw new IllegalArgumentException("EEPROM buffer must be of size " + BYTES);
+        }
+        this.data = data;
+    }
+
+    /**
+     * Возвращает копию содержимого в памяти.
+     */
+    PackedEepromStorage copy() {
+        var bytes = new byte[BYTES];
+        data.get(0, bytes);
+        return new PackedEepromStorage(ByteBuffer.wrap(bytes));
+    }
+
+    @Override
+    public int size() {
+        return EEPROM_SIZE;
+    }
+
+    @Override
+    public int get(int index) {
+        var b = data.get(index >> 1);
+        return (index & 1) == 0 ? b & 0xF : (b >> 4) & 0xF;
+    }
+
+    @Override
+    public void set(int index, int tetrad) {
+        var offset = index >> 1;
+        var b = data.get(offset);
+        if ((index & 1) == 0) {
+            b = (byte) ((b & 0xF0) | (tetrad & 0xF));
+        } else {
+            b = (byte) ((b & 0x0F) | (tetrad & 0xF) << 4);
+        }
+        data.put(offset, b);
+    }
+
+    @Override
+    public void or(int index, int tetrad) {
+        var offset = index >> 1;
+        var shift = (index & 1) << 2;
+        data.put(offset, (byte) (data.get(offset) | (tetrad & 0xF) << shift));
+    }
+
+    @Override
+    public void erase(int from, int to) {
+        if ((from & 1) != 0 || (to & 1) != 0) {
+            EepromStorage.super.erase(from, to);
+            return;
+        }
+        for (int i = from >> 1; i < to >> 1; i++) {
+            data.put(i % BYTES, (byte) 0);
+        }
+    }
+
+    @Override
+    public void readProgramLine(int start, int[] memory, int offset) {
+        if ((start & 1) != 0) {
+            EepromStorage.super.readProgramLine(start, memory, offset);
+            return;
+        }
+        var first = start >> 1;
+        memory[offset] = byteAt(first + EEPROM_LINE_SIZE - 1);
+        for (int i = 1; i < EEPROM_LINE_SIZE; i++) {
+            memory[offset + i] = byteAt(first + i - 1);
+        }
+    }
+
+    @Override
+    public void orProgramLine(int start, int[] memory, int offset) {
+        if ((start & 1) != 0) {
+            EepromStorage.super.orProgramLine(start, memory, offset);
+            return;
+        }
+        var first = start >> 1;
+        orByte(first + EEPROM_LINE_SIZE - 1, memory[offset]);
+        for (int i = 1; i < EEPROM_LINE_SIZE; i++) {
+            orByte(first + i - 1, memory[offset + i]);
+        }
+    }
+
+    @Override
+    public long readRegister(int start) {
+        if ((start & 1) != 0) {
+            return EepromStorage.super.readRegister(start);
+        }
+        var first = start >> 1;
+        long register = 0;
+        for (int i = 0, shift = 0; i < EEPROM_LINE_SIZE; i++, shift += 8) {
+            register |= (long) byteAt(first + i) << shift;
+        }
+        return register;
+    }
+
+    @Override
+    public void orRegister(int start, long register) {
+        if ((start & 1) != 0) {
+            EepromStorage.super.orRegister(start, register);
+            return;
+        }
+        var first = start >> 1;
+        for (int i = 0; i < EEPROM_LINE_SIZE; i++, register >>= 8) {
+            orByte(first + i, (int) register);
+        }
+    }
+
+    private int byteAt(int offset) {
+        return data.get(offset % BYTES) & 0xFF;
+    }
+
+    private void orByte(int offset, int value) {
+        var index = offset % BYTES;
+        data.put(index, (byte) (data.get(index) | value));
+    }
+}
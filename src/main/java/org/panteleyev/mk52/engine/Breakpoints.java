@@ -0,0 +1,123 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+
+/**
+ * Точки останова и наблюдения с условиями.
+ * <p>
+ * Условия проверяются после каждого шага исполняемой программы, то есть перед исполнением команды по текущему
+ * адресу. Условие сравнивает регистры X, Y, Z, T, X1, R0 - RE, счетчик команд PC и числа, сравнения
+ * объединяются операциями {@code && || !} и скобками: {@code R3 < 0 && PC == 47}. Условие с проверкой адреса
+ * хранится в таблице по этому адресу и на других адресах не вычисляется.
+ * <p>
+ * Точки можно добавлять из любого потока, исполняющий поток видит неизменяемые копии таблиц.
+ */
+public final class Breakpoints {
+    /**
+     * Условие и действие. Точка останова не имеет наблюдателя.
+     */
+    private record Entry(Predicate<Engine> condition, LongConsumer watcher) {
+    }
+
+    private static final Entry[] NONE = new Entry[0];
+
+    private volatile Entry[][] byAddress = new Entry[PROGRAM_MEMORY_SIZE][];
+    private volatile Entry[] anywhere = NONE;
+    private volatile boolean empty = true;
+
+    /**
+     * Добавляет точку останова: исполнение останавливается, когда условие выполнено.
+     *
+     * @throws IllegalArgumentException если условие записано с ошибкой
+     */
+    public void addBreakpoint(String expression) {
+        add(expression, null);
+    }
+
+    /**
+     * Добавляет точку наблюдения: когда условие выполнено, наблюдатель получает регистр X, исполнение продолжается.
+     *
+     * @throws IllegalArgumentException если условие записано с ошибкой
+     */
+    public void addWatch(String expression, LongConsumer watcher) {
+        add(expression, watcher);
+    }
+
+    public synchronized void clear() {
+        byAddress = new Entry[PROGRAM_MEMORY_SIZE][];
+        anywhere = NONE;
+        empty = true;
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    private synchronized void add(String expression, LongConsumer watcher) {
+        var compiled = ConditionParser.compile(expression);
+        var entry = new Entry(compiled.condition(), watcher);
+
+        var address = compiled.address();
+        if (address >= 0) {
+            if (address >= PROGRAM_MEMORY_SIZE) {
+                throw new IllegalArgumentException("Invalid address in \"" + expression + "\"");
+            }
+            var table = byAddress.clone();
+            table[address] = append(table[address], entry);
+            byAddress = table;
+        } else {
+            anywhere = append(anywhere, entry);
+        }
+        empty = false;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        if (entries == null) {
+            return new Entry[]{entry};
+        }
+        var result = Arrays.copyOf(entries, entries.length + 1);
+        result[entries.length] = entry;
+        return result;
+    }
+
+    /**
+     * Проверяет условия для текущего состояния, вызывает наблюдателей.
+     *
+     * @return true если исполнение нужно остановить
+     */
+    boolean test(Engine engine) {
+        if (empty) {
+            return false;
+        }
+
+        var stop = test(engine, anywhere);
+        var table = byAddress;
+        var pc = engine.programCounter().get().getEffectiveAddress();
+        if (pc >= 0 && pc < table.length && table[pc] != null) {
+            stop |= test(engine, table[pc]);
+        }
+        return stop;
+    }
+
+    private static boolean test(Engine engine, Entry[] entries) {
+        var stop = false;
+        for (var entry : entries) {
+            if (entry.condition().test(engine)) {
+                if (entry.watcher() == null) {
+                    stop = true;
+                } else {
+                    entry.watcher().accept(engine.stack().xValue());
+                }
+            }
+        }
+        return stop;
+    }
+}
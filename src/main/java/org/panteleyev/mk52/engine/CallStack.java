@@ -43,7 +43,19 @@ public final class CallStack {
         }
     }
 
-    private Address convertLastElement(Address element) {
+    void restore(Address[] addresses) {
+        synchronized (stack) {
+            System.arraycopy(addresses, 0, stack, 0, stack.length);
+        }
+    }
+
+    void copyFrom(CallStack source) {
+        synchronized (source.stack) {
+            restore(source.stack);
+        }
+    }
+
+    static Address convertLastElement(Address element) {
         return new Address(element.low(), element.low());
     }
 }
@@ -0,0 +1,80 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченная очередь команд без блокировок.
+ * <p>
+ * Добавлять команды можно из любого потока, забирать - только из одного. Каждая ячейка хранит номер позиции,
+ * для которой она свободна или заполнена, поэтому порядок команд сохраняется при любом числе отправителей.
+ */
+final class CommandQueue {
+    private final Runnable[] commands;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    private final AtomicLong tail = new AtomicLong();
+    // Изменяется только потоком-получателем
+    private long head;
+
+    /**
+     * @param capacity емкость, степень двойки
+     * @throws IllegalArgumentException если емкость не является степенью двойки
+     */
+    CommandQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        commands = new Runnable[capacity];
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+        mask = capacity - 1;
+    }
+
+    /**
+     * Добавляет команду в конец очереди.
+     *
+     * @return false если очередь заполнена
+     */
+    boolean offer(Runnable command) {
+        while (true) {
+            var position = tail.get();
+            var index = (int) position & mask;
+            var difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    commands[index] = command;
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Ячейку занял другой отправитель, пробуем следующую
+        }
+    }
+
+    /**
+     * Забирает команду из начала очереди.
+     *
+     * @return команда или null если очередь пуста
+     */
+    Runnable poll() {
+        var index = (int) head & mask;
+        if (sequences.get(index) != head + 1) {
+            return null;
+        }
+        var command = commands[index];
+        commands[index] = null;
+        sequences.set(index, head + commands.length);
+        head++;
+        return command;
+    }
+}
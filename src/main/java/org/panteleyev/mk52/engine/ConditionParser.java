@@ -0,0 +1,325 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+import java.util.stream.LongStream;
+
+/**
+ * Разбор и компиляция условий точек останова.
+ * <p>
+ * Условие сравнивает регистры стека (X, Y, Z, T, X1), регистры памяти (R0 - RE), счетчик команд (PC) и числа:
+ * {@code R3 < 0 && PC == 47}. Допустимы операции {@code < <= > >= == !=}, {@code && || !} и скобки.
+ * <p>
+ * Условие компилируется в дерево лямбд без упаковки значений. Сравнение регистра с нулем проверяет знак и
+ * мантиссу напрямую, остальные сравнения выполняются {@link Register#compare(long, long) над значениями в формате
+ * регистра}. Числа переводятся в этот формат при компиляции и округляются до 8 значащих цифр, как при вводе.
+ */
+final class ConditionParser {
+    /**
+     * Скомпилированное условие.
+     *
+     * @param address   адрес, на котором условие проверяется, или -1 если на любом
+     * @param condition условие без проверки адреса
+     */
+    record Compiled(int address, Predicate<Engine> condition) {
+    }
+
+    private sealed interface Node {
+    }
+
+    private record Comparison(String left, String operator, String right) implements Node {
+    }
+
+    private record And(List<Node> operands) implements Node {
+    }
+
+    private record Or(List<Node> operands) implements Node {
+    }
+
+    private record Not(Node operand) implements Node {
+    }
+
+    private static final Predicate<Engine> TRUE = _ -> true;
+
+    // Значения счетчика команд в формате регистра, индекс - эффективный адрес + 1
+    private static final long[] ADDRESSES = LongStream.range(-1, Constants.PROGRAM_MEMORY_SIZE)
+            .map(address -> Register.valueOf(address))
+            .toArray();
+
+    private final String text;
+    private final List<String> tokens = new ArrayList<>();
+    private int position;
+
+    private ConditionParser(String text) {
+        this.text = text;
+        tokenize();
+    }
+
+    /**
+     * Разбирает и компилирует условие.
+     *
+     * @throws IllegalArgumentException если условие записано с ошибкой
+     */
+    static Compiled compile(String text) {
+        var parser = new ConditionParser(text);
+        var root = parser.or();
+        if (parser.position != parser.tokens.size()) {
+            throw parser.error("unexpected '" + parser.tokens.get(parser.position) + "'");
+        }
+
+        // Проверка адреса выносится из условия, чтобы условие вычислялось только на этом адресе
+        var conjuncts = root instanceof And and ? new ArrayList<>(and.operands()) : new ArrayList<>(List.of(root));
+        for (var node : conjuncts) {
+            if (node instanceof Comparison(var left, var operator, var right)
+                    && left.equals("PC") && operator.equals("==") && isNumber(right)) {
+                conjuncts.remove(node);
+                var address = (int) Double.parseDouble(right);
+                return new Compiled(address, conjuncts.isEmpty() ? TRUE : compile(new And(conjuncts)));
+            }
+        }
+        return new Compiled(-1, compile(root));
+    }
+
+    private static Predicate<Engine> compile(Node node) {
+        return switch (node) {
+            case Comparison comparison -> compile(comparison);
+            case And(var operands) -> operands.stream()
+                    .map(ConditionParser::compile)
+                    .reduce(Predicate::and)
+                    .orElse(TRUE);
+            case Or(var operands) -> operands.stream()
+                    .map(ConditionParser::compile)
+                    .reduce(Predicate::or)
+                    .orElse(TRUE);
+            case Not(var operand) -> compile(operand).negate();
+        };
+    }
+
+    private static Predicate<Engine> compile(Comparison comparison) {
+        var left = comparison.left();
+        var operator = comparison.operator();
+        var right = comparison.right();
+
+        // Регистр и ноль: знак проверяется без преобразования значения
+        if (isZero(right) && register(left) != null) {
+            var register = register(left);
+            var predicate = signPredicate(operator);
+            return engine -> predicate.test(register.applyAsLong(engine));
+        }
+        if (isZero(left) && register(right) != null) {
+            var register = register(right);
+            var predicate = signPredicate(mirror(operator));
+            return engine -> predicate.test(register.applyAsLong(engine));
+        }
+
+        var l = operand(left);
+        var r = operand(right);
+        return switch (operator) {
+            case "<" -> engine -> Register.compare(l.applyAsLong(engine), r.applyAsLong(engine)) < 0;
+            case "<=" -> engine -> Register.compare(l.applyAsLong(engine), r.applyAsLong(engine)) <= 0;
+            case ">" -> engine -> Register.compare(l.applyAsLong(engine), r.applyAsLong(engine)) > 0;
+            case ">=" -> engine -> Register.compare(l.applyAsLong(engine), r.applyAsLong(engine)) >= 0;
+            case "==" -> engine -> Register.compare(l.applyAsLong(engine), r.applyAsLong(engine)) == 0;
+            default -> engine -> Register.compare(l.applyAsLong(engine), r.applyAsLong(engine)) != 0;
+        };
+    }
+
+    private static LongPredicate signPredicate(String operator) {
+        return switch (operator) {
+            case "<" -> Processor.LT_0;
+            case "<=" -> Processor.LT_0.or(Processor.EQ_0);
+            case ">" -> Processor.GE_0.and(Processor.NE_0);
+            case ">=" -> Processor.GE_0;
+            case "==" -> Processor.EQ_0;
+            default -> Processor.NE_0;
+        };
+    }
+
+    private static String mirror(String operator) {
+        return switch (operator) {
+            case "<" -> ">";
+            case "<=" -> ">=";
+            case ">" -> "<";
+            case ">=" -> "<=";
+            default -> operator;
+        };
+    }
+
+    private static ToLongFunction<Engine> register(String name) {
+        return switch (name) {
+            case "X" -> engine -> engine.stack().xValue();
+            case "Y" -> engine -> engine.stack().yValue();
+            case "Z" -> engine -> engine.stack().zValue();
+            case "T" -> engine -> engine.stack().tValue();
+            case "X1" -> engine -> engine.stack().x1Value();
+            default -> {
+                if (name.length() == 2 && name.charAt(0) == 'R') {
+                    var index = Character.digit(name.charAt(1), 16);
+                    if (index >= 0 && index < Constants.REGISTERS_SIZE) {
+                        yield engine -> engine.registers().load(index);
+                    }
+                }
+                yield null;
+            }
+        };
+    }
+
+    private static ToLongFunction<Engine> operand(String token) {
+        if (isNumber(token)) {
+            var number = Double.parseDouble(token);
+            if (Math.abs(number) >= 1e100) {
+                throw new IllegalArgumentException("Number out of range: " + token);
+            }
+            var value = Register.valueOf(number);
+            return _ -> value;
+        }
+        if (token.equals("PC")) {
+            return engine -> ADDRESSES[engine.programCounter().get().getEffectiveAddress() + 1];
+        }
+        var register = register(token);
+        if (register == null) {
+            throw new IllegalArgumentException("Unknown operand: " + token);
+        }
+        return register;
+    }
+
+    private static boolean isNumber(String token) {
+        var first = token.charAt(0);
+        return Character.isDigit(first) || first == '-' || first == '.';
+    }
+
+    private static boolean isZero(String token) {
+        return isNumber(token) && Double.parseDouble(token) == 0;
+    }
+
+    // or := and ('||' and)*
+    private Node or() {
+        var operands = new ArrayList<Node>();
+        operands.add(and());
+        while (accept("||")) {
+            operands.add(and());
+        }
+        return operands.size() == 1 ? operands.getFirst() : new Or(operands);
+    }
+
+    // and := unary ('&&' unary)*
+    private Node and() {
+        var operands = new ArrayList<Node>();
+        operands.add(unary());
+        while (accept("&&")) {
+            operands.add(unary());
+        }
+        return operands.size() == 1 ? operands.getFirst() : new And(operands);
+    }
+
+    // unary := '!' unary | '(' or ')' | operand operator operand
+    private Node unary() {
+        if (accept("!")) {
+            return new Not(unary());
+        }
+        if (accept("(")) {
+            var node = or();
+            expect(")");
+            return node;
+        }
+
+        var left = operandToken();
+        var operator = next();
+        if (!List.of("<", "<=", ">", ">=", "==", "!=").contains(operator)) {
+            throw error("comparison expected");
+        }
+        var right = operandToken();
+        return new Comparison(left, operator, right);
+    }
+
+    private String operandToken() {
+        var token = next();
+        if (isNumber(token)) {
+            try {
+                Double.parseDouble(token);
+            } catch (NumberFormatException ex) {
+                throw error("invalid number '" + token + "'");
+            }
+        } else if (!token.equals("PC") && register(token) == null) {
+            throw error("unknown operand '" + token + "'");
+        }
+        return token;
+    }
+
+    private boolean accept(String token) {
+        if (position < tokens.size() && tokens.get(position).equals(token)) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("'" + token + "' expected");
+        }
+    }
+
+    private String next() {
+        if (position >= tokens.size()) {
+            throw error("unexpected end");
+        }
+        return tokens.get(position++);
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Invalid condition \"" + text + "\": " + message);
+    }
+
+    private void tokenize() {
+        var i = 0;
+        while (i < text.length()) {
+            var ch = text.charAt(i);
+            if (Character.isWhitespace(ch)) {
+                i++;
+                continue;
+            }
+
+            var start = i;
+            if (Character.isDigit(ch) || ch == '.' || (ch == '-' && i + 1 < text.length()
+                    && (Character.isDigit(text.charAt(i + 1)) || text.charAt(i + 1) == '.'))) {
+                // Число, возможно с порядком
+                i++;
+                while (i < text.length()) {
+                    var c = text.charAt(i);
+                    var afterExponent = text.charAt(i - 1) == 'e' || text.charAt(i - 1) == 'E';
+                    if (!Character.isDigit(c) && c != '.' && c != 'e' && c != 'E'
+                            && !((c == '-' || c == '+') && afterExponent)) {
+                        break;
+                    }
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            } else if (Character.isLetter(ch)) {
+                while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i).toUpperCase());
+            } else if ((ch == '<' || ch == '>' || ch == '=' || ch == '!')
+                    && i + 1 < text.length() && text.charAt(i + 1) == '=') {
+                tokens.add(text.substring(i, i + 2));
+                i += 2;
+            } else if ((ch == '&' || ch == '|') && i + 1 < text.length() && text.charAt(i + 1) == ch) {
+                tokens.add(text.substring(i, i + 2));
+                i += 2;
+            } else if (ch == '<' || ch == '>' || ch == '!' || ch == '(' || ch == ')') {
+                tokens.add(String.valueOf(ch));
+                i++;
+            } else {
+                throw error("unexpected character '" + ch + "'");
+            }
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.panteleyev.mk52.program.Address;
+import org.panteleyev.mk52.program.OpCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+import static org.panteleyev.mk52.engine.Constants.REGISTERS_SIZE;
+
+/**
+ * Дифференциальное тестирование группового исполнения {@link LockstepRunner} относительно обычного
+ * {@link Processor}.
+ * <p>
+ * Случайная программа со случайным начальным состоянием исполняется пошагово в обеих конфигурациях, после каждого
+ * шага сравниваются стек, регистры, счетчик команд и стек возвратов. Индикатор сравнивается только после остановки,
+ * так как в автоматическом режиме процессор его не обновляет.
+ */
+public final class DifferentialFuzzer {
+    // Случайное число не воспроизводится, недокументированные операции процессор не исполняет
+    private static final Set<OpCode> EXCLUDED = EnumSet.of(
+            OpCode.RANDOM, OpCode.K_MINUS, OpCode.K_MULT, OpCode.K_DIV);
+
+    private static final int[] CODES = Arrays.stream(OpCode.values())
+            .filter(opCode -> opCode.code() >= 0 && !EXCLUDED.contains(opCode))
+            .mapToInt(OpCode::code)
+            .toArray();
+
+    private static final long SEED_INCREMENT = 0x9E37_79B9_7F4A_7C15L;
+
+    /**
+     * Начальное состояние.
+     */
+    public record InitialState(long x, long y, long z, long t, long[] registers, TrigonometricMode trigonometricMode) {
+    }
+
+    /**
+     * Состояние после очередного шага.
+     */
+    public record State(StackSnapshot stack, long[] registers, Address programCounter, Address[] callStack,
+                        boolean running, boolean error) {
+        /**
+         * Возвращает описание первого отличия или null, если состояния совпадают.
+         */
+        public String difference(State other) {
+            if (running != other.running || error != other.error) {
+                return String.format("status: running=%b error=%b vs running=%b error=%b",
+                        running, error, other.running, other.error);
+            }
+            if (stack.x() != other.stack.x()) {
+                return String.format("X: %X vs %X", stack.x(), other.stack.x());
+            }
+            if (stack.y() != other.stack.y()) {
+                return String.format("Y: %X vs %X", stack.y(), other.stack.y());
+            }
+            if (stack.z() != other.stack.z()) {
+                return String.format("Z: %X vs %X", stack.z(), other.stack.z());
+            }
+            if (stack.t() != other.stack.t()) {
+                return String.format("T: %X vs %X", stack.t(), other.stack.t());
+            }
+            if (stack.x1() != other.stack.x1()) {
+                return String.format("X1: %X vs %X", stack.x1(), other.stack.x1());
+            }
+            for (int r = 0; r < REGISTERS_SIZE; r++) {
+                if (registers[r] != other.registers[r]) {
+                    return String.format("R%X: %X vs %X", r, registers[r], other.registers[r]);
+                }
+            }
+            if (!programCounter.equals(other.programCounter)) {
+                return "PC: " + programCounter + " vs " + other.programCounter;
+            }
+            if (!Arrays.equals(callStack, other.callStack)) {
+                return "Call stack: " + Arrays.toString(callStack) + " vs " + Arrays.toString(other.callStack);
+            }
+            if (!running && !stack.x2().equals(other.stack.x2())) {
+                return "Display: " + stack.x2() + " vs " + other.stack.x2();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Расхождение конфигураций.
+     *
+     * @param seed       начальное значение генератора, по которому воспроизводится программа
+     * @param program    минимизированная программа
+     * @param initial    начальное состояние
+     * @param step       номер шага, на котором обнаружено расхождение
+     * @param expected   состояние обычного процессора или null, если процессор завершился исключением
+     * @param actual     состояние группового исполнения
+     * @param difference описание первого отличия
+     */
+    public record Divergence(long seed, int[] program, InitialState initial, long step, State expected,
+                             State actual, String difference) {
+        @Override
+        public String toString() {
+            var builder = new StringBuilder();
+            builder.append(String.format("Seed %d, step %d: %s%n", seed, step, difference));
+            for (int i = 0; i < program.length; i++) {
+                builder.append(String.format("%02X", program[i])).append(i % 10 == 9 ? '\n' : ' ');
+            }
+            return builder.append('\n').toString();
+        }
+    }
+
+    /**
+     * Отчет.
+     *
+     * @param programs    число исполненных программ
+     * @param steps       общее число шагов
+     * @param nanos       время исполнения, нс
+     * @param divergences расхождения в порядке начальных значений генератора
+     */
+    public record Report(long programs, long steps, long nanos, List<Divergence> divergences) {
+        public Report {
+            divergences = List.copyOf(divergences);
+        }
+
+        public double programsPerHour() {
+            return nanos == 0 ? 0 : programs * 3600e9 / nanos;
+        }
+
+        public String format() {
+            var builder = new StringBuilder(String.format(
+                    "%d programs, %d steps, %.3f ms, %.0f programs/h, %d divergences%n",
+                    programs, steps, nanos / 1e6, programsPerHour(), divergences.size()));
+            divergences.forEach(builder::append);
+            return builder.toString();
+        }
+    }
+
+    private final int parallelism;
+    private final long maxSteps;
+
+    public DifferentialFuzzer(long maxSteps) {
+        this(Runtime.getRuntime().availableProcessors(), maxSteps);
+    }
+
+    public DifferentialFuzzer(int parallelism, long maxSteps) {
+        if (parallelism <= 0 || maxSteps <= 0) {
+            throw new IllegalArgumentException("Parallelism and number of steps must be positive");
+        }
+        this.parallelism = parallelism;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Исполняет заданное число случайных программ.
+     *
+     * @param seed     начальное значение генератора
+     * @param programs число программ
+     * @return отчет
+     */
+    public Report fuzz(long seed, int programs) {
+        var steps = new AtomicLong();
+        var tasks = new ArrayList<Callable<List<Divergence>>>(parallelism);
+        for (int k = 0; k < parallelism; k++) {
+            var first = k;
+            tasks.add(() -> {
+                var divergences = new ArrayList<Divergence>();
+                var taskSteps = new long[1];
+                for (int i = first; i < programs; i += parallelism) {
+                    var divergence = run(seed + i * SEED_INCREMENT, taskSteps);
+                    if (divergence != null) {
+                        divergences.add(divergence);
+                    }
+                }
+                steps.addAndGet(taskSteps[0]);
+                return divergences;
+            });
+        }
+
+        var start = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(parallelism)) {
+            var divergences = new ArrayList<Divergence>();
+            for (var future : executor.invokeAll(tasks)) {
+                divergences.addAll(future.get());
+            }
+            divergences.sort(Comparator.comparingLong(Divergence::seed));
+            return new Report(programs, steps.get(), System.nanoTime() - start, divergences);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    /**
+     * Исполняет программу, полученную по начальному значению генератора.
+     *
+     * @return минимизированное расхождение или null
+     */
+    public Divergence run(long seed) {
+        return run(seed, new long[1]);
+    }
+
+    private Divergence run(long seed, long[] steps) {
+        var random = new SplittableRandom(seed);
+        var program = randomProgram(random);
+        var initial = randomState(random);
+
+        var divergence = compare(seed, program, initial, steps);
+        if (divergence == null) {
+            return null;
+        }
+        var minimized = minimize(seed, program, initial);
+        return compare(seed, minimized, initial, new long[1]);
+    }
+
+    /**
+     * Исполняет программу в обеих конфигурациях до первого расхождения.
+     *
+     * @return расхождение или null
+     */
+    Divergence compare(long seed, int[] program, InitialState initial, long[] steps) {
+        var engine = referenceEngine(program, initial);
+
+        var runner = new LockstepRunner(program, 1);
+        runner.setTrigonometricMode(initial.trigonometricMode());
+        runner.setX(0, initial.x());
+        runner.setY(0, initial.y());
+        runner.setZ(0, initial.z());
+        runner.setT(0, initial.t());
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            runner.setRegister(0, r, initial.registers()[r]);
+        }
+
+        for (long step = 1; step <= maxSteps; step++) {
+            steps[0]++;
+            State expected = null;
+            RuntimeException expectedException = null;
+            try {
+                expected = stepReference(engine);
+            } catch (RuntimeException ex) {
+                expectedException = ex;
+            }
+            RuntimeException actualException = null;
+            try {
+                runner.run(step);
+            } catch (RuntimeException ex) {
+                actualException = ex;
+            }
+            runner.resume();
+            var actual = laneState(runner);
+
+            // Одинаковое исключение в обеих конфигурациях расхождением не считается
+            if (expectedException != null || actualException != null) {
+                if (expectedException != null && actualException != null
+                        && expectedException.getClass() == actualException.getClass()) {
+                    break;
+                }
+                return new Divergence(seed, program, initial, step, expected, actual,
+                        "exception: " + expectedException + " vs " + actualException);
+            }
+
+            var difference = expected.difference(actual);
+            if (difference != null) {
+                return new Divergence(seed, program, initial, step, expected, actual, difference);
+            }
+            if (!expected.running()) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Заменяет команды на К НОП, пока расхождение сохраняется.
+     */
+    int[] minimize(long seed, int[] program, InitialState initial) {
+        var current = program.clone();
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i] == OpCode.NOOP.code()) {
+                    continue;
+                }
+                var candidate = current.clone();
+                candidate[i] = OpCode.NOOP.code();
+                if (compare(seed, candidate, initial, new long[1]) != null) {
+                    current = candidate;
+                    changed = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    private static Engine referenceEngine(int[] program, InitialState initial) {
+        var engine = new Engine(false, _ -> {});
+        engine.loadMemoryBytes(program);
+        engine.setTrigonometricMode(initial.trigonometricMode());
+
+        var x = Register.normalize(initial.x());
+        engine.stack().restore(
+                new StackSnapshot(x, initial.y(), initial.z(), initial.t(), 0, Register.xToIndicator(initial.x())),
+                Stack.InputState.INITIAL
+        );
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            engine.registers().store(Address.of(r), initial.registers()[r]);
+        }
+        engine.callStack().restore(new Address[]{Address.ZERO, Address.ZERO, Address.ZERO, Address.ZERO,
+                Address.ZERO});
+        engine.programCounter().set(Address.ZERO);
+        engine.getLastExecutedOpCode().set(null);
+        engine.enteringExponent().set(false);
+        engine.automaticMode().set(true);
+        return engine;
+    }
+
+    private static State stepReference(Engine engine) {
+        var error = false;
+        try {
+            engine.processor().run(1);
+        } catch (ArithmeticException ex) {
+            error = true;
+        }
+
+        var snapshot = engine.stack().getSnapshot();
+        var running = !error && engine.automaticMode().get();
+        error = error || (!running && isError(snapshot.x2()));
+        return new State(snapshot, engine.registers().getSnapshot(), engine.getProgramCounter(),
+                engine.callStack().getSnapshot().stack(), running, error);
+    }
+
+    private static State laneState(LockstepRunner runner) {
+        var stack = new StackSnapshot(runner.x(0), runner.y(0), runner.z(0), runner.t(0), runner.x1(0),
+                runner.display(0));
+        var registers = new long[REGISTERS_SIZE];
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            registers[r] = runner.register(0, r);
+        }
+        var status = runner.status(0);
+        return new State(stack, registers, runner.programCounter(0), runner.callStack(0),
+                status == LockstepRunner.LaneStatus.RUNNING, status == LockstepRunner.LaneStatus.ERROR);
+    }
+
+    private static boolean isError(IR ir) {
+        return ir.equals(IR.ERROR) || ir.equals(IR.ERROR_2) || ir.equals(IR.EMPTY);
+    }
+
+    static int[] randomProgram(SplittableRandom random) {
+        var program = new int[PROGRAM_MEMORY_SIZE];
+        for (int i = 0; i < PROGRAM_MEMORY_SIZE; i++) {
+            program[i] = CODES[random.nextInt(CODES.length)];
+            var opCode = OpCode.findByCode(program[i]);
+            if (opCode != null && opCode.hasAddress() && i + 1 < PROGRAM_MEMORY_SIZE) {
+                var address = random.nextInt(PROGRAM_MEMORY_SIZE);
+                program[++i] = (address / 10) << 4 | address % 10;
+            }
+        }
+        return program;
+    }
+
+    static InitialState randomState(SplittableRandom random) {
+        var registers = new long[REGISTERS_SIZE];
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            registers[r] = randomValue(random);
+        }
+        var modes = TrigonometricMode.values();
+        return new InitialState(randomValue(random), randomValue(random), randomValue(random), randomValue(random),
+                registers, modes[random.nextInt(modes.length)]);
+    }
+
+    private static long randomValue(SplittableRandom random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> 0;
+            // Небольшие целые числа для счетчиков циклов и косвенной адресации
+            case 1 -> Register.valueOf(random.nextInt(-20, 21));
+            default -> Register.valueOf((random.nextDouble() * 2 - 1) * Math.pow(10, random.nextInt(-12, 13)));
+        };
+    }
+}
@@ -10,6 +10,7 @@ import javafx.beans.property.SimpleObjectProperty;
 import org.panteleyev.mk52.eeprom.Eeprom;
 import org.panteleyev.mk52.eeprom.EepromMode;
 import org.panteleyev.mk52.eeprom.EepromOperation;
+import org.panteleyev.mk52.eeprom.EepromStorage;
 import org.panteleyev.mk52.program.Address;
 import org.panteleyev.mk52.program.Instruction;
 import org.panteleyev.mk52.program.OpCode;
@@ -18,15 +19,23 @@ import org.panteleyev.mk52.program.ProgramMemory;
 import org.panteleyev.mk52.program.StepExecutionCallback;
 import org.panteleyev.mk52.program.StepExecutionResult;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 import static org.panteleyev.mk52.eeprom.Eeprom.RW_DURATION;
-import static org.panteleyev.mk52.engine.KeyboardButton.BUTTON_TO_ADDRESS;
+import static org.panteleyev.mk52.eeprom.Eeprom.SET_ADDRESS_DURATION;
+import static org.panteleyev.mk52.engine.Constants.TURN_OFF_DISPLAY_DELAY;
 import static org.panteleyev.mk52.engine.KeyboardButton.EEPROM_ADDRESS;
 import static org.panteleyev.mk52.engine.KeyboardButton.EEPROM_EXCHANGE;
 import static org.panteleyev.mk52.engine.KeyboardButton.GOSUB;
@@ -35,6 +44,8 @@ import static org.panteleyev.mk52.engine.KeyboardButton.RUN_STOP;
 import static org.panteleyev.mk52.program.OpCode.EMPTY;
 
 public final class Engine {
+    private static final int COMMAND_QUEUE_CAPACITY = 1024;
+
     private static class ExecutionThread extends Thread {
         ExecutionThread(Runnable runnable) {
             super(runnable);
@@ -43,17 +54,9 @@ public final class Engine {
         }
     }
 
-    private static class EepromThread extends Thread {
-        EepromThread(Runnable runnable) {
-            super(runnable);
-            setDaemon(true);
-            setName("EEPROM");
-        }
-    }
-
     private final boolean async;
 
-    private boolean powered = false;
+    private volatile boolean powered = false;
 
     // Последний код операции, используется при вводе чисел
     private final AtomicReference<OpCode> lastExecutedOpCode = new AtomicReference<>(null);
@@ -79,8 +82,7 @@ public final class Engine {
     // Стек вызовов
     private final CallStack callStack = new CallStack();
     // ППЗУ
-    private final Eeprom eeprom = new Eeprom(programMemory, registers);
-    private final Executor eepromExecutor = Executors.newSingleThreadExecutor(EepromThread::new);
+    private final Eeprom eeprom;
 
     private final StepExecutionCallback stepCallback = new StepExecutionCallback() {
         @Override
@@ -95,15 +97,40 @@ public final class Engine {
         }
     };
     private final Processor processor;
-    private final Executor processorExecutor = Executors.newSingleThreadExecutor(ExecutionThread::new);
+    private final Executor processorExecutor;
+
+    // Клавиши и управление в асинхронном режиме исполняются потоком процессора в порядке поступления
+    private CommandQueue commands;
+    private final AtomicBoolean commandsScheduled = new AtomicBoolean(false);
+    // Поток, который последним обрабатывал команды
+    private volatile Thread commandThread;
+    // Поток процессора исполняет программу и обрабатывает команды между шагами
+    private boolean executing = false;
+    // Запуск программы, полученный во время исполнения. Исполняется после выхода из цикла, следующие команды
+    // ждут его
+    private Runnable deferred;
+    // Планировщик, который исполняет синхронный движок вместо вызывающего потока
+    private volatile EngineScheduler scheduler;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
 
+    private volatile SpeedMode speedMode = SpeedMode.REAL_TIME;
+    // Максимальное число шагов программы за один запуск
+    private volatile long stepLimit = Long.MAX_VALUE;
+    // Последний запуск остановлен по ограничению числа шагов
+    private volatile boolean stepLimitReached = false;
+    // Окно с индикатором видно пользователю
+    private volatile boolean displayVisible = true;
+    // Эмулированное время, наносекунды
+    private final AtomicLong emulatedTime = new AtomicLong(0);
+    private final EngineMetrics metrics = new EngineMetrics();
+    private final Breakpoints breakpoints = new Breakpoints();
+
     private KeyboardMode keyboardMode = KeyboardMode.NORMAL;
 
     // ППЗУ
-    private EepromOperation eepromOperation = EepromOperation.READ;
-    private EepromMode eepromMode = EepromMode.DATA;
+    private volatile EepromOperation eepromOperation = EepromOperation.READ;
+    private volatile EepromMode eepromMode = EepromMode.DATA;
 
     // Сюда сохраняем цифры адреса при вводе двухбайтовой команды
     private int address = 0;
@@ -123,7 +150,25 @@ public final class Engine {
 
     public Engine(boolean async, RegistersUpdateCallback registersUpdateCallback,
             MemoryUpdateCallback memoryUpdateCallback) {
+        this(async, registersUpdateCallback, memoryUpdateCallback, null);
+    }
+
+    /**
+     * @param source движок, ППЗУ которого копируется, или null для чистого ППЗУ
+     */
+    private Engine(boolean async, RegistersUpdateCallback registersUpdateCallback,
+            MemoryUpdateCallback memoryUpdateCallback, Engine source) {
         this.async = async;
+        this.eeprom = source == null
+                ? new Eeprom(programMemory, registers)
+                : source.eeprom.fork(programMemory, registers);
+        // Синхронному движку поток процессора не нужен, очередь команд создается при подключении планировщика
+        if (async) {
+            this.processorExecutor = Executors.newSingleThreadExecutor(ExecutionThread::new);
+            this.commands = new CommandQueue(COMMAND_QUEUE_CAPACITY);
+        } else {
+            this.processorExecutor = null;
+        }
         this.processor = new Processor(
                 this,
                 async,
@@ -136,6 +181,42 @@ public final class Engine {
         init();
     }
 
+    /**
+     * Возвращает независимую копию калькулятора: память программ, регистры, стек, стек вызовов, счетчик команд,
+     * режимы и ППЗУ. Копия синхронная, без обратных вызовов, планировщика и точек останова, программа в ней
+     * остановлена и продолжается {@link #run()}. Состояние копируется массивами, ППЗУ - при первой записи.
+     * <p>
+     * Вызывается потоком, исполняющим движок, или когда программа остановлена.
+     */
+    public Engine fork() {
+        var copy = new Engine(false, _ -> {}, MemoryUpdateCallback.NOOP, this);
+        copy.powered = powered;
+        copy.programming.set(programming.get());
+        copy.enteringExponent.set(enteringExponent.get());
+        copy.keyboardMode = keyboardMode;
+        copy.processor.setTrigonometricMode(processor.getTrigonometricMode());
+        copy.eepromOperation = eepromOperation;
+        copy.eepromMode = eepromMode;
+        copy.lastExecutedOpCode.set(lastExecutedOpCode.get());
+        copy.registerOpCode = registerOpCode;
+        copy.addressOpCode = addressOpCode;
+        copy.address = address;
+        copy.programCounter.set(programCounter.get());
+        copy.callStack.copyFrom(callStack);
+        copy.stack.copyFrom(stack);
+        copy.x2.set(x2.get());
+        copy.registers.copyFrom(registers);
+        copy.programMemory.copyFrom(programMemory);
+        copy.speedMode = speedMode;
+        copy.emulatedTime.set(emulatedTime.get());
+        copy.displayProperty.set(copy.getCurrentDisplay());
+        return copy;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
     public AtomicReference<IR> x2() {
         return x2;
     }
@@ -180,6 +261,10 @@ public final class Engine {
         return callStack;
     }
 
+    Processor processor() {
+        return processor;
+    }
+
     private void setDisplay(IR display) {
         if (!async || Platform.isFxApplicationThread()) {
             displayProperty.set(display);
@@ -206,7 +291,113 @@ public final class Engine {
         return programCounter.get();
     }
 
+    /**
+     * Передает команду потоку процессора. В синхронном режиме исполняет ее сразу.
+     * Если очередь заполнена, команда отбрасывается.
+     *
+     * @return false если команда отброшена
+     */
+    private boolean submit(Runnable command) {
+        var scheduler = this.scheduler;
+        if (!async && scheduler == null) {
+            command.run();
+            return true;
+        }
+
+        if (!commands.offer(command)) {
+            metrics.droppedCommand();
+            return false;
+        }
+        if (scheduler != null) {
+            scheduler.wake(this);
+        } else if (commandsScheduled.compareAndSet(false, true)) {
+            processorExecutor.execute(this::processCommands);
+        }
+        return true;
+    }
+
+    /**
+     * Исполняет действие в потоке процессора после накопившихся команд и ждет результата. В синхронном режиме и
+     * в потоке процессора исполняет его сразу. Исключение действия передается вызывающему потоку.
+     *
+     * @throws IllegalStateException если очередь команд заполнена
+     */
+    private <T> T call(Supplier<T> action) {
+        if (!async && scheduler == null || Thread.currentThread() == commandThread) {
+            return action.get();
+        }
+
+        var result = new CompletableFuture<T>();
+        var submitted = submit(() -> {
+            try {
+                result.complete(action.get());
+            } catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+            }
+        });
+        if (!submitted) {
+            throw new IllegalStateException("Command queue is full");
+        }
+
+        try {
+            return result.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Исполняет накопившиеся команды. Вызывается только потоком процессора, в том числе между шагами программы,
+     * чтобы клавиши обрабатывались во время счета.
+     */
+    void processCommands() {
+        if (!async && scheduler == null) {
+            return;
+        }
+
+        commandThread = Thread.currentThread();
+        commandsScheduled.set(false);
+        for (var command = nextCommand(); command != null; command = nextCommand()) {
+            command.run();
+        }
+    }
+
+    private Runnable nextCommand() {
+        if (deferred == null) {
+            return commands.poll();
+        }
+        if (executing) {
+            return null;
+        }
+        var command = deferred;
+        deferred = null;
+        return command;
+    }
+
+    /**
+     * Проверяет, получен ли запуск между шагами исполняемой программы. Во время счета такой запуск ничего не
+     * меняет, после остановки откладывается до выхода из цикла, чтобы циклы не вкладывались друг в друга.
+     *
+     * @return true если запуск не нужно исполнять сейчас
+     */
+    private boolean deferStart(Runnable start) {
+        if (!executing) {
+            return false;
+        }
+        if (!automaticMode.get()) {
+            deferred = start;
+        }
+        return true;
+    }
+
     public void processButton(KeyboardButton button) {
+        submit(() -> handleButton(button));
+    }
+
+    private void handleButton(KeyboardButton button) {
         if (!powered) {
             return;
         }
@@ -247,7 +438,7 @@ public final class Engine {
         }
 
         if (keyboardMode == KeyboardMode.NORMAL && button == RUN_STOP) {
-            run();
+            startProgram();
             return;
         }
 
@@ -262,28 +453,24 @@ public final class Engine {
                     case KeyboardMode.F -> button.getfOpCode();
                     case KeyboardMode.K -> button.getkOpCode();
                     case KeyboardMode.ADDRESS_DIGIT_1 -> {
-                        var val = BUTTON_TO_ADDRESS.get(button);
-                        if (val != null) {
-                            address = val;
+                        var digit = button.addressDigit();
+                        if (digit >= 0) {
+                            address = digit;
                         }
                         keyboardMode = KeyboardMode.ADDRESS_DIGIT_2;
                         yield OpCode.EMPTY;
                     }
                     case KeyboardMode.ADDRESS_DIGIT_2 -> {
-                        var val = BUTTON_TO_ADDRESS.get(button);
-                        if (val != null) {
-                            address = address << 4 | val;
+                        var digit = button.addressDigit();
+                        if (digit >= 0) {
+                            address = address << 4 | digit;
                         }
                         execute(new Instruction(addressOpCode, Address.of(address & 0xFF)));
                         keyboardMode = KeyboardMode.NORMAL;
                         yield OpCode.EMPTY;
                     }
                     case KeyboardMode.REGISTER -> {
-                        var register = KeyboardButton.BUTTON_TO_REGISTER.get(button);
-                        if (register == null) {
-                            register = 0;
-                        }
-                        var effectiveCode = registerOpCode.code() + register;
+                        var effectiveCode = registerOpCode.code() + Math.max(button.register(), 0);
                         keyboardMode = KeyboardMode.NORMAL;
                         execute(new Instruction(OpCode.findByCode(effectiveCode)));
                         yield OpCode.EMPTY;
@@ -325,28 +512,24 @@ public final class Engine {
                     case KeyboardMode.F -> button.getfOpCode();
                     case KeyboardMode.K -> button.getkOpCode();
                     case KeyboardMode.ADDRESS_DIGIT_1 -> {
-                        var val = BUTTON_TO_ADDRESS.get(button);
-                        if (val != null) {
-                            address = val;
+                        var digit = button.addressDigit();
+                        if (digit >= 0) {
+                            address = digit;
                         }
                         keyboardMode = KeyboardMode.ADDRESS_DIGIT_2;
                         yield OpCode.EMPTY;
                     }
                     case KeyboardMode.ADDRESS_DIGIT_2 -> {
-                        var val = BUTTON_TO_ADDRESS.get(button);
-                        if (val != null) {
-                            address = address << 4 | val;
+                        var digit = button.addressDigit();
+                        if (digit >= 0) {
+                            address = address << 4 | digit;
                         }
                         storeCode(address & 0xFF);
                         keyboardMode = KeyboardMode.NORMAL;
                         yield OpCode.EMPTY;
                     }
                     case KeyboardMode.REGISTER -> {
-                        var register = KeyboardButton.BUTTON_TO_REGISTER.get(button);
-                        if (register == null) {
-                            register = 0;
-                        }
-                        var effectiveCode = registerOpCode.code() + register;
+                        var effectiveCode = registerOpCode.code() + Math.max(button.register(), 0);
                         storeCode(effectiveCode);
                         keyboardMode = KeyboardMode.NORMAL;
                         yield OpCode.EMPTY;
@@ -379,6 +562,10 @@ public final class Engine {
     }
 
     public void togglePower(boolean on) {
+        submit(() -> switchPower(on));
+    }
+
+    private void switchPower(boolean on) {
         if (!powered && on) {
             init();
             powered = true;
@@ -390,50 +577,182 @@ public final class Engine {
         }
     }
 
+    public boolean isPowered() {
+        return powered;
+    }
+
+    public SpeedMode getSpeedMode() {
+        return speedMode;
+    }
+
+    public void setSpeedMode(SpeedMode speedMode) {
+        this.speedMode = speedMode;
+    }
+
+    public long getStepLimit() {
+        return stepLimit;
+    }
+
+    /**
+     * Ограничивает число шагов программы за один запуск. Программа, не остановившаяся за это число шагов,
+     * останавливается, {@link #isStepLimitReached()} возвращает true до следующего запуска.
+     */
+    public void setStepLimit(long stepLimit) {
+        if (stepLimit <= 0) {
+            throw new IllegalArgumentException("Step limit must be positive: " + stepLimit);
+        }
+        this.stepLimit = stepLimit;
+        stepLimitReached = false;
+    }
+
+    public boolean isStepLimitReached() {
+        return stepLimitReached;
+    }
+
+    public void setDisplayVisible(boolean displayVisible) {
+        this.displayVisible = displayVisible;
+    }
+
+    /**
+     * Возвращает true, если гашение индикатора между командами будет заметно.
+     */
+    boolean isBlinkVisible() {
+        return displayVisible && speedMode.isVisible(TURN_OFF_DISPLAY_DELAY);
+    }
+
+    /**
+     * Возвращает время, которое заняли бы выполненные операции на настоящем калькуляторе.
+     */
+    public Duration getEmulatedTime() {
+        return Duration.ofNanos(emulatedTime.get());
+    }
+
+    void advanceEmulatedTime(Duration duration) {
+        var nanos = duration.toNanos();
+        emulatedTime.addAndGet(nanos);
+        metrics.emulated(nanos);
+    }
+
+    public EngineMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Точки останова и наблюдения, проверяются при исполнении программы.
+     */
+    public Breakpoints breakpoints() {
+        return breakpoints;
+    }
+
     public void setTrigonometricMode(TrigonometricMode trigonometricMode) {
-        processor.setTrigonometricMode(trigonometricMode);
+        submit(() -> processor.setTrigonometricMode(trigonometricMode));
+    }
+
+    public TrigonometricMode getTrigonometricMode() {
+        return processor.getTrigonometricMode();
     }
 
     private void execute(Instruction instruction) {
         running.set(true);
         automaticMode.set(false);
-        if (async) {
-            processorExecutor.execute(() -> processor.execute(instruction));
-        } else {
-            processor.execute(instruction);
-        }
+        processor.execute(instruction);
     }
 
     private void step() {
         running.set(true);
         automaticMode.set(false);
-        if (async) {
-            processorExecutor.execute(processor::step);
-        } else {
-            processor.step();
-        }
+        processor.step();
     }
 
     public void run() {
+        submit(this::startProgram);
+    }
+
+    private void startProgram() {
+        if (deferStart(this::startProgram)) {
+            return;
+        }
         running.set(true);
         automaticMode.set(true);
-        if (async) {
-            processorExecutor.execute(processor::run);
-        } else {
-            processor.run();
+        stepLimitReached = false;
+        // Программу под управлением планировщика исполняет планировщик, по одному шагу
+        if (scheduler == null) {
+            executing = true;
+            try {
+                processor.run(stepLimit);
+            } finally {
+                executing = false;
+            }
+            if (automaticMode.get()) {
+                automaticMode.set(false);
+                stepLimitReached = true;
+            }
         }
     }
 
-    public void storeCode(int code) {
-        running.set(true);
-        var pc = programCounter.get();
+    void setScheduler(EngineScheduler scheduler) {
+        if (commands == null) {
+            commands = new CommandQueue(COMMAND_QUEUE_CAPACITY);
+        }
+        this.scheduler = scheduler;
+    }
 
-        if (async) {
-            processorExecutor.execute(() -> processor.storeCode(code));
-        } else {
-            processor.storeCode(code);
+    /**
+     * Исполняет накопившиеся команды и один шаг программы. Вызывается планировщиком.
+     *
+     * @return true если программа продолжает исполняться
+     */
+    boolean advance() {
+        processCommands();
+        if (automaticMode.get()) {
+            processor.step();
+            processor.checkBreakpoints();
+        }
+        return automaticMode.get();
+    }
+
+    /**
+     * Исполняет программу на полной скорости до адреса. Если адрес не встретится, исполнение продолжается до
+     * останова программы.
+     */
+    public void runTo(Address target) {
+        submit(() -> runUnthrottled(target.getEffectiveAddress(), Integer.MIN_VALUE));
+    }
+
+    /**
+     * Выполняет шаг программы. Вызов подпрограммы исполняется целиком на полной скорости.
+     */
+    public void stepOver() {
+        submit(() -> runUnthrottled(-1, 0));
+    }
+
+    /**
+     * Исполняет текущую подпрограмму на полной скорости до возврата из нее.
+     */
+    public void stepOut() {
+        submit(() -> runUnthrottled(-1, -1));
+    }
+
+    private void runUnthrottled(int target, int stopDepth) {
+        if (!powered || programming.get() || automaticMode.get()
+                || deferStart(() -> runUnthrottled(target, stopDepth))) {
+            return;
+        }
+        keyboardMode = KeyboardMode.NORMAL;
+        running.set(true);
+        automaticMode.set(true);
+        executing = true;
+        try {
+            processor.runUnthrottled(target, stopDepth);
+        } finally {
+            executing = false;
         }
+    }
 
+    private void storeCode(int code) {
+        running.set(true);
+        var pc = programCounter.get();
+        processor.storeCode(code);
         memoryUpdateCallback.store(pc.getEffectiveAddress(), code);
     }
 
@@ -441,55 +760,192 @@ public final class Engine {
         if (async) {
             running.set(true);
 
-            var eepromDisplay = Eeprom.convertDisplay(getCurrentDisplay());
-            setDisplay(eepromDisplay);
-            eepromExecutor.execute(() -> {
-                eeprom.setAddress(stack.xOrBuffer());
-                processor.sleep(Eeprom.SET_ADDRESS_DURATION);
+            // Индикация обмена не показывается, если он завершится быстрее, чем ее можно увидеть
+            var indication = speedMode.isVisible(SET_ADDRESS_DURATION);
+            if (indication) {
+                setDisplay(Eeprom.convertDisplay(getCurrentDisplay()));
+            }
+            eeprom.setAddress(stack.xOrBuffer());
+            processor.delay(SET_ADDRESS_DURATION);
+            if (indication) {
                 setDisplay(getCurrentDisplay());
-                running.set(false);
-            });
+            }
+            running.set(false);
         } else {
             eeprom.setAddress(stack.xOrBuffer());
+            advanceEmulatedTime(SET_ADDRESS_DURATION);
         }
     }
 
     private void handleEepromOperation(boolean async) {
         if (async) {
             running.set(true);
-            var eepromDisplay = Eeprom.convertDisplay(getCurrentDisplay());
-            setDisplay(eepromDisplay);
-            eepromExecutor.execute(() -> {
-                eeprom.exchange(eepromOperation, eepromMode);
-                processor.sleep(RW_DURATION);
-                memoryUpdateCallback.store(getMemoryBytes());
+            var indication = speedMode.isVisible(RW_DURATION);
+            if (indication) {
+                setDisplay(Eeprom.convertDisplay(getCurrentDisplay()));
+            }
+            eeprom.exchange(eepromOperation, eepromMode);
+            metrics.eepromOperation();
+            processor.delay(RW_DURATION);
+            memoryUpdateCallback.store(getMemoryBytes());
+            if (indication) {
                 setDisplay(getCurrentDisplay());
-                running.set(false);
-            });
+            }
+            running.set(false);
         } else {
             eeprom.exchange(eepromOperation, eepromMode);
+            metrics.eepromOperation();
+            advanceEmulatedTime(RW_DURATION);
         }
     }
 
     public void setEepromOperation(EepromOperation eepromOperation) {
-        this.eepromOperation = eepromOperation;
+        submit(() -> this.eepromOperation = eepromOperation);
+    }
+
+    public EepromOperation getEepromOperation() {
+        return eepromOperation;
     }
 
     public void setEepromMode(EepromMode eepromMode) {
-        this.eepromMode = eepromMode;
+        submit(() -> this.eepromMode = eepromMode);
+    }
+
+    public EepromMode getEepromMode() {
+        return eepromMode;
     }
 
     public void loadMemoryBytes(int[] bytes) {
-        programMemory.storeCodes(bytes);
-        memoryUpdateCallback.store(bytes);
+        var codes = bytes.clone();
+        submit(() -> {
+            programMemory.storeCodes(codes);
+            memoryUpdateCallback.store(codes);
+        });
     }
 
     public void exportEeprom(OutputStream out) {
-        eeprom.exportDump(out);
+        call(() -> {
+            eeprom.exportDump(out);
+            return null;
+        });
     }
 
+    /**
+     * Загружает текстовый дамп ППЗУ после ранее переданных команд, в том числе смены хранилища.
+     *
+     * @throws IllegalArgumentException если дамп содержит ошибку
+     */
     public void importEeprom(InputStream in) {
-        eeprom.importDump(in);
+        call(() -> {
+            eeprom.importDump(in);
+            return null;
+        });
+    }
+
+    public void setEepromStorage(EepromStorage storage) {
+        submit(() -> eeprom.setStorage(storage));
+    }
+
+    public void closeEeprom() {
+        eeprom.close();
+    }
+
+    /**
+     * Возвращает полное состояние калькулятора, кроме содержимого ППЗУ. Исполняемая программа при восстановлении
+     * окажется остановленной на текущем шаге. Состояние снимается в потоке процессора между командами.
+     */
+    public byte[] saveState() {
+        return call(this::encodeState);
+    }
+
+    private byte[] encodeState() {
+        return new SaveState(
+                programming.get(),
+                enteringExponent.get(),
+                keyboardMode,
+                processor.getTrigonometricMode(),
+                eepromOperation,
+                eepromMode,
+                lastExecutedOpCode.get(),
+                registerOpCode,
+                addressOpCode,
+                address,
+                programCounter.get(),
+                callStack.getSnapshot().stack(),
+                eeprom.getAddress(),
+                stack.getSnapshot(),
+                stack.getInputState(),
+                registers.getSnapshot(),
+                programMemory.getMemoryBytes()
+        ).encode();
+    }
+
+    /**
+     * Восстанавливает состояние, полученное {@link #saveState()}, и включает калькулятор.
+     *
+     * @throws IllegalArgumentException если данные не являются состоянием калькулятора
+     */
+    public void restoreState(byte[] bytes) {
+        var state = SaveState.decode(bytes);
+        call(() -> {
+            applyState(state);
+            return null;
+        });
+    }
+
+    private void applyState(SaveState state) {
+        automaticMode.set(false);
+        running.set(false);
+        programming.set(state.programming());
+        enteringExponent.set(state.enteringExponent());
+        keyboardMode = state.keyboardMode();
+        processor.setTrigonometricMode(state.trigonometricMode());
+        eepromOperation = state.eepromOperation();
+        eepromMode = state.eepromMode();
+        lastExecutedOpCode.set(state.lastExecutedOpCode());
+        registerOpCode = state.registerOpCode();
+        addressOpCode = state.addressOpCode();
+        address = state.address();
+        programCounter.set(state.programCounter());
+        callStack.restore(state.callStack());
+        eeprom.setAddress(state.eepromAddress());
+        stack.restore(state.stack(), state.inputState());
+        registers.restore(state.registers());
+        programMemory.storeCodes(state.memory());
+        powered = true;
+
+        memoryUpdateCallback.store(state.memory());
+        registersUpdateCallback.update(getSnapshot());
+        setDisplay(getCurrentDisplay());
+    }
+
+    /**
+     * Возвращает текущее состояние стека, регистров и счетчика команд.
+     */
+    public StepExecutionResult getSnapshot() {
+        return new StepExecutionResult(
+                getCurrentDisplay(),
+                programCounter.get(),
+                stack.getSnapshot(),
+                registers.getSnapshot(),
+                callStack.getSnapshot()
+        );
+    }
+
+    public void writeState(OutputStream out) {
+        try {
+            out.write(saveState());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public void readState(InputStream in) {
+        try {
+            restoreState(in.readAllBytes());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
     }
 
 
@@ -0,0 +1,133 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счетчики работы движка.
+ * <p>
+ * Счетчики распределенные, запись из потока процессора не конкурирует с чтением. Если задан общий набор
+ * счетчиков, значения дублируются в него: так собирается статистика пула движков.
+ */
+public final class EngineMetrics {
+    private final LongAdder instructions = new LongAdder();
+    private final LongAdder emulatedNanos = new LongAdder();
+    private final LongAdder eepromOperations = new LongAdder();
+    private final LongAdder pendingUiUpdates = new LongAdder();
+    private final LongAdder droppedCommands = new LongAdder();
+    // Ошибки переполнения по ярусам: 1, 2 и верхние
+    private final LongAdder errorTier1 = new LongAdder();
+    private final LongAdder errorTier2 = new LongAdder();
+    private final LongAdder errorUpperTiers = new LongAdder();
+
+    private EngineMetrics aggregate;
+
+    /**
+     * Задает общий набор счетчиков. Вызывается до начала работы движка.
+     */
+    public void setAggregate(EngineMetrics aggregate) {
+        this.aggregate = aggregate;
+    }
+
+    void instruction() {
+        instructions.increment();
+        if (aggregate != null) {
+            aggregate.instruction();
+        }
+    }
+
+    void emulated(long nanos) {
+        emulatedNanos.add(nanos);
+        if (aggregate != null) {
+            aggregate.emulated(nanos);
+        }
+    }
+
+    void eepromOperation() {
+        eepromOperations.increment();
+        if (aggregate != null) {
+            aggregate.eepromOperation();
+        }
+    }
+
+    /**
+     * Команда отброшена из-за переполнения очереди.
+     */
+    void droppedCommand() {
+        droppedCommands.increment();
+        if (aggregate != null) {
+            aggregate.droppedCommand();
+        }
+    }
+
+    /**
+     * Учитывает ошибку переполнения.
+     *
+     * @param tier ярус, 1 и выше
+     */
+    void error(int tier) {
+        switch (tier) {
+            case 1 -> errorTier1.increment();
+            case 2 -> errorTier2.increment();
+            default -> errorUpperTiers.increment();
+        }
+        if (aggregate != null) {
+            aggregate.error(tier);
+        }
+    }
+
+    /**
+     * Обновление интерфейса поставлено в очередь потока FX.
+     */
+    public void uiUpdatePosted() {
+        pendingUiUpdates.increment();
+        if (aggregate != null) {
+            aggregate.uiUpdatePosted();
+        }
+    }
+
+    /**
+     * Обновление интерфейса выполнено.
+     */
+    public void uiUpdateApplied() {
+        pendingUiUpdates.decrement();
+        if (aggregate != null) {
+            aggregate.uiUpdateApplied();
+        }
+    }
+
+    public long getInstructions() {
+        return instructions.sum();
+    }
+
+    public long getEmulatedNanos() {
+        return emulatedNanos.sum();
+    }
+
+    public long getEepromOperations() {
+        return eepromOperations.sum();
+    }
+
+    public long getPendingUiUpdates() {
+        return pendingUiUpdates.sum();
+    }
+
+    public long getDroppedCommands() {
+        return droppedCommands.sum();
+    }
+
+    public long getErrorTier1() {
+        return errorTier1.sum();
+    }
+
+    public long getErrorTier2() {
+        return errorTier2.sum();
+    }
+
+    public long getErrorUpperTiers() {
+        return errorUpperTiers.sum();
+    }
+}
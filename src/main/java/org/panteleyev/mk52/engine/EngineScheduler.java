@@ -0,0 +1,316 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+
+import static org.panteleyev.mk52.Mk52Application.logger;
+
+/**
+ * Планировщик дискретных событий, исполняющий много синхронных движков на нескольких потоках.
+ * <p>
+ * Движки с исполняемой программой стоят в очереди по сроку следующего шага. Поток берет движок, срок которого
+ * наступил, выполняет один шаг и возвращает движок в очередь со сроком, сдвинутым на длительность шага с учетом
+ * скорости эмуляции. Клавиши и управление поступают через очередь команд движка и исполняются перед шагом.
+ * <p>
+ * Опоздание шага - время между его сроком и началом исполнения. Шаг, опоздавший больше чем на
+ * {@link #LATE_THRESHOLD} наносекунд, считается задержанным.
+ */
+public final class EngineScheduler implements AutoCloseable {
+    public static final long LATE_THRESHOLD = Duration.ofMillis(10).toNanos();
+
+    private static final class Slot {
+        private final Engine engine;
+        private long deadline;
+        // Стоит в очереди
+        private boolean queued;
+        // Исполняется одним из потоков
+        private boolean active;
+        // Команды поступили во время исполнения
+        private boolean woken;
+
+        private long pacedNanos;
+        private long latenessNanos;
+
+        Slot(Engine engine) {
+            this.engine = engine;
+        }
+
+        // Доля времени, которую движок исполнялся в темпе
+        double rate() {
+            var total = pacedNanos + latenessNanos;
+            return total == 0 ? 1.0 : (double) pacedNanos / total;
+        }
+    }
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Slot> queue = new PriorityQueue<>(Comparator.comparingLong(slot -> slot.deadline));
+    private final Map<Engine, Slot> slots = new IdentityHashMap<>();
+    private final List<Thread> carriers = new ArrayList<>();
+    private boolean closed;
+
+    // Статистика, изменяется под блокировкой
+    private long dispatches;
+    private long lateDispatches;
+    private long totalLatenessNanos;
+    private long maxLatenessNanos;
+
+    /**
+     * @param threads число потоков
+     * @throws IllegalArgumentException если число потоков не положительное
+     */
+    public EngineScheduler(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        }
+        for (int i = 0; i < threads; i++) {
+            var thread = new Thread(this::carry, "Scheduler-" + i);
+            thread.setDaemon(true);
+            carriers.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Передает движок планировщику. После этого команды движка исполняются потоками планировщика.
+     *
+     * @throws IllegalArgumentException если движок асинхронный или уже зарегистрирован
+     */
+    public void register(Engine engine) {
+        if (engine.isAsync()) {
+            throw new IllegalArgumentException("Engine must be synchronous");
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Scheduler is closed");
+            }
+            if (slots.containsKey(engine)) {
+                throw new IllegalArgumentException("Engine is already registered");
+            }
+            var slot = new Slot(engine);
+            slots.put(engine, slot);
+            engine.setScheduler(this);
+            if (engine.automaticMode().get()) {
+                enqueue(slot, System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает движок вызывающему потоку. Ожидает завершения текущего шага, исполняет оставшиеся команды.
+     */
+    public void unregister(Engine engine) {
+        lock.lock();
+        try {
+            var slot = slots.remove(engine);
+            if (slot == null) {
+                return;
+            }
+            queue.remove(slot);
+            while (slot.active) {
+                changed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        engine.processCommands();
+        engine.setScheduler(null);
+    }
+
+    void wake(Engine engine) {
+        lock.lock();
+        try {
+            var slot = slots.get(engine);
+            if (slot == null) {
+                return;
+            }
+            if (slot.active) {
+                slot.woken = true;
+            } else if (!slot.queued) {
+                enqueue(slot, System.nanoTime());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            changed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (var thread : carriers) {
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public int getEngines() {
+        lock.lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getDispatches() {
+        lock.lock();
+        try {
+            return dispatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Число шагов, опоздавших больше чем на {@link #LATE_THRESHOLD}.
+     */
+    public long getLateDispatches() {
+        lock.lock();
+        try {
+            return lateDispatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public double getMeanLatenessNanos() {
+        lock.lock();
+        try {
+            return dispatches == 0 ? 0 : (double) totalLatenessNanos / dispatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getMaxLatenessNanos() {
+        lock.lock();
+        try {
+            return maxLatenessNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Индекс справедливости Джейна по доле времени, которую каждый движок исполнялся в темпе. Равен 1, если
+     * опоздания распределены между движками пропорционально их работе, и стремится к 1/n, если опаздывает
+     * один движок из n.
+     */
+    public double getFairness() {
+        lock.lock();
+        try {
+            var sum = 0.0;
+            var sumOfSquares = 0.0;
+            for (var slot : slots.values()) {
+                var rate = slot.rate();
+                sum += rate;
+                sumOfSquares += rate * rate;
+            }
+            return sumOfSquares == 0 ? 1.0 : sum * sum / (slots.size() * sumOfSquares);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void enqueue(Slot slot, long deadline) {
+        slot.deadline = deadline;
+        slot.queued = true;
+        queue.add(slot);
+        changed.signalAll();
+    }
+
+    private void carry() {
+        lock.lock();
+        try {
+            while (!closed) {
+                var slot = queue.peek();
+                if (slot == null) {
+                    changed.await();
+                    continue;
+                }
+
+                var now = System.nanoTime();
+                var wait = slot.deadline - now;
+                if (wait > 0) {
+                    changed.await(wait, TimeUnit.NANOSECONDS);
+                    continue;
+                }
+
+                queue.poll();
+                slot.queued = false;
+                slot.active = true;
+                slot.woken = false;
+                account(slot, -wait);
+
+                var running = false;
+                var paced = 0L;
+                lock.unlock();
+                try {
+                    var engine = slot.engine;
+                    var emulated = engine.getEmulatedTime();
+                    running = engine.advance();
+                    paced = engine.getSpeedMode().scale(engine.getEmulatedTime().minus(emulated)).toNanos();
+                } catch (RuntimeException ex) {
+                    logger().log(Level.SEVERE, "Ошибка исполнения", ex);
+                } finally {
+                    lock.lock();
+                    slot.active = false;
+                }
+
+                slot.pacedNanos += paced;
+                if (slots.get(slot.engine) == slot) {
+                    if (running) {
+                        // Срок отсчитывается от предыдущего, после простоя - от текущего времени
+                        var base = now - slot.deadline > Pacer.MAX_LAG ? now : slot.deadline;
+                        enqueue(slot, base + paced);
+                    } else if (slot.woken) {
+                        enqueue(slot, System.nanoTime());
+                    }
+                }
+                changed.signalAll();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void account(Slot slot, long lateness) {
+        dispatches++;
+        totalLatenessNanos += lateness;
+        maxLatenessNanos = Math.max(maxLatenessNanos, lateness);
+        slot.latenessNanos += lateness;
+        if (lateness > LATE_THRESHOLD) {
+            lateDispatches++;
+        }
+    }
+}
@@ -6,7 +6,7 @@ package org.panteleyev.mk52.engine;
 
 import org.panteleyev.mk52.program.OpCode;
 
-import java.util.Map;
+import java.util.Arrays;
 
 public enum KeyboardButton {
     D0(0x80, OpCode.ZERO, OpCode.POWER_OF_TEN, OpCode.NOOP),
@@ -48,45 +48,27 @@ public enum KeyboardButton {
     private final OpCode fOpCode;
     private final OpCode kOpCode;
 
-    public static final Map<KeyboardButton, Integer> BUTTON_TO_REGISTER = Map.ofEntries(
-            Map.entry(D0, 0x0),
-            Map.entry(D1, 0x1),
-            Map.entry(D2, 0x2),
-            Map.entry(D3, 0x3),
-            Map.entry(D4, 0x4),
-            Map.entry(D5, 0x5),
-            Map.entry(D6, 0x6),
-            Map.entry(D7, 0x7),
-            Map.entry(D8, 0x8),
-            Map.entry(D9, 0x9),
-            Map.entry(DOT, 0xA),
-            Map.entry(SIGN, 0xB),
-            Map.entry(EE, 0xC),
-            Map.entry(CLEAR_X, 0xD),
-            Map.entry(PUSH, 0xE)
-    );
+    // Значения клавиш при вводе номера регистра и цифр адреса, -1 если клавиша значения не имеет
+    private static final int[] REGISTERS = new int[values().length];
+    private static final int[] ADDRESS_DIGITS = new int[values().length];
 
-    public static final Map<KeyboardButton, Integer> BUTTON_TO_ADDRESS = Map.ofEntries(
-            Map.entry(D0, 0x0),
-            Map.entry(D1, 0x1),
-            Map.entry(D2, 0x2),
-            Map.entry(D3, 0x3),
-            Map.entry(D4, 0x4),
-            Map.entry(D5, 0x5),
-            Map.entry(D6, 0x6),
-            Map.entry(D7, 0x7),
-            Map.entry(D8, 0x8),
-            Map.entry(D9, 0x9),
-            Map.entry(DOT, 0xA),
-            Map.entry(SIGN, 0xB),
-            Map.entry(EE, 0xC),
-            Map.entry(CLEAR_X, 0xD),
-            Map.entry(PUSH, 0xE),
-            Map.entry(PLUS, 0x0),
-            Map.entry(MINUS, 0x1),
-            Map.entry(MULTIPLICATION, 0x2),
-            Map.entry(DIVISION, 0x3)
-    );
+    static {
+        Arrays.fill(REGISTERS, -1);
+        Arrays.fill(ADDRESS_DIGITS, -1);
+
+        var digits = new KeyboardButton[]{
+                D0, D1, D2, D3, D4, D5, D6, D7, D8, D9, DOT, SIGN, EE, CLEAR_X, PUSH
+        };
+        for (int i = 0; i < digits.length; i++) {
+            REGISTERS[digits[i].ordinal()] = i;
+            ADDRESS_DIGITS[digits[i].ordinal()] = i;
+        }
+
+        ADDRESS_DIGITS[PLUS.ordinal()] = 0x0;
+        ADDRESS_DIGITS[MINUS.ordinal()] = 0x1;
+        ADDRESS_DIGITS[MULTIPLICATION.ordinal()] = 0x2;
+        ADDRESS_DIGITS[DIVISION.ordinal()] = 0x3;
+    }
 
     KeyboardButton(int keyCode, OpCode opCode, OpCode fOpCode, OpCode kOpCode) {
         this.keyCode = keyCode;
@@ -110,4 +92,18 @@ public enum KeyboardButton {
     public OpCode getkOpCode() {
         return kOpCode;
     }
+
+    /**
+     * Возвращает номер регистра, который задает клавиша, или -1.
+     */
+    public int register() {
+        return REGISTERS[ordinal()];
+    }
+
+    /**
+     * Возвращает цифру адреса, которую задает клавиша, или -1.
+     */
+    public int addressDigit() {
+        return ADDRESS_DIGITS[ordinal()];
+    }
 }
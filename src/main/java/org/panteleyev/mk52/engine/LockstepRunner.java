@@ -0,0 +1,785 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.panteleyev.mk52.math.Mk52Math;
+import org.panteleyev.mk52.program.Address;
+import org.panteleyev.mk52.program.OpCode;
+
+import java.util.Arrays;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+import static org.panteleyev.mk52.engine.Constants.CALL_STACK_SIZE;
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+import static org.panteleyev.mk52.engine.Constants.REGISTERS_SIZE;
+
+/**
+ * Исполнение одной программы на множестве наборов исходных данных (дорожек).
+ * <p>
+ * Состояние дорожек хранится в массивах примитивов. На каждом шаге выбирается группа дорожек с одинаковым
+ * счетчиком команд, команда декодируется один раз и выполняется для всей группы. Если после условного перехода
+ * дорожки расходятся, группа разделяется и собирается снова, когда счетчики команд совпадут.
+ * <p>
+ * Дорожки, встретившие ошибку или команду, не реализованную в групповом режиме (ввод порядка, косвенная адресация,
+ * случайное число), дорабатывают программу на обычном {@link Processor}.
+ */
+public final class LockstepRunner {
+    public enum LaneStatus {
+        RUNNING,
+        STOPPED,
+        ERROR,
+        STEP_LIMIT
+    }
+
+    private static final OpCode[] OP_CODES = new OpCode[256];
+
+    static {
+        for (var opCode : OpCode.values()) {
+            if (opCode.code() >= 0) {
+                OP_CODES[opCode.code()] = opCode;
+            }
+        }
+    }
+
+    private final int[] program = new int[PROGRAM_MEMORY_SIZE];
+    private final int lanes;
+
+    private TrigonometricMode trigonometricMode = TrigonometricMode.RADIAN;
+
+    // Стек
+    private final long[] x;
+    private final long[] y;
+    private final long[] z;
+    private final long[] t;
+    private final long[] x1;
+    // Регистр индикации
+    private final long[] indicator;
+    private final int[] dots;
+    // Регистры, registers[номер регистра][дорожка]
+    private final long[][] registers = new long[REGISTERS_SIZE][];
+    // Счетчик команд и стек возвратов
+    private final Address[] pc;
+    private final Address[][] callStack = new Address[CALL_STACK_SIZE][];
+    // Состояние ввода числа
+    private final OpCode[] lastOpCode;
+    private final int[] currentDigit;
+    private final int[] dot;
+    private final boolean[] hasDot;
+    private final long[] xBuffer;
+    // Ввод порядка, начатый на обычном процессоре до остановки по ограничению числа шагов
+    private final int[] xExponent;
+    private final boolean[] enteringExponent;
+
+    private final LaneStatus[] status;
+    private final long[] steps;
+    // Дорожки, завершенные на обычном процессоре
+    private final boolean[] scalar;
+    private int scalarLanes = 0;
+
+    // Текущая группа дорожек
+    private final int[] group;
+    private int groupSize = 0;
+
+    public LockstepRunner(int[] program, int lanes) {
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Number of lanes must be positive");
+        }
+
+        System.arraycopy(program, 0, this.program, 0, Math.min(program.length, PROGRAM_MEMORY_SIZE));
+        this.lanes = lanes;
+
+        x = new long[lanes];
+        y = new long[lanes];
+        z = new long[lanes];
+        t = new long[lanes];
+        x1 = new long[lanes];
+        indicator = new long[lanes];
+        dots = new int[lanes];
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            registers[r] = new long[lanes];
+        }
+        pc = new Address[lanes];
+        for (int i = 0; i < CALL_STACK_SIZE; i++) {
+            callStack[i] = new Address[lanes];
+        }
+        lastOpCode = new OpCode[lanes];
+        currentDigit = new int[lanes];
+        dot = new int[lanes];
+        hasDot = new boolean[lanes];
+        xBuffer = new long[lanes];
+        xExponent = new int[lanes];
+        enteringExponent = new boolean[lanes];
+        status = new LaneStatus[lanes];
+        steps = new long[lanes];
+        scalar = new boolean[lanes];
+        group = new int[lanes];
+
+        reset();
+    }
+
+    public void reset() {
+        var zero = Register.xToIndicator(0);
+
+        Arrays.fill(x, 0);
+        Arrays.fill(y, 0);
+        Arrays.fill(z, 0);
+        Arrays.fill(t, 0);
+        Arrays.fill(x1, 0);
+        Arrays.fill(indicator, zero.indicator());
+        Arrays.fill(dots, zero.dots());
+        for (var r : registers) {
+            Arrays.fill(r, 0);
+        }
+        Arrays.fill(pc, Address.ZERO);
+        for (var c : callStack) {
+            Arrays.fill(c, Address.ZERO);
+        }
+        Arrays.fill(lastOpCode, null);
+        Arrays.fill(currentDigit, Stack.InputState.INITIAL.currentDigit());
+        Arrays.fill(dot, Stack.InputState.INITIAL.dot());
+        Arrays.fill(hasDot, false);
+        Arrays.fill(xBuffer, 0);
+        Arrays.fill(xExponent, 0);
+        Arrays.fill(enteringExponent, false);
+        Arrays.fill(status, LaneStatus.RUNNING);
+        Arrays.fill(steps, 0);
+        Arrays.fill(scalar, false);
+        scalarLanes = 0;
+    }
+
+    public int lanes() {
+        return lanes;
+    }
+
+    public void setTrigonometricMode(TrigonometricMode trigonometricMode) {
+        this.trigonometricMode = trigonometricMode;
+    }
+
+    public void setX(int lane, long value) {
+        x[lane] = Register.normalize(value);
+        var ir = Register.xToIndicator(value);
+        indicator[lane] = ir.indicator();
+        dots[lane] = ir.dots();
+    }
+
+    public void setY(int lane, long value) {
+        y[lane] = value;
+    }
+
+    public void setZ(int lane, long value) {
+        z[lane] = value;
+    }
+
+    public void setT(int lane, long value) {
+        t[lane] = value;
+    }
+
+    public void setRegister(int lane, int register, long value) {
+        registers[register][lane] = value;
+    }
+
+    public void setProgramCounter(Address address) {
+        Arrays.fill(pc, address);
+    }
+
+    public long x(int lane) {
+        return x[lane];
+    }
+
+    public long y(int lane) {
+        return y[lane];
+    }
+
+    public long z(int lane) {
+        return z[lane];
+    }
+
+    public long t(int lane) {
+        return t[lane];
+    }
+
+    public long x1(int lane) {
+        return x1[lane];
+    }
+
+    public Address[] callStack(int lane) {
+        var result = new Address[CALL_STACK_SIZE];
+        for (int i = 0; i < CALL_STACK_SIZE; i++) {
+            result[i] = callStack[i][lane];
+        }
+        return result;
+    }
+
+    public long register(int lane, int register) {
+        return registers[register][lane];
+    }
+
+    public Address programCounter(int lane) {
+        return pc[lane];
+    }
+
+    public IR display(int lane) {
+        return new IR(indicator[lane], dots[lane]);
+    }
+
+    public LaneStatus status(int lane) {
+        return status[lane];
+    }
+
+    public long steps(int lane) {
+        return steps[lane];
+    }
+
+    /**
+     * Возвращает число переходов дорожек на обычный процессор.
+     */
+    public int scalarLanes() {
+        return scalarLanes;
+    }
+
+    /**
+     * Исполняет программу на всех дорожках до остановки.
+     *
+     * @param maxSteps максимальное число шагов для каждой дорожки
+     */
+    public void run(long maxSteps) {
+        while (selectGroup(maxSteps)) {
+            executeGroup(pc[group[0]], maxSteps);
+        }
+    }
+
+    /**
+     * Продолжает исполнение дорожек, остановленных по ограничению числа шагов.
+     */
+    public void resume() {
+        for (int i = 0; i < lanes; i++) {
+            if (status[i] == LaneStatus.STEP_LIMIT) {
+                status[i] = LaneStatus.RUNNING;
+                scalar[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Выбирает дорожки с наименьшим адресом, чтобы отставшие дорожки догоняли остальные.
+     *
+     * @return false если исполняемых дорожек не осталось
+     */
+    private boolean selectGroup(long maxSteps) {
+        Address selected = null;
+        int selectedAddress = Integer.MAX_VALUE;
+        groupSize = 0;
+
+        for (int i = 0; i < lanes; i++) {
+            if (status[i] != LaneStatus.RUNNING) {
+                continue;
+            }
+            if (steps[i] >= maxSteps) {
+                status[i] = LaneStatus.STEP_LIMIT;
+                continue;
+            }
+
+            var address = pc[i];
+            if (address.equals(selected)) {
+                group[groupSize++] = i;
+            } else {
+                var effectiveAddress = address.getEffectiveAddress();
+                if (effectiveAddress < selectedAddress) {
+                    selected = address;
+                    selectedAddress = effectiveAddress;
+                    groupSize = 0;
+                    group[groupSize++] = i;
+                }
+            }
+        }
+        return groupSize > 0;
+    }
+
+    private void executeGroup(Address address, long maxSteps) {
+        // Ввод порядка продолжается на обычном процессоре
+        var size = 0;
+        for (int k = 0; k < groupSize; k++) {
+            var i = group[k];
+            if (enteringExponent[i]) {
+                runScalar(i, maxSteps);
+            } else {
+                group[size++] = i;
+            }
+        }
+        groupSize = size;
+        if (groupSize == 0) {
+            return;
+        }
+
+        var opCode = OP_CODES[program[address.getEffectiveAddress()]];
+        if (opCode == null || !isSupported(opCode)) {
+            for (int k = 0; k < groupSize; k++) {
+                runScalar(group[k], maxSteps);
+            }
+            return;
+        }
+
+        var next = address.increment();
+        Address jump = null;
+        if (opCode.hasAddress()) {
+            jump = Address.of(program[next.getEffectiveAddress()]);
+            next = next.increment();
+        }
+
+        switch (opCode) {
+            case ZERO, ONE, TWO, THREE, FOUR, FIVE, SIX, SEVEN, EIGHT, NINE -> {
+                for (int k = 0; k < groupSize; k++) {
+                    addCharacter(group[k], opCode.code());
+                }
+            }
+            case DOT -> {
+                for (int k = 0; k < groupSize; k++) {
+                    addCharacter(group[k], -1);
+                }
+            }
+            case PUSH -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    if (fallbackIfOutOfRange(i, x[i], maxSteps)) {
+                        continue;
+                    }
+                    push(i);
+                    updateIndicator(i);
+                }
+            }
+            case SWAP -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    var tempX = Register.normalize(x[i]);
+                    x[i] = y[i];
+                    y[i] = tempX;
+                    x1[i] = tempX;
+                }
+            }
+            case ROTATE -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    var tempX = Register.normalize(x[i]);
+                    x[i] = y[i];
+                    y[i] = z[i];
+                    z[i] = t[i];
+                    t[i] = tempX;
+                    x1[i] = tempX;
+                }
+            }
+            case RESTORE_X -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    if (fallbackIfOutOfRange(i, x1[i], maxSteps)) {
+                        continue;
+                    }
+                    t[i] = z[i];
+                    z[i] = y[i];
+                    y[i] = x[i];
+                    x[i] = x1[i];
+                    updateIndicator(i);
+                }
+            }
+            case CLEAR_X -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    x[i] = 0;
+                    updateIndicator(i);
+                }
+            }
+            case PI -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    push(i);
+                    x1[i] = x[i];
+                    x[i] = Register.PI;
+                }
+            }
+            case GOTO -> next = jump;
+            case GOSUB -> {
+                for (int k = 0; k < groupSize; k++) {
+                    pushCallStack(group[k], next.decrement());
+                }
+                next = jump;
+            }
+            case RETURN -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    if (fallbackIfOutOfRange(i, x[i], maxSteps)) {
+                        continue;
+                    }
+                    updateIndicator(i);
+                    pc[i] = popCallStack(i).increment();
+                    complete(i, opCode);
+                }
+                return;
+            }
+            case STOP_RUN -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    if (fallbackIfOutOfRange(i, x[i], maxSteps)) {
+                        continue;
+                    }
+                    updateIndicator(i);
+                    status[i] = LaneStatus.STOPPED;
+                }
+            }
+            case X_LT_0, X_EQ_0, X_GE_0, X_NE_0 -> {
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    pc[i] = checkCondition(opCode, x[i]) ? next : jump;
+                    complete(i, opCode);
+                }
+                return;
+            }
+            case L0, L1, L2, L3 -> {
+                var index = opCode.ordinal() - OpCode.L0.ordinal();
+                var counter = registers[index];
+                for (int k = 0; k < groupSize; k++) {
+                    var i = group[k];
+                    pc[i] = loop(counter, i) ? jump : next;
+                    complete(i, opCode);
+                }
+                return;
+            }
+            default -> {
+                if (opCode.isStore()) {
+                    var target = registers[opCode.getRegister()];
+                    for (int k = 0; k < groupSize; k++) {
+                        var i = group[k];
+                        x[i] = Register.normalize(x[i]);
+                        target[i] = x[i];
+                    }
+                } else if (opCode.isLoad()) {
+                    var source = registers[opCode.getRegister()];
+                    for (int k = 0; k < groupSize; k++) {
+                        var i = group[k];
+                        var value = source[i];
+                        if (fallbackIfOutOfRange(i, value, maxSteps)) {
+                            continue;
+                        }
+                        push(i);
+                        x[i] = Register.normalize(value);
+                        var ir = Register.xToIndicator(value);
+                        indicator[i] = ir.indicator();
+                        dots[i] = ir.dots();
+                    }
+                } else if (binaryOperator(opCode) instanceof LongBinaryOperator operator) {
+                    for (int k = 0; k < groupSize; k++) {
+                        var i = group[k];
+                        long result;
+                        try {
+                            result = operator.applyAsLong(x[i], y[i]);
+                        } catch (ArithmeticException ex) {
+                            runScalar(i, maxSteps);
+                            continue;
+                        }
+                        x1[i] = Register.normalize(x[i]);
+                        x[i] = Register.normalize(result);
+                        y[i] = z[i];
+                        z[i] = t[i];
+                    }
+                } else if (binaryKeepYOperator(opCode) instanceof LongBinaryOperator operator) {
+                    for (int k = 0; k < groupSize; k++) {
+                        var i = group[k];
+                        long result;
+                        try {
+                            result = operator.applyAsLong(x[i], y[i]);
+                        } catch (ArithmeticException ex) {
+                            runScalar(i, maxSteps);
+                            continue;
+                        }
+                        x1[i] = x[i];
+                        x[i] = Register.normalize(result);
+                    }
+                } else if (unaryOperator(opCode) instanceof LongUnaryOperator operator) {
+                    for (int k = 0; k < groupSize; k++) {
+                        var i = group[k];
+                        long result;
+                        try {
+                            result = operator.applyAsLong(x[i]);
+                        } catch (ArithmeticException ex) {
+                            runScalar(i, maxSteps);
+                            continue;
+                        }
+                        x1[i] = Register.normalize(x[i]);
+                        x[i] = Register.normalize(result);
+                    }
+                }
+            }
+        }
+
+        for (int k = 0; k < groupSize; k++) {
+            var i = group[k];
+            if (!scalar[i]) {
+                pc[i] = next;
+                complete(i, opCode);
+            }
+        }
+    }
+
+    private void complete(int lane, OpCode opCode) {
+        lastOpCode[lane] = opCode;
+        steps[lane]++;
+    }
+
+    private boolean isSupported(OpCode opCode) {
+        return switch (opCode) {
+            case ZERO, ONE, TWO, THREE, FOUR, FIVE, SIX, SEVEN, EIGHT, NINE, DOT,
+                 PUSH, SWAP, ROTATE, RESTORE_X, CLEAR_X, PI,
+                 GOTO, GOSUB, RETURN, STOP_RUN,
+                 X_LT_0, X_EQ_0, X_GE_0, X_NE_0,
+                 L0, L1, L2, L3 -> true;
+            default -> opCode.isStore() || opCode.isLoad()
+                    || binaryOperator(opCode) != null
+                    || binaryKeepYOperator(opCode) != null
+                    || unaryOperator(opCode) != null;
+        };
+    }
+
+    private static LongBinaryOperator binaryOperator(OpCode opCode) {
+        return switch (opCode) {
+            case ADD -> Mk52Math::add;
+            case SUBTRACT -> Mk52Math::subtract;
+            case MULTIPLY -> Mk52Math::multiply;
+            case DIVIDE -> Mk52Math::divide;
+            default -> null;
+        };
+    }
+
+    private static LongBinaryOperator binaryKeepYOperator(OpCode opCode) {
+        return switch (opCode) {
+            case AND -> Mk52Math::and;
+            case OR -> Mk52Math::or;
+            case XOR -> Mk52Math::xor;
+            case POWER_OF_X -> Mk52Math::pow;
+            case MAX -> Mk52Math::max;
+            default -> null;
+        };
+    }
+
+    private LongUnaryOperator unaryOperator(OpCode opCode) {
+        var mode = trigonometricMode;
+        return switch (opCode) {
+            // Ввод порядка в групповом режиме не поддерживается, поэтому /-/ всегда меняет знак числа
+            case SIGN -> Mk52Math::negate;
+            case INVERSION -> Mk52Math::inversion;
+            case SQRT -> Mk52Math::sqrt;
+            case SQR -> Mk52Math::sqr;
+            case POWER_OF_TEN -> Mk52Math::pow10;
+            case LG -> Mk52Math::lg;
+            case LN -> Mk52Math::ln;
+            case EXP -> Mk52Math::exp;
+            case ONE_BY_X -> Mk52Math::oneByX;
+            case ABS -> Mk52Math::abs;
+            case INTEGER -> Mk52Math::integer;
+            case FRACTIONAL -> Mk52Math::fractional;
+            case SIGNUM -> Mk52Math::signum;
+            case SIN -> v -> Mk52Math.sin(v, mode);
+            case ASIN -> v -> Mk52Math.asin(v, mode);
+            case COS -> v -> Mk52Math.cos(v, mode);
+            case ACOS -> v -> Mk52Math.acos(v, mode);
+            case TAN -> v -> Mk52Math.tan(v, mode);
+            case ATAN -> v -> Mk52Math.atan(v, mode);
+            case HH_MM_TO_DEG -> Mk52Math::hoursMinutesToDegrees;
+            case HH_MM_SS_TO_DEG -> Mk52Math::hoursMinutesSecondsToDegrees;
+            case DEG_TO_HH_MM -> Mk52Math::degreesToHoursMinutes;
+            case DEG_TO_HH_MM_SS -> Mk52Math::degreesToHoursMinutesSeconds;
+            case NOOP, K_1, K_2 -> Mk52Math::noop;
+            default -> null;
+        };
+    }
+
+    private static boolean checkCondition(OpCode opCode, long value) {
+        return switch (opCode) {
+            case X_LT_0 -> Register.isNegative(value);
+            case X_EQ_0 -> Register.isZero(value);
+            case X_GE_0 -> Register.isZero(value) || !Register.isNegative(value);
+            default -> !Register.isZero(value);
+        };
+    }
+
+    /**
+     * Повторяет {@link Registers#modifyAndGetLoopValue(int)} для одной дорожки.
+     *
+     * @return true если нужно выполнить переход
+     */
+    private static boolean loop(long[] counter, int lane) {
+        var value = Register.convertForIndirect(counter[lane]);
+        value = Register.convertForIndirect(value);
+        if (Register.getIndirectValue(value) == 1) {
+            return false;
+        }
+        value = Register.decrementMantissa(value);
+        counter[lane] = value;
+        return Register.getIndirectValue(value) > 0;
+    }
+
+    private void push(int lane) {
+        t[lane] = z[lane];
+        z[lane] = y[lane];
+        y[lane] = Register.normalize(x[lane]);
+        x[lane] = Register.normalize(x[lane]);
+    }
+
+    private void pushCallStack(int lane, Address address) {
+        for (int i = CALL_STACK_SIZE - 1; i > 0; i--) {
+            callStack[i][lane] = callStack[i - 1][lane];
+        }
+        callStack[0][lane] = address;
+    }
+
+    private Address popCallStack(int lane) {
+        var address = callStack[0][lane];
+        for (int i = 0; i < CALL_STACK_SIZE - 1; i++) {
+            callStack[i][lane] = callStack[i + 1][lane];
+        }
+        callStack[CALL_STACK_SIZE - 1][lane] = CallStack.convertLastElement(callStack[CALL_STACK_SIZE - 1][lane]);
+        return address;
+    }
+
+    /**
+     * Повторяет {@link Stack#addCharacter(char)} для одной дорожки.
+     *
+     * @param digit цифра или -1 для точки
+     */
+    private void addCharacter(int lane, int digit) {
+        var last = lastOpCode[lane];
+        if (!OpCode.isDigit(last) && last != OpCode.DOT) {
+            if (last != OpCode.PUSH && last != OpCode.CLEAR_X) {
+                push(lane);
+            }
+            xBuffer[lane] = 0;
+            currentDigit[lane] = 7;
+            dot[lane] = 7;
+            hasDot[lane] = false;
+        }
+
+        if (currentDigit[lane] < 0) {
+            return;
+        }
+
+        var ri = indicator[lane];
+        if (digit < 0) {
+            if (hasDot[lane] || currentDigit[lane] == 7) {
+                return;
+            }
+            hasDot[lane] = true;
+        } else {
+            if (currentDigit[lane] == 7) {
+                ri = IR.EMPTY.indicator();
+            }
+
+            ri = Register.setTetrad(ri, currentDigit[lane], digit);
+            xBuffer[lane] = Register.setTetrad(xBuffer[lane], currentDigit[lane], digit);
+            if (!hasDot[lane] && currentDigit[lane] != 7) {
+                dot[lane]--;
+            }
+            xBuffer[lane] = Register.setExponent(xBuffer[lane], 7 - dot[lane]);
+            currentDigit[lane]--;
+        }
+
+        x[lane] = Register.normalize(xBuffer[lane]);
+        indicator[lane] = ri;
+        dots[lane] = 1 << dot[lane];
+    }
+
+    private void updateIndicator(int lane) {
+        x[lane] = Register.normalize(x[lane]);
+        var ir = Register.xToIndicator(x[lane]);
+        indicator[lane] = ir.indicator();
+        dots[lane] = ir.dots();
+    }
+
+    /**
+     * Если значение приведет к ошибке переполнения, дорожка дорабатывается на обычном процессоре.
+     */
+    private boolean fallbackIfOutOfRange(int lane, long value, long maxSteps) {
+        var exponent = Register.getExponent(Register.normalize(value));
+        if (exponent >= -99 && exponent <= 99) {
+            return false;
+        }
+        runScalar(lane, maxSteps);
+        return true;
+    }
+
+    private void runScalar(int lane, long maxSteps) {
+        scalar[lane] = true;
+        scalarLanes++;
+
+        var engine = new Engine(false, _ -> {});
+        engine.loadMemoryBytes(program);
+        engine.setTrigonometricMode(trigonometricMode);
+
+        engine.stack().restore(
+                new StackSnapshot(x[lane], y[lane], z[lane], t[lane], x1[lane],
+                        new IR(indicator[lane], dots[lane])),
+                new Stack.InputState(xExponent[lane], currentDigit[lane], dot[lane], hasDot[lane], xBuffer[lane])
+        );
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            engine.registers().store(Address.of(r), registers[r][lane]);
+        }
+        var calls = new Address[CALL_STACK_SIZE];
+        for (int i = 0; i < CALL_STACK_SIZE; i++) {
+            calls[i] = callStack[i][lane];
+        }
+        engine.callStack().restore(calls);
+        engine.programCounter().set(pc[lane]);
+        engine.getLastExecutedOpCode().set(lastOpCode[lane]);
+        engine.enteringExponent().set(enteringExponent[lane]);
+        engine.automaticMode().set(true);
+
+        var failed = false;
+        try {
+            steps[lane] += engine.processor().run(maxSteps - steps[lane]);
+        } catch (ArithmeticException ex) {
+            failed = true;
+        }
+
+        var snapshot = engine.stack().getSnapshot();
+        x[lane] = snapshot.x();
+        y[lane] = snapshot.y();
+        z[lane] = snapshot.z();
+        t[lane] = snapshot.t();
+        x1[lane] = snapshot.x1();
+        indicator[lane] = snapshot.x2().indicator();
+        dots[lane] = snapshot.x2().dots();
+
+        var input = engine.stack().getInputState();
+        xExponent[lane] = input.xExponent();
+        currentDigit[lane] = input.currentDigit();
+        dot[lane] = input.dot();
+        hasDot[lane] = input.hasDot();
+        xBuffer[lane] = input.xBuffer();
+        enteringExponent[lane] = engine.enteringExponent().get();
+
+        var snapshotRegisters = engine.registers().getSnapshot();
+        for (int r = 0; r < REGISTERS_SIZE; r++) {
+            registers[r][lane] = snapshotRegisters[r];
+        }
+        var snapshotCalls = engine.callStack().getSnapshot().stack();
+        for (int i = 0; i < CALL_STACK_SIZE; i++) {
+            callStack[i][lane] = snapshotCalls[i];
+        }
+        pc[lane] = engine.getProgramCounter();
+        lastOpCode[lane] = engine.getLastExecutedOpCode().get();
+
+        // Индикатор проверяется только после остановки, в автоматическом режиме он не обновляется
+        if (failed) {
+            status[lane] = LaneStatus.ERROR;
+        } else if (engine.automaticMode().get()) {
+            status[lane] = LaneStatus.STEP_LIMIT;
+        } else if (isError(snapshot.x2())) {
+            status[lane] = LaneStatus.ERROR;
+        } else {
+            status[lane] = LaneStatus.STOPPED;
+        }
+    }
+
+    private static boolean isError(IR ir) {
+        return ir.equals(IR.ERROR) || ir.equals(IR.ERROR_2) || ir.equals(IR.EMPTY);
+    }
+}
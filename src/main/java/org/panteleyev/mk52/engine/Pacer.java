@@ -0,0 +1,60 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Темп эмуляции в реальном времени.
+ * <p>
+ * Длительности команд складываются в абсолютный срок, ожидание идет до этого срока. Поздние пробуждения
+ * компенсируются следующими ожиданиями и не накапливаются. Экземпляр не потокобезопасен.
+ */
+final class Pacer {
+    // Если отставание больше, калькулятор простаивал, темп начинается заново
+    static final long MAX_LAG = Duration.ofMillis(100).toNanos();
+
+    private final LongSupplier clock;
+    private long deadline;
+    private boolean started;
+
+    Pacer() {
+        this(System::nanoTime);
+    }
+
+    Pacer(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Сдвигает срок на длительность без ожидания.
+     */
+    void advance(Duration duration) {
+        var now = clock.getAsLong();
+        if (!started || now - deadline > MAX_LAG) {
+            deadline = now;
+            started = true;
+        }
+        deadline += duration.toNanos();
+    }
+
+    /**
+     * Ожидает наступления срока.
+     */
+    void await() {
+        for (var remaining = deadline - clock.getAsLong(); remaining > 0; remaining = deadline - clock.getAsLong()) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+        }
+    }
+
+    long getDeadline() {
+        return deadline;
+    }
+}
@@ -4,6 +4,8 @@
  */
 package org.panteleyev.mk52.engine;
 
+import org.panteleyev.mk52.jfr.InstructionEvent;
+import org.panteleyev.mk52.jfr.RunEvent;
 import org.panteleyev.mk52.math.Mk52Math;
 import org.panteleyev.mk52.program.Address;
 import org.panteleyev.mk52.program.Instruction;
@@ -16,7 +18,7 @@ import java.time.Duration;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BinaryOperator;
-import java.util.function.Predicate;
+import java.util.function.LongPredicate;
 import java.util.function.UnaryOperator;
 
 import static org.panteleyev.mk52.Mk52Application.logger;
@@ -24,10 +26,10 @@ import static org.panteleyev.mk52.engine.Constants.STORE_CODE_DURATION;
 import static org.panteleyev.mk52.engine.Constants.TURN_OFF_DISPLAY_DELAY;
 
 final class Processor {
-    private static final Predicate<Long> LT_0 = Register::isNegative;
-    private static final Predicate<Long> EQ_0 = Register::isZero;
-    private static final Predicate<Long> GE_0 = x -> Register.isZero(x) || !Register.isNegative(x);
-    private static final Predicate<Long> NE_0 = x -> !Register.isZero(x);
+    static final LongPredicate LT_0 = Register::isNegative;
+    static final LongPredicate EQ_0 = Register::isZero;
+    static final LongPredicate GE_0 = x -> Register.isZero(x) || !Register.isNegative(x);
+    static final LongPredicate NE_0 = x -> !Register.isZero(x);
 
     private final Engine engine;
     private final Stack stack;
@@ -38,12 +40,22 @@ final class Processor {
     private final boolean async;
     private final AtomicBoolean automaticMode;
     private final StepExecutionCallback stepCallback;
+    private final EngineMetrics metrics;
+    private final Breakpoints breakpoints;
 
     private final AtomicReference<OpCode> lastExecutedOpCode;
 
     private final AtomicReference<TrigonometricMode> trigonometricMode =
             new AtomicReference<>(TrigonometricMode.RADIAN);
 
+    // Счетчик для выборки событий InstructionEvent
+    private long instructionSample;
+    // Исполнение без задержек и без обновления индикатора на каждом шаге
+    private boolean unthrottled;
+    private final Pacer pacer = new Pacer();
+    // Последний запуск остановлен точкой останова
+    private boolean breakpointStop;
+
     public Processor(
             Engine engine,
             boolean async,
@@ -59,12 +71,18 @@ final class Processor {
         this.automaticMode = engine.automaticMode();
         this.lastExecutedOpCode = lastExecutedOpCode;
         this.stepCallback = stepCallback;
+        this.metrics = engine.metrics();
+        this.breakpoints = engine.breakpoints();
     }
 
     public void setTrigonometricMode(TrigonometricMode trigonometricMode) {
         this.trigonometricMode.set(trigonometricMode);
     }
 
+    public TrigonometricMode getTrigonometricMode() {
+        return trigonometricMode.get();
+    }
+
     public void reset() {
         engine.programCounter().set(Address.ZERO);
         lastExecutedOpCode.set(null);
@@ -74,21 +92,149 @@ final class Processor {
     }
 
     public void step() {
+        var event = new InstructionEvent();
+        var pc = event.isEnabled() ? engine.programCounter().get() : null;
+        event.begin();
+
         var instruction = memory.fetchInstruction(engine.programCounter());
         execute(instruction);
+
+        if (pc != null && ++instructionSample % InstructionEvent.SAMPLE_INTERVAL == 0) {
+            event.pc = pc.getEffectiveAddress();
+            event.opCode = instruction.opCode().name();
+            event.emulatedDuration = instruction.opCode().duration().toNanos();
+            event.commit();
+        }
     }
 
     public void run() {
-        while (automaticMode.get()) {
+        run(Long.MAX_VALUE);
+    }
+
+    /**
+     * Исполняет программу, пока она не остановится или не будет выполнено заданное число шагов.
+     *
+     * @param maxSteps максимальное число шагов
+     * @return число выполненных шагов
+     */
+    public long run(long maxSteps) {
+        var event = new RunEvent();
+        var startTime = event.isEnabled() ? engine.getEmulatedTime().toNanos() : 0;
+        event.begin();
+
+        breakpointStop = false;
+        long steps = 0;
+        while (automaticMode.get() && steps < maxSteps) {
             step();
+            steps++;
+            checkBreakpoints();
+            engine.processCommands();
+        }
+
+        if (event.shouldCommit()) {
+            event.instructions = steps;
+            event.emulatedTime = engine.getEmulatedTime().toNanos() - startTime;
+            var display = engine.getCurrentDisplay();
+            if (display == IR.ERROR || display == IR.ERROR_2) {
+                event.outcome = RunEvent.OUTCOME_ERROR;
+            } else if (automaticMode.get()) {
+                event.outcome = RunEvent.OUTCOME_LIMIT;
+            } else {
+                event.outcome = RunEvent.OUTCOME_STOP;
+            }
+            event.commit();
         }
+        return steps;
     }
 
-    void sleep(Duration duration) {
+    /**
+     * Исполняет программу на полной скорости, пока счетчик команд не станет равен адресу, вложенность вызовов
+     * не опустится до заданной или программа не остановится. Индикатор и регистры обновляются один раз в конце.
+     * Первый шаг выполняется всегда.
+     *
+     * @param target    адрес остановки или -1
+     * @param stopDepth вложенность вызовов относительно начальной, на которой исполнение останавливается
+     * @return число выполненных шагов
+     */
+    long runUnthrottled(int target, int stopDepth) {
+        breakpointStop = false;
+        unthrottled = true;
+        long steps = 0;
+        var depth = 0;
         try {
-            Thread.sleep(duration);
-        } catch (Exception ex) {
-            //
+            while (automaticMode.get()) {
+                step();
+                steps++;
+
+                var opCode = lastExecutedOpCode.get();
+                if (opCode == OpCode.GOSUB || opCode.isIndirectGosub()) {
+                    depth++;
+                } else if (opCode == OpCode.RETURN) {
+                    depth--;
+                }
+
+                if (checkBreakpoints()) {
+                    break;
+                }
+                if (depth <= stopDepth || engine.programCounter().get().getEffectiveAddress() == target) {
+                    // Индикатор показывает X, как после остановки по С/П
+                    automaticMode.set(false);
+                    checkResultAndDisplay(false);
+                    break;
+                }
+                engine.processCommands();
+            }
+        } finally {
+            unthrottled = false;
+        }
+
+        stepCallback.after(newStepExecutionResult(engine.getCurrentDisplay()));
+        return steps;
+    }
+
+    /**
+     * Проверяет точки останова и наблюдения после шага программы. Точка останова останавливает программу,
+     * индикатор показывает X.
+     *
+     * @return true если программа остановлена точкой останова
+     */
+    boolean checkBreakpoints() {
+        if (!breakpoints.test(engine)) {
+            return false;
+        }
+        automaticMode.set(false);
+        breakpointStop = true;
+        checkResultAndDisplay(false);
+        return true;
+    }
+
+    /**
+     * Возвращает true, если последний запуск остановлен точкой останова, а не программой.
+     */
+    boolean isBreakpointStop() {
+        return breakpointStop;
+    }
+
+    /**
+     * Учитывает эмулированное время. В асинхронном режиме ожидает в соответствии со скоростью эмуляции.
+     */
+    void delay(Duration duration) {
+        delay(duration, true);
+    }
+
+    /**
+     * Учитывает эмулированное время. Если ожидание не требуется, срок следующего ожидания все равно сдвигается,
+     * общее время исполнения не меняется.
+     */
+    private void delay(Duration duration, boolean wait) {
+        engine.advanceEmulatedTime(duration);
+        if (!async || unthrottled) {
+            return;
+        }
+
+        pacer.advance(engine.getSpeedMode().scale(duration));
+        if (wait) {
+            pacer.await();
         }
     }
 
@@ -140,7 +286,7 @@ final class Processor {
         goTo(newPc);
     }
 
-    private void conditionalGoto(Address pc, Predicate<Long> predicate) {
+    private void conditionalGoto(Address pc, LongPredicate predicate) {
         if (!predicate.test(stack.xValue())) {
             goTo(pc);
         }
@@ -156,7 +302,7 @@ final class Processor {
         }
     }
 
-    private void conditionalIndirectGoto(Address address, Predicate<Long> predicate) {
+    private void conditionalIndirectGoto(Address address, LongPredicate predicate) {
         if (!predicate.test(stack.xValue())) {
             indirectGoto(address);
         }
@@ -299,11 +445,12 @@ final class Processor {
     }
 
     public void execute(Instruction instruction) {
-        if (async) {
-            sleep(TURN_OFF_DISPLAY_DELAY);
-        }
+        // Гашение индикатора выдерживается, только если его можно увидеть
+        delay(TURN_OFF_DISPLAY_DELAY, engine.isBlinkVisible());
 
-        stepCallback.before();
+        if (!unthrottled) {
+            stepCallback.before();
+        }
 
         var opCode = instruction.opCode();
         if (opCode.hasAddress()) {
@@ -333,25 +480,22 @@ final class Processor {
         }
 
         lastExecutedOpCode.set(opCode);
+        metrics.instruction();
 
-        if (async) {
-            sleep(instruction.opCode().duration().minus(TURN_OFF_DISPLAY_DELAY));
-        }
+        delay(instruction.opCode().duration().minus(TURN_OFF_DISPLAY_DELAY));
 
-        stepCallback.after(newStepExecutionResult(engine.getCurrentDisplay()));
+        if (!unthrottled) {
+            stepCallback.after(newStepExecutionResult(engine.getCurrentDisplay()));
+        }
     }
 
     public void storeCode(int code) {
-        if (async) {
-            sleep(TURN_OFF_DISPLAY_DELAY);
-        }
+        delay(TURN_OFF_DISPLAY_DELAY);
 
         stepCallback.before();
         memory.storeCode(engine.programCounter(), code);
 
-        if (async) {
-            sleep(STORE_CODE_DURATION);
-        }
+        delay(STORE_CODE_DURATION);
 
         var pc = engine.programCounter().get();
         stepCallback.after(newStepExecutionResult(memory.getIndicator(pc)));
@@ -400,15 +544,18 @@ final class Processor {
         } else if (exponent <= 199) {
             // Ярус 1
             ir = IR.ERROR;
+            metrics.error(1);
             automaticMode.set(false);
         } else if (exponent <= 299) {
             // Ярус 2
             ir = IR.ERROR_2;
+            metrics.error(2);
             engine.programCounter().set(new Address((exponent - 200) / 10, 2));
             automaticMode.set(false);
         } else {
             // Верхние ярусы не реализованы, просто гасим экран и останавливаемся
             ir = IR.EMPTY;
+            metrics.error(3);
             automaticMode.set(false);
         }
 
@@ -0,0 +1,199 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Результаты программы, которая выводит их остановкой по С/П.
+ * <p>
+ * При каждой остановке запоминаются регистр X и индикатор, после чего программа сразу продолжается. Результаты
+ * вычисляются по мере чтения. Последовательность заканчивается на ошибке или если программа не остановилась за
+ * заданное число шагов. Остановка {@link Breakpoints точкой останова} тоже дает результат, он отмечается отдельно.
+ */
+public final class ProgramOutput {
+    /**
+     * Результат одной остановки.
+     *
+     * @param x          регистр X
+     * @param display    индикатор
+     * @param breakpoint программа остановлена точкой останова, а не командой С/П
+     */
+    public record Result(long x, IR display, boolean breakpoint) {
+    }
+
+    private final Engine engine;
+    private final long maxSteps;
+
+    /**
+     * @param engine   синхронный включенный движок, программа продолжается с текущего адреса
+     * @param maxSteps максимальное число шагов между остановками
+     * @throws IllegalArgumentException если движок асинхронный
+     */
+    public ProgramOutput(Engine engine, long maxSteps) {
+        if (engine.isAsync()) {
+            throw new IllegalArgumentException("Program output can be produced by synchronous engine only");
+        }
+        this.engine = engine;
+        this.maxSteps = maxSteps;
+    }
+
+    /**
+     * Возвращает последовательный поток результатов.
+     */
+    public Stream<Result> stream() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE, Spliterator.ORDERED) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Result> action) {
+                var result = next();
+                if (result == null) {
+                    return false;
+                }
+                action.accept(result);
+                return true;
+            }
+        }, false);
+    }
+
+    /**
+     * Возвращает издателя результатов. Следующий результат вычисляется, только когда подписчик его запросил.
+     * Движок обслуживает одного подписчика.
+     *
+     * @param executor исполнитель, в котором вычисляются результаты и вызывается подписчик
+     */
+    public Flow.Publisher<Result> publisher(Executor executor) {
+        var subscribed = new AtomicBoolean(false);
+        return subscriber -> {
+            if (subscribed.compareAndSet(false, true)) {
+                subscriber.onSubscribe(new Subscription(subscriber, executor));
+            } else {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(new IllegalStateException("Program output supports only one subscriber"));
+            }
+        };
+    }
+
+    /**
+     * Продолжает программу до следующей остановки.
+     *
+     * @return результат или null если программа завершилась ошибкой или не остановилась
+     */
+    Result next() {
+        if (!engine.isPowered() || engine.programming().get()) {
+            return null;
+        }
+
+        engine.automaticMode().set(true);
+        engine.processor().run(maxSteps);
+        if (engine.automaticMode().get()) {
+            engine.automaticMode().set(false);
+            return null;
+        }
+
+        var display = engine.getCurrentDisplay();
+        if (display.equals(IR.ERROR) || display.equals(IR.ERROR_2) || display.equals(IR.EMPTY)) {
+            return null;
+        }
+        return new Result(engine.stack().xValue(), display, engine.processor().isBreakpointStop());
+    }
+
+    private final class Subscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super Result> subscriber;
+        private final Executor executor;
+
+        private final AtomicLong demand = new AtomicLong();
+        // Число запросов, не обработанных циклом доставки
+        private final AtomicInteger pending = new AtomicInteger();
+        // Ошибка запроса передается подписчику циклом доставки
+        private final AtomicReference<Throwable> error = new AtomicReference<>();
+        private volatile boolean done;
+
+        Subscription(Flow.Subscriber<? super Result> subscriber, Executor executor) {
+            this.subscriber = subscriber;
+            this.executor = executor;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error.compareAndSet(null, new IllegalArgumentException("Request must be positive: " + n));
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this::deliver);
+            }
+        }
+
+        // Выполняется не более чем в одном потоке одновременно
+        private void deliver() {
+            var missed = 1;
+            do {
+                while (!done) {
+                    if (error.get() != null) {
+                        done = true;
+                        subscriber.onError(error.get());
+                        return;
+                    }
+                    if (demand.get() == 0) {
+                        break;
+                    }
+
+                    Result result;
+                    try {
+                        result = next();
+                    } catch (RuntimeException ex) {
+                        done = true;
+                        subscriber.onError(ex);
+                        return;
+                    }
+
+                    if (result == null) {
+                        done = true;
+                        subscriber.onComplete();
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    try {
+                        subscriber.onNext(result);
+                    } catch (RuntimeException ex) {
+                        // Подписка отменяется, подписчик получает ошибку
+                        done = true;
+                        subscriber.onError(ex);
+                        return;
+                    }
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+}
@@ -316,6 +316,39 @@ public final class Register {
         return x;
     }
 
+    /**
+     * Сравнивает значения регистров без преобразования в число с плавающей точкой. Ненормализованные значения
+     * сравниваются по величине.
+     *
+     * @return отрицательное число, ноль или положительное число, как {@link Long#compare(long, long)}
+     */
+    public static int compare(long a, long b) {
+        var aSign = isZero(a) ? 0 : isNegative(a) ? -1 : 1;
+        var bSign = isZero(b) ? 0 : isNegative(b) ? -1 : 1;
+        if (aSign != bSign || aSign == 0) {
+            return Integer.compare(aSign, bSign);
+        }
+        var result = compareAbsolute(a, b);
+        return aSign < 0 ? -result : result;
+    }
+
+    private static int compareAbsolute(long a, long b) {
+        // Мантисса приводится к девяти цифрам, после чего порядок сравнивается раньше мантиссы
+        var aMantissa = calculateAbsoluteMantissa(a);
+        var aExponent = getExponent(a);
+        while (aMantissa < 100_000_000L) {
+            aMantissa *= 10;
+            aExponent--;
+        }
+        var bMantissa = calculateAbsoluteMantissa(b);
+        var bExponent = getExponent(b);
+        while (bMantissa < 100_000_000L) {
+            bMantissa *= 10;
+            bExponent--;
+        }
+        return aExponent != bExponent ? Integer.compare(aExponent, bExponent) : Long.compare(aMantissa, bMantissa);
+    }
+
     public static long calculateAbsoluteMantissa(long x) {
         long mantissaBits = x & MANTISSA_MASK;
         long mantissa = 0L;
@@ -29,6 +29,12 @@ public class Registers {
         }
     }
 
+    long load(int index) {
+        synchronized (registers) {
+            return registers[index];
+        }
+    }
+
     public Address modifyAndGetAddressValue(Address address) {
         synchronized (registers) {
             var index = address.getEffectiveRegister();
@@ -77,6 +83,18 @@ public class Registers {
         }
     }
 
+    void restore(long[] values) {
+        synchronized (registers) {
+            System.arraycopy(values, 0, registers, 0, registers.length);
+        }
+    }
+
+    void copyFrom(Registers source) {
+        synchronized (source.registers) {
+            restore(source.registers);
+        }
+    }
+
     public void erase(int count) {
         synchronized (registers) {
             Arrays.fill(registers, 0, count, 0);
@@ -0,0 +1,178 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.panteleyev.mk52.eeprom.EepromAddress;
+import org.panteleyev.mk52.eeprom.EepromMode;
+import org.panteleyev.mk52.eeprom.EepromOperation;
+import org.panteleyev.mk52.program.Address;
+import org.panteleyev.mk52.program.OpCode;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.panteleyev.mk52.engine.Constants.CALL_STACK_SIZE;
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+import static org.panteleyev.mk52.engine.Constants.REGISTERS_SIZE;
+
+/**
+ * Полное состояние калькулятора.
+ * <p>
+ * Двоичный формат, все числа в порядке big-endian:
+ * <pre>
+ * MK52, версия                     5 байт
+ * флаги                            1 байт: программирование, ввод порядка, введена точка
+ * режимы                           4 байта: клавиатура, Р-ГРД-Г, С-З-СЧ, Д-П
+ * коды операций                    6 байт: последняя исполненная, регистровая и адресная команды
+ * цифры адреса                     1 байт
+ * счетчик команд и стек вызовов    1 + 5 байт
+ * адрес ППЗУ                       3 байта
+ * X, Y, Z, T, X1, индикатор        5 * 8 + 8 + 2 байта
+ * состояние ввода числа            4 + 1 + 1 + 8 байт
+ * регистры                         15 * 8 байт
+ * память программ                  105 байт
+ * </pre>
+ * Адреса хранятся в одном байте, старшая тетрада - старшая цифра.
+ */
+record SaveState(
+        boolean programming,
+        boolean enteringExponent,
+        KeyboardMode keyboardMode,
+        TrigonometricMode trigonometricMode,
+        EepromOperation eepromOperation,
+        EepromMode eepromMode,
+        OpCode lastExecutedOpCode,
+        OpCode registerOpCode,
+        OpCode addressOpCode,
+        int address,
+        Address programCounter,
+        Address[] callStack,
+        EepromAddress eepromAddress,
+        StackSnapshot stack,
+        Stack.InputState inputState,
+        long[] registers,
+        int[] memory
+) {
+    private static final byte[] MAGIC = new byte[]{'M', 'K', '5', '2'};
+    private static final byte VERSION = 1;
+    // Код отсутствующей операции
+    private static final short NO_OP_CODE = Short.MIN_VALUE;
+
+    static final int SIZE = MAGIC.length + 1 + 1 + 4 + 3 * Short.BYTES + 1 + 1 + CALL_STACK_SIZE + 3
+            + 6 * Long.BYTES + Short.BYTES + Integer.BYTES + 2 + Long.BYTES
+            + REGISTERS_SIZE * Long.BYTES + PROGRAM_MEMORY_SIZE;
+
+    byte[] encode() {
+        var buffer = ByteBuffer.allocate(SIZE);
+        buffer.put(MAGIC).put(VERSION);
+        buffer.put((byte) ((programming ? 1 : 0)
+                | (enteringExponent ? 2 : 0)
+                | (inputState.hasDot() ? 4 : 0)));
+        buffer.put((byte) keyboardMode.ordinal())
+                .put((byte) trigonometricMode.ordinal())
+                .put((byte) eepromOperation.ordinal())
+                .put((byte) eepromMode.ordinal());
+        buffer.putShort(opCode(lastExecutedOpCode))
+                .putShort(opCode(registerOpCode))
+                .putShort(opCode(addressOpCode));
+        buffer.put((byte) address);
+        buffer.put(address(programCounter));
+        for (var pc : callStack) {
+            buffer.put(address(pc));
+        }
+        buffer.putShort((short) eepromAddress.start()).put((byte) eepromAddress.steps());
+        buffer.putLong(stack.x())
+                .putLong(stack.y())
+                .putLong(stack.z())
+                .putLong(stack.t())
+                .putLong(stack.x1())
+                .putLong(stack.x2().indicator())
+                .putShort((short) stack.x2().dots());
+        buffer.putInt(inputState.xExponent())
+                .put((byte) inputState.currentDigit())
+                .put((byte) inputState.dot())
+                .putLong(inputState.xBuffer());
+        for (var register : registers) {
+            buffer.putLong(register);
+        }
+        for (int i = 0; i < PROGRAM_MEMORY_SIZE; i++) {
+            buffer.put((byte) memory[i]);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Восстанавливает состояние из двоичного представления.
+     *
+     * @throws IllegalArgumentException если данные не являются состоянием калькулятора
+     */
+    static SaveState decode(byte[] bytes) {
+        if (bytes.length != SIZE) {
+            throw new IllegalArgumentException("Invalid save state size: " + bytes.length);
+        }
+        var buffer = ByteBuffer.wrap(bytes);
+        for (var b : MAGIC) {
+            if (buffer.get() != b) {
+                throw new IllegalArgumentException("Not a save state");
+            }
+        }
+        var version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported save state version: " + version);
+        }
+
+        try {
+            var flags = buffer.get();
+            var keyboardMode = KeyboardMode.values()[buffer.get()];
+            var trigonometricMode = TrigonometricMode.values()[buffer.get()];
+            var eepromOperation = EepromOperation.values()[buffer.get()];
+            var eepromMode = EepromMode.values()[buffer.get()];
+            var lastExecutedOpCode = opCode(buffer.getShort());
+            var registerOpCode = opCode(buffer.getShort());
+            var addressOpCode = opCode(buffer.getShort());
+            var address = buffer.get() & 0xFF;
+            var programCounter = address(buffer.get());
+            var callStack = new Address[CALL_STACK_SIZE];
+            for (int i = 0; i < callStack.length; i++) {
+                callStack[i] = address(buffer.get());
+            }
+            var eepromAddress = new EepromAddress(buffer.getShort(), buffer.get());
+            var stack = new StackSnapshot(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                    buffer.getLong(), new IR(buffer.getLong(), buffer.getShort() & 0xFFFF));
+            var inputState = new Stack.InputState(buffer.getInt(), buffer.get(), buffer.get(), (flags & 4) != 0,
+                    buffer.getLong());
+            var registers = new long[REGISTERS_SIZE];
+            for (int i = 0; i < registers.length; i++) {
+                registers[i] = buffer.getLong();
+            }
+            var memory = new int[PROGRAM_MEMORY_SIZE];
+            for (int i = 0; i < memory.length; i++) {
+                memory[i] = buffer.get() & 0xFF;
+            }
+
+            return new SaveState((flags & 1) != 0, (flags & 2) != 0, keyboardMode, trigonometricMode,
+                    eepromOperation, eepromMode, lastExecutedOpCode, registerOpCode, addressOpCode, address,
+                    programCounter, callStack, eepromAddress, stack, inputState, registers, memory);
+        } catch (ArrayIndexOutOfBoundsException | BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Corrupted save state", ex);
+        }
+    }
+
+    private static short opCode(OpCode opCode) {
+        return opCode == null ? NO_OP_CODE : (short) opCode.code();
+    }
+
+    private static OpCode opCode(short code) {
+        return code == NO_OP_CODE ? null : OpCode.findByCode(code);
+    }
+
+    private static byte address(Address address) {
+        return (byte) (address.high() << 4 | address.low());
+    }
+
+    private static Address address(byte b) {
+        return new Address(b & 0xF, (b >> 4) & 0xF);
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import java.time.Duration;
+
+/**
+ * Скорость эмуляции. Задержки команд и обмена с ППЗУ сокращаются, эмулированное время учитывается полностью.
+ */
+public enum SpeedMode {
+    REAL_TIME(1),
+    SCALED(10),
+    INSTANT(0);
+
+    // Задержки короче этой не видны на индикаторе
+    private static final Duration MIN_VISIBLE = Duration.ofMillis(40);
+
+    private final int divisor;
+
+    SpeedMode(int divisor) {
+        this.divisor = divisor;
+    }
+
+    /**
+     * Возвращает реальную задержку для эмулированной длительности.
+     */
+    public Duration scale(Duration duration) {
+        return divisor == 0 ? Duration.ZERO : duration.dividedBy(divisor);
+    }
+
+    /**
+     * Возвращает true, если индикацию на время задержки имеет смысл показывать.
+     */
+    public boolean isVisible(Duration duration) {
+        return scale(duration).compareTo(MIN_VISIBLE) >= 0;
+    }
+}
@@ -12,6 +12,13 @@ import java.util.function.BinaryOperator;
 import java.util.function.UnaryOperator;
 
 public class Stack {
+    /**
+     * Состояние ввода числа с клавиатуры.
+     */
+    record InputState(int xExponent, int currentDigit, int dot, boolean hasDot, long xBuffer) {
+        static final InputState INITIAL = new InputState(0, 7, 7, false, 0);
+    }
+
     private final AtomicLong x = new AtomicLong(0);
     private final AtomicLong y = new AtomicLong(0);
     private final AtomicLong z = new AtomicLong(0);
@@ -96,6 +103,47 @@ public class Stack {
         );
     }
 
+    synchronized InputState getInputState() {
+        return new InputState(xExponent, currentDigit, dot, hasDot, xBuffer);
+    }
+
+    /**
+     * Копирует содержимое другого стека и состояние ввода числа.
+     */
+    synchronized void copyFrom(Stack source) {
+        synchronized (source) {
+            x.set(source.x.get());
+            y.set(source.y.get());
+            z.set(source.z.get());
+            t.set(source.t.get());
+            x1.set(source.x1.get());
+            //
+            xExponent = source.xExponent;
+            currentDigit = source.currentDigit;
+            dot = source.dot;
+            hasDot = source.hasDot;
+            xBuffer = source.xBuffer;
+        }
+    }
+
+    /**
+     * Восстанавливает содержимое стека и состояние ввода числа.
+     */
+    synchronized void restore(StackSnapshot snapshot, InputState inputState) {
+        x.set(snapshot.x());
+        y.set(snapshot.y());
+        z.set(snapshot.z());
+        t.set(snapshot.t());
+        x1.set(snapshot.x1());
+        engine.x2().set(snapshot.x2());
+        //
+        xExponent = inputState.xExponent();
+        currentDigit = inputState.currentDigit();
+        dot = inputState.dot();
+        hasDot = inputState.hasDot();
+        xBuffer = inputState.xBuffer();
+    }
+
     /**
      * Загрузка X из регистра.
      * В X попадает нормализованное значение, на индикатор - как есть.
@@ -0,0 +1,38 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Задержка отображения: от завершения шага процессора до обновления интерфейса в потоке FX.
+ */
+@Name("org.panteleyev.mk52.DisplayPublish")
+@Label("Display Publication")
+@Category({"MK-52", "UI"})
+@Description("Lag between the end of a processor step and the UI update")
+@Enabled(false)
+@StackTrace(false)
+public final class DisplayPublishEvent extends Event {
+    private static final EventType TYPE = EventType.getEventType(DisplayPublishEvent.class);
+
+    @Label("Program Counter")
+    public int pc;
+
+    /**
+     * Проверяет, записывается ли событие, без создания экземпляра. Событие передается в другой поток, поэтому
+     * создается только при включенной записи.
+     */
+    public static boolean isTypeEnabled() {
+        return TYPE.isEnabled();
+    }
+}
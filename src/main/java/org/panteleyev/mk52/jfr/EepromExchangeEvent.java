@@ -0,0 +1,36 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Обмен с ППЗУ.
+ */
+@Name("org.panteleyev.mk52.EepromExchange")
+@Label("EEPROM Exchange")
+@Category({"MK-52", "EEPROM"})
+@Description("Erase, read or write of the EEPROM")
+@Enabled(false)
+@StackTrace(false)
+public final class EepromExchangeEvent extends Event {
+    @Label("Operation")
+    public String operation;
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Start Address")
+    public int address;
+
+    @Label("Steps")
+    public int steps;
+}
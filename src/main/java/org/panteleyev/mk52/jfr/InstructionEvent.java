@@ -0,0 +1,37 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Исполнение одной команды. Записывается каждая {@link #SAMPLE_INTERVAL}-я команда.
+ */
+@Name("org.panteleyev.mk52.Instruction")
+@Label("Instruction")
+@Category({"MK-52", "Engine"})
+@Description("Sampled instruction execution")
+@Enabled(false)
+@StackTrace(false)
+public final class InstructionEvent extends Event {
+    public static final int SAMPLE_INTERVAL = 64;
+
+    @Label("Program Counter")
+    public int pc;
+
+    @Label("Operation Code")
+    public String opCode;
+
+    @Label("Emulated Duration")
+    @Timespan
+    public long emulatedDuration;
+}
@@ -0,0 +1,40 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Исполнение программы в автоматическом режиме от запуска до остановки.
+ */
+@Name("org.panteleyev.mk52.Run")
+@Label("Program Run")
+@Category({"MK-52", "Engine"})
+@Description("Program execution in automatic mode")
+@Enabled(false)
+@StackTrace(false)
+public final class RunEvent extends Event {
+    public static final String OUTCOME_STOP = "stop";
+    public static final String OUTCOME_ERROR = "error";
+    public static final String OUTCOME_LIMIT = "limit";
+
+    @Label("Instructions")
+    public long instructions;
+
+    @Label("Emulated Time")
+    @Timespan
+    public long emulatedTime;
+
+    @Label("Outcome")
+    @Description("stop, error or limit")
+    public String outcome;
+}
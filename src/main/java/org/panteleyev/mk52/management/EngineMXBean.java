@@ -0,0 +1,17 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+/**
+ * Метрики отдельного движка.
+ */
+public interface EngineMXBean extends EnginePoolMXBean {
+    String getProgramCounter();
+
+    /**
+     * Режим работы: OFF, PROGRAMMING, AUTOMATIC или MANUAL.
+     */
+    String getMode();
+}
@@ -0,0 +1,50 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+import org.panteleyev.mk52.engine.Engine;
+
+import javax.management.ObjectName;
+
+import static org.panteleyev.mk52.util.StringUtil.pcToString;
+
+/**
+ * Публикация метрик движка через JMX.
+ */
+public final class EngineMonitor extends EnginePoolMonitor implements EngineMXBean {
+    private final Engine engine;
+
+    public EngineMonitor(Engine engine) {
+        super(engine.metrics());
+        this.engine = engine;
+    }
+
+    /**
+     * Регистрирует метрики движка на платформенном сервере MBean.
+     *
+     * @return имя зарегистрированного объекта
+     */
+    public static ObjectName register(String name, Engine engine) {
+        return register(objectName("Engine", name), new EngineMonitor(engine), EngineMXBean.class);
+    }
+
+    @Override
+    public String getProgramCounter() {
+        return pcToString(engine.getProgramCounter());
+    }
+
+    @Override
+    public String getMode() {
+        if (!engine.isPowered()) {
+            return "OFF";
+        } else if (engine.programming().get()) {
+            return "PROGRAMMING";
+        } else if (engine.automaticMode().get()) {
+            return "AUTOMATIC";
+        } else {
+            return "MANUAL";
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+/**
+ * Метрики группы движков.
+ */
+public interface EnginePoolMXBean {
+    long getInstructions();
+
+    /**
+     * Скорость исполнения с момента предыдущего замера.
+     */
+    double getInstructionsPerSecond();
+
+    /**
+     * Отношение эмулированного времени к реальному с момента предыдущего замера.
+     */
+    double getEmulatedToRealTimeRatio();
+
+    long getEepromOperations();
+
+    long getPendingUiUpdates();
+
+    long getErrorTier1();
+
+    long getErrorTier2();
+
+    long getErrorUpperTiers();
+}
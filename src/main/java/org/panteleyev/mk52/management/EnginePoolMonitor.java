@@ -0,0 +1,136 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+import org.panteleyev.mk52.engine.EngineMetrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Публикация метрик группы движков через JMX.
+ * <p>
+ * Скорости вычисляются по приращению счетчиков между замерами, замер выполняется при чтении атрибута, но не
+ * чаще чем раз в {@link #MIN_SAMPLE_INTERVAL} наносекунд.
+ */
+public class EnginePoolMonitor implements EnginePoolMXBean {
+    public static final String DOMAIN = "org.panteleyev.mk52";
+
+    static final long MIN_SAMPLE_INTERVAL = 100_000_000L;
+
+    private final EngineMetrics metrics;
+
+    private long sampleTime = System.nanoTime();
+    private long sampleInstructions;
+    private long sampleEmulatedNanos;
+    private double instructionsPerSecond;
+    private double emulatedToRealTimeRatio;
+
+    public EnginePoolMonitor(EngineMetrics metrics) {
+        this.metrics = metrics;
+        this.sampleInstructions = metrics.getInstructions();
+        this.sampleEmulatedNanos = metrics.getEmulatedNanos();
+    }
+
+    /**
+     * Регистрирует метрики группы движков на платформенном сервере MBean.
+     *
+     * @return имя зарегистрированного объекта
+     */
+    public static ObjectName register(String name, EngineMetrics metrics) {
+        return register(objectName("EnginePool", name), new EnginePoolMonitor(metrics), EnginePoolMXBean.class);
+    }
+
+    public static void unregister(ObjectName name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (InstanceNotFoundException | MBeanRegistrationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static <T> ObjectName register(ObjectName name, T monitor, Class<T> mxBeanInterface) {
+        try {
+            ManagementFactory.getPlatformMBeanServer()
+                    .registerMBean(new StandardMBean(monitor, mxBeanInterface, true), name);
+            return name;
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static ObjectName objectName(String type, String name) {
+        try {
+            return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+        } catch (MalformedObjectNameException ex) {
+            throw new IllegalArgumentException(ex);
+        }
+    }
+
+    @Override
+    public long getInstructions() {
+        return metrics.getInstructions();
+    }
+
+    @Override
+    public synchronized double getInstructionsPerSecond() {
+        sample();
+        return instructionsPerSecond;
+    }
+
+    @Override
+    public synchronized double getEmulatedToRealTimeRatio() {
+        sample();
+        return emulatedToRealTimeRatio;
+    }
+
+    @Override
+    public long getEepromOperations() {
+        return metrics.getEepromOperations();
+    }
+
+    @Override
+    public long getPendingUiUpdates() {
+        return metrics.getPendingUiUpdates();
+    }
+
+    @Override
+    public long getErrorTier1() {
+        return metrics.getErrorTier1();
+    }
+
+    @Override
+    public long getErrorTier2() {
+        return metrics.getErrorTier2();
+    }
+
+    @Override
+    public long getErrorUpperTiers() {
+        return metrics.getErrorUpperTiers();
+    }
+
+    private void sample() {
+        var now = System.nanoTime();
+        var elapsed = now - sampleTime;
+        if (elapsed < MIN_SAMPLE_INTERVAL) {
+            return;
+        }
+
+        var instructions = metrics.getInstructions();
+        var emulatedNanos = metrics.getEmulatedNanos();
+        instructionsPerSecond = (instructions - sampleInstructions) * 1e9 / elapsed;
+        emulatedToRealTimeRatio = (double) (emulatedNanos - sampleEmulatedNanos) / elapsed;
+
+        sampleTime = now;
+        sampleInstructions = instructions;
+        sampleEmulatedNanos = emulatedNanos;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+/**
+ * Метрики планировщика движков.
+ */
+public interface EngineSchedulerMXBean {
+    int getEngines();
+
+    long getDispatches();
+
+    /**
+     * Число шагов, заметно опоздавших относительно срока.
+     */
+    long getLateDispatches();
+
+    double getMeanLatenessNanos();
+
+    long getMaxLatenessNanos();
+
+    /**
+     * Индекс справедливости Джейна, от 1/n до 1.
+     */
+    double getFairness();
+}
@@ -0,0 +1,62 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+import org.panteleyev.mk52.engine.EngineScheduler;
+
+import javax.management.ObjectName;
+
+import static org.panteleyev.mk52.management.EnginePoolMonitor.objectName;
+
+/**
+ * Публикация метрик планировщика движков через JMX.
+ */
+public final class EngineSchedulerMonitor implements EngineSchedulerMXBean {
+    private final EngineScheduler scheduler;
+
+    public EngineSchedulerMonitor(EngineScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Регистрирует метрики планировщика на платформенном сервере MBean.
+     *
+     * @return имя зарегистрированного объекта
+     */
+    public static ObjectName register(String name, EngineScheduler scheduler) {
+        return EnginePoolMonitor.register(objectName("EngineScheduler", name),
+                new EngineSchedulerMonitor(scheduler), EngineSchedulerMXBean.class);
+    }
+
+    @Override
+    public int getEngines() {
+        return scheduler.getEngines();
+    }
+
+    @Override
+    public long getDispatches() {
+        return scheduler.getDispatches();
+    }
+
+    @Override
+    public long getLateDispatches() {
+        return scheduler.getLateDispatches();
+    }
+
+    @Override
+    public double getMeanLatenessNanos() {
+        return scheduler.getMeanLatenessNanos();
+    }
+
+    @Override
+    public long getMaxLatenessNanos() {
+        return scheduler.getMaxLatenessNanos();
+    }
+
+    @Override
+    public double getFairness() {
+        return scheduler.getFairness();
+    }
+}
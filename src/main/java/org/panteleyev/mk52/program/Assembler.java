@@ -0,0 +1,233 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.program;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+
+/**
+ * Ассемблер мнемоник МК-52.
+ * <p>
+ * Формат исходного текста:
+ * <pre>
+ * # Комментарий до конца строки
+ * start:  П→x 4        метка и команда с номером регистра
+ *         Fx&lt;0 loop    переход по метке
+ *         К БП 7       косвенный переход
+ * 12:     БП 00        адрес в начале строки проверяется
+ *         $5F          произвольный код
+ * </pre>
+ * Пробелы внутри мнемоники не важны, похожие русские и латинские буквы не различаются. Вместо стрелок и знаков
+ * сравнения допускаются {@code ->}, {@code <-}, {@code >=}, {@code !=}.
+ */
+public final class Assembler {
+    private static final Pattern LABEL = Pattern.compile("^([\\p{L}_][\\p{L}\\p{N}_]*):\\s*");
+    private static final Pattern ADDRESS = Pattern.compile("^(\\d\\d|[AaАа][0-4]):\\s*");
+
+    private record Fixup(int cell, String label, int line) {
+    }
+
+    /**
+     * Транслирует исходный текст в содержимое памяти программ.
+     *
+     * @param source исходный текст
+     * @return коды всех ячеек памяти программ
+     */
+    public static int[] assemble(String source) {
+        return assemble(new StringReader(source));
+    }
+
+    public static int[] assemble(Reader reader) {
+        var codes = new int[PROGRAM_MEMORY_SIZE];
+        var labels = new HashMap<String, Integer>();
+        var fixups = new ArrayList<Fixup>();
+        var location = 0;
+
+        try (var bufferedReader = new BufferedReader(reader)) {
+            var lineNumber = 0;
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                lineNumber++;
+                try {
+                    location = assembleLine(line, lineNumber, location, codes, labels, fixups);
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException("Line " + lineNumber + ": " + ex.getMessage(), ex);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        for (var fixup : fixups) {
+            var address = labels.get(fixup.label());
+            if (address == null) {
+                throw new IllegalArgumentException("Line " + fixup.line() + ": unknown label " + fixup.label());
+            }
+            codes[fixup.cell()] = encodeAddress(address);
+        }
+        return codes;
+    }
+
+    private static int assembleLine(String line, int lineNumber, int location, int[] codes,
+            HashMap<String, Integer> labels, List<Fixup> fixups) {
+        var commentIndex = line.indexOf('#');
+        if (commentIndex >= 0) {
+            line = line.substring(0, commentIndex);
+        }
+        line = line.trim();
+
+        while (true) {
+            var addressMatcher = ADDRESS.matcher(line);
+            if (addressMatcher.find()) {
+                var address = parseAddress(addressMatcher.group(1));
+                if (address != location) {
+                    throw new IllegalArgumentException("address " + addressMatcher.group(1)
+                            + " does not match location " + location);
+                }
+                line = line.substring(addressMatcher.end());
+                continue;
+            }
+            var labelMatcher = LABEL.matcher(line);
+            if (labelMatcher.find()) {
+                var label = labelMatcher.group(1);
+                if (labels.putIfAbsent(label, location) != null) {
+                    throw new IllegalArgumentException("duplicate label " + label);
+                }
+                line = line.substring(labelMatcher.end());
+                continue;
+            }
+            break;
+        }
+
+        if (line.isEmpty()) {
+            return location;
+        }
+
+        var tokens = line.split("\\s+");
+        if (tokens[0].startsWith("$")) {
+            for (var token : tokens) {
+                if (!token.startsWith("$")) {
+                    throw new IllegalArgumentException("code expected: " + token);
+                }
+                location = put(codes, location, parseCode(token));
+            }
+            return location;
+        }
+
+        // Самая длинная мнемоника, оставшиеся лексемы - операнд
+        for (int count = tokens.length; count > 0; count--) {
+            var mnemonic = Mnemonics.byText(String.join("", List.of(tokens).subList(0, count)));
+            if (mnemonic == null) {
+                continue;
+            }
+            var operands = tokens.length - count;
+
+            switch (mnemonic.operand()) {
+                case NONE -> {
+                    checkOperands(operands, 0, line);
+                    return put(codes, location, mnemonic.code());
+                }
+                case REGISTER -> {
+                    checkOperands(operands, 1, line);
+                    return put(codes, location, mnemonic.code() + parseRegister(tokens[count]));
+                }
+                case ADDRESS -> {
+                    checkOperands(operands, 1, line);
+                    location = put(codes, location, mnemonic.code());
+                    var operand = tokens[count];
+                    if (LABEL.matcher(operand + ":").matches() && !ADDRESS.matcher(operand + ":").matches()) {
+                        fixups.add(new Fixup(location, operand, lineNumber));
+                        return put(codes, location, 0);
+                    } else {
+                        return put(codes, location, operand.startsWith("$")
+                                ? parseCode(operand)
+                                : encodeAddress(parseAddress(operand)));
+                    }
+                }
+            }
+        }
+        throw new IllegalArgumentException("unknown instruction " + line);
+    }
+
+    private static void checkOperands(int actual, int expected, String line) {
+        if (actual != expected) {
+            throw new IllegalArgumentException(expected == 0
+                    ? "unexpected operand in " + line
+                    : "operand expected in " + line);
+        }
+    }
+
+    private static int put(int[] codes, int location, int code) {
+        if (location >= codes.length) {
+            throw new IllegalArgumentException("program does not fit into memory");
+        }
+        codes[location] = code;
+        return location + 1;
+    }
+
+    private static int parseCode(String token) {
+        try {
+            var code = Integer.parseInt(token.substring(1), 16);
+            if (code < 0 || code > 0xFF) {
+                throw new IllegalArgumentException("invalid code " + token);
+            }
+            return code;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("invalid code " + token);
+        }
+    }
+
+    private static int parseRegister(String token) {
+        var index = token.length() == 1
+                ? Mnemonics.REGISTER_NAMES.indexOf(switch (Character.toLowerCase(token.charAt(0))) {
+                    case 'а' -> 'a';
+                    case 'в' -> 'b';
+                    case 'с' -> 'c';
+                    case 'д' -> 'd';
+                    case 'е' -> 'e';
+                    default -> Character.toLowerCase(token.charAt(0));
+                })
+                : -1;
+        if (index < 0) {
+            throw new IllegalArgumentException("invalid register " + token);
+        }
+        return index;
+    }
+
+    /**
+     * Возвращает номер ячейки по записи адреса: 00-99, A0-A4.
+     */
+    private static int parseAddress(String token) {
+        if (token.length() == 2) {
+            var high = token.charAt(0);
+            var low = Character.digit(token.charAt(1), 10);
+            if (low >= 0) {
+                if (Character.isDigit(high)) {
+                    return Character.digit(high, 10) * 10 + low;
+                }
+                if ((high == 'A' || high == 'a' || high == 'А' || high == 'а') && low <= 4) {
+                    return 100 + low;
+                }
+            }
+        }
+        throw new IllegalArgumentException("invalid address " + token);
+    }
+
+    static int encodeAddress(int address) {
+        return (address / 10) << 4 | address % 10;
+    }
+
+    private Assembler() {
+    }
+}
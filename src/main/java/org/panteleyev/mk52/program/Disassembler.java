@@ -0,0 +1,67 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.program;
+
+import static org.panteleyev.mk52.util.StringUtil.pcToString;
+
+/**
+ * Дизассемблер памяти программ.
+ * <p>
+ * Результат может быть снова оттранслирован {@link Assembler}.
+ */
+public final class Disassembler {
+    /**
+     * Возвращает текст программы. Нулевые ячейки в конце памяти пропускаются.
+     *
+     * @param codes содержимое памяти программ
+     * @return текст программы, по одной команде в строке
+     */
+    public static String disassemble(int[] codes) {
+        var length = codes.length;
+        while (length > 0 && codes[length - 1] == 0) {
+            length--;
+        }
+
+        var builder = new StringBuilder();
+        var i = 0;
+        while (i < length) {
+            builder.append(pcToString(i)).append(": ");
+
+            var code = codes[i++];
+            var mnemonic = Mnemonics.byCode(code);
+            if (mnemonic == null) {
+                builder.append(String.format("$%02X", code));
+            } else {
+                builder.append(mnemonic.text());
+                switch (mnemonic.operand()) {
+                    case REGISTER -> builder.append(' ')
+                            .append(Mnemonics.REGISTER_NAMES.charAt(code - mnemonic.code()));
+                    case ADDRESS -> {
+                        if (i < codes.length) {
+                            builder.append(' ').append(formatAddress(codes[i++]));
+                        }
+                    }
+                    case NONE -> {
+                    }
+                }
+            }
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String formatAddress(int code) {
+        var high = code >> 4;
+        var low = code & 0xF;
+        if (low <= 9 && (high <= 9 || high == 0xA && low <= 4)) {
+            return pcToString(high * 10 + low);
+        } else {
+            return String.format("$%02X", code);
+        }
+    }
+
+    private Disassembler() {
+    }
+}
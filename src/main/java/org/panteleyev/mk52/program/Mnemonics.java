@@ -0,0 +1,194 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.program;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Мнемоники команд МК-52.
+ */
+final class Mnemonics {
+    enum Operand {
+        NONE,
+        REGISTER,
+        ADDRESS
+    }
+
+    record Mnemonic(String text, int code, Operand operand) {
+    }
+
+    static final String REGISTER_NAMES = "0123456789abcde";
+
+    private static final Mnemonic[] BY_CODE = new Mnemonic[256];
+    private static final Map<String, Mnemonic> BY_TEXT = new HashMap<>();
+
+    static {
+        // Цифры и ввод чисел
+        for (int i = 0; i <= 9; i++) {
+            add(Integer.toString(i), i);
+        }
+        add(".", 0x0A);
+        add("/-/", 0x0B);
+        add("ВП", 0x0C);
+        add("Cx", 0x0D);
+        add("В↑", 0x0E);
+        add("FВx", 0x0F);
+        // Арифметика и стек
+        add("+", 0x10);
+        add("-", 0x11);
+        add("×", 0x12);
+        add("÷", 0x13);
+        add("XY", 0x14);
+        add("F⟳", 0x25);
+        // Функции
+        add("F10^x", 0x15);
+        add("Fe^x", 0x16);
+        add("Flg", 0x17);
+        add("Fln", 0x18);
+        add("Fsin⁻¹", 0x19);
+        add("Fcos⁻¹", 0x1A);
+        add("Ftg⁻¹", 0x1B);
+        add("Fsin", 0x1C);
+        add("Fcos", 0x1D);
+        add("Ftg", 0x1E);
+        add("Fπ", 0x20);
+        add("F√", 0x21);
+        add("Fx²", 0x22);
+        add("F1/x", 0x23);
+        add("Fx^y", 0x24);
+        add("К°←′", 0x26);
+        add("К-", 0x27);
+        add("К×", 0x28);
+        add("К÷", 0x29);
+        add("К°←″", 0x2A);
+        add("К°→″", 0x30);
+        add("К|x|", 0x31);
+        add("КЗН", 0x32);
+        add("К°→′", 0x33);
+        add("К[x]", 0x34);
+        add("К{x}", 0x35);
+        add("Кmax", 0x36);
+        add("К∧", 0x37);
+        add("К∨", 0x38);
+        add("К⊕", 0x39);
+        add("КИНВ", 0x3A);
+        add("КСЧ", 0x3B);
+        // Управление
+        add("С/П", 0x50);
+        add("БП", 0x51, Operand.ADDRESS);
+        add("В/О", 0x52);
+        add("ПП", 0x53, Operand.ADDRESS);
+        add("КНОП", 0x54);
+        add("К1", 0x55);
+        add("К2", 0x56);
+        add("Fx≠0", 0x57, Operand.ADDRESS);
+        add("FL2", 0x58, Operand.ADDRESS);
+        add("Fx≥0", 0x59, Operand.ADDRESS);
+        add("FL3", 0x5A, Operand.ADDRESS);
+        add("FL1", 0x5B, Operand.ADDRESS);
+        add("Fx<0", 0x5C, Operand.ADDRESS);
+        add("FL0", 0x5D, Operand.ADDRESS);
+        add("Fx=0", 0x5E, Operand.ADDRESS);
+        // Регистровые команды
+        add("x→П", 0x40, Operand.REGISTER);
+        add("П→x", 0x60, Operand.REGISTER);
+        add("Кx≠0", 0x70, Operand.REGISTER);
+        add("КБП", 0x80, Operand.REGISTER);
+        add("Кx≥0", 0x90, Operand.REGISTER);
+        add("КПП", 0xA0, Operand.REGISTER);
+        add("Кx→П", 0xB0, Operand.REGISTER);
+        add("Кx<0", 0xC0, Operand.REGISTER);
+        add("КП→x", 0xD0, Operand.REGISTER);
+        add("Кx=0", 0xE0, Operand.REGISTER);
+
+        // Альтернативные написания
+        alias("*", "×");
+        alias("/", "÷");
+        alias("↔", "XY");
+        alias("F10x", "F10^x");
+        alias("Fex", "Fe^x");
+        alias("Farcsin", "Fsin⁻¹");
+        alias("Farccos", "Fcos⁻¹");
+        alias("Farctg", "Ftg⁻¹");
+        alias("Fsin-1", "Fsin⁻¹");
+        alias("Fcos-1", "Fcos⁻¹");
+        alias("Ftg-1", "Ftg⁻¹");
+        alias("Fpi", "Fπ");
+        alias("Fsqrt", "F√");
+        alias("Fx2", "Fx²");
+        alias("Fxy", "Fx^y");
+        alias("FO", "F⟳");
+        alias("К⋀", "К∧");
+        alias("К⋁", "К∨");
+        alias("К⨁", "К⊕");
+    }
+
+    private static void add(String text, int code) {
+        add(text, code, Operand.NONE);
+    }
+
+    private static void add(String text, int code, Operand operand) {
+        var mnemonic = new Mnemonic(text, code, operand);
+        if (operand == Operand.REGISTER) {
+            for (int r = 0; r < REGISTER_NAMES.length(); r++) {
+                BY_CODE[code + r] = mnemonic;
+            }
+        } else {
+            BY_CODE[code] = mnemonic;
+        }
+        BY_TEXT.put(normalize(text), mnemonic);
+    }
+
+    private static void alias(String alias, String text) {
+        BY_TEXT.put(normalize(alias), BY_TEXT.get(normalize(text)));
+    }
+
+    static Mnemonic byCode(int code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+
+    static Mnemonic byText(String text) {
+        return BY_TEXT.get(normalize(text));
+    }
+
+    /**
+     * Приводит написание к единому виду: удаляет пробелы, заменяет похожие латинские и русские буквы,
+     * а также ASCII-замены стрелок и знаков сравнения.
+     */
+    static String normalize(String text) {
+        var builder = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            var c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            builder.append(switch (c) {
+                case 'К', 'к', 'k' -> 'K';
+                case 'С', 'с', 'c' -> 'C';
+                case 'В', 'в', 'b' -> 'B';
+                case 'Х', 'х', 'x' -> 'X';
+                case 'Р', 'р', 'p' -> 'P';
+                case 'О', 'о', 'o' -> 'O';
+                case 'Е', 'е', 'e' -> 'E';
+                case 'А', 'а', 'a' -> 'A';
+                case 'Н', 'н', 'h' -> 'H';
+                case 'М', 'м', 'm' -> 'M';
+                case 'Т', 'т', 't' -> 'T';
+                case 'f' -> 'F';
+                default -> Character.toUpperCase(c);
+            });
+        }
+        return builder.toString()
+                .replace("->", "→")
+                .replace("<-", "←")
+                .replace(">=", "≥")
+                .replace("!=", "≠")
+                .replace("<>", "≠");
+    }
+
+    private Mnemonics() {
+    }
+}
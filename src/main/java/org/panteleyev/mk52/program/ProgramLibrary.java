@@ -0,0 +1,342 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.program;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+
+/**
+ * Библиотека программ с адресацией по содержимому.
+ * <p>
+ * Каждая программа хранится в каталоге библиотеки в файле {@code <SHA-256>.bin} размером
+ * {@link org.panteleyev.mk52.engine.Constants#PROGRAM_MEMORY_SIZE} байт. Для поиска строится инвертированный индекс
+ * n-грамм команд длиной от 1 до {@link #MAX_GRAM}. Регистровые команды учитываются без номера регистра,
+ * адреса переходов пропускаются, нулевые ячейки в конце памяти не индексируются.
+ */
+public final class ProgramLibrary {
+    /**
+     * Программа, похожая на образец.
+     *
+     * @param hash       ключ программы
+     * @param similarity коэффициент Жаккара по триграммам, от 0 до 1
+     */
+    public record Match(String hash, double similarity) {
+    }
+
+    static final int MAX_GRAM = 3;
+
+    private static final String EXTENSION = ".bin";
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{64}\\.bin");
+    private static final Pattern QUERY_SEPARATOR = Pattern.compile("[;,\\n]");
+
+    private record Entry(String hash, int[] codes, int[] tokens, int[] trigrams) {
+    }
+
+    private final Path directory;
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Integer> byHash = new HashMap<>();
+    private final Map<Integer, BitSet> index = new HashMap<>();
+
+    private ProgramLibrary(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Создает библиотеку в памяти, без сохранения на диск.
+     */
+    public ProgramLibrary() {
+        this(null);
+    }
+
+    /**
+     * Открывает библиотеку в каталоге, создавая его при необходимости, и индексирует все найденные программы.
+     */
+    public static ProgramLibrary open(Path directory) {
+        var library = new ProgramLibrary(directory);
+        try {
+            Files.createDirectories(directory);
+            try (var files = Files.list(directory)) {
+                for (var file : files.sorted().toList()) {
+                    if (!FILE_NAME.matcher(file.getFileName().toString()).matches()) {
+                        continue;
+                    }
+                    var bytes = Files.readAllBytes(file);
+                    var codes = new int[PROGRAM_MEMORY_SIZE];
+                    for (int i = 0; i < Math.min(bytes.length, codes.length); i++) {
+                        codes[i] = bytes[i] & 0xFF;
+                    }
+                    library.index(codes);
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return library;
+    }
+
+    /**
+     * Добавляет программу в библиотеку. Повторное добавление той же программы ничего не меняет.
+     *
+     * @param codes содержимое памяти программ, недостающие ячейки считаются нулевыми
+     * @return ключ программы
+     */
+    public String add(int[] codes) {
+        var image = Arrays.copyOf(codes, PROGRAM_MEMORY_SIZE);
+        var hash = hash(image);
+        if (byHash.containsKey(hash)) {
+            return hash;
+        }
+
+        if (directory != null) {
+            var bytes = new byte[PROGRAM_MEMORY_SIZE];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) image[i];
+            }
+            try {
+                Files.write(directory.resolve(hash + EXTENSION), bytes);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        index(image);
+        return hash;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public boolean contains(String hash) {
+        return byHash.containsKey(hash);
+    }
+
+    /**
+     * Возвращает копию программы по ключу.
+     */
+    public Optional<int[]> get(String hash) {
+        var id = byHash.get(hash);
+        return id == null ? Optional.empty() : Optional.of(entries.get(id).codes().clone());
+    }
+
+    /**
+     * Загружает программу в память программ.
+     *
+     * @throws IllegalArgumentException если программы нет в библиотеке
+     */
+    public void load(String hash, ProgramMemory memory) {
+        var id = byHash.get(hash);
+        if (id == null) {
+            throw new IllegalArgumentException("Program not found: " + hash);
+        }
+        memory.storeCodes(entries.get(id).codes());
+    }
+
+    /**
+     * Находит программы, содержащие указанную последовательность команд подряд.
+     * Регистровые команды совпадают с командой для любого регистра.
+     *
+     * @return ключи программ в порядке добавления
+     */
+    public List<String> find(OpCode... sequence) {
+        var tokens = new int[sequence.length];
+        for (int i = 0; i < sequence.length; i++) {
+            var code = sequence[i].code();
+            tokens[i] = sequence[i].isRegister() ? code & 0xF0 : code;
+        }
+        return find(tokens);
+    }
+
+    /**
+     * Находит программы, содержащие последовательность команд, заданную мнемониками через точку с запятой,
+     * например {@code "Кx→П; FL0"}. Номера регистров и адреса не указываются.
+     *
+     * @throws IllegalArgumentException если мнемоника неизвестна
+     */
+    public List<String> find(String query) {
+        var parts = QUERY_SEPARATOR.split(query.strip());
+        var tokens = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            var mnemonic = Mnemonics.byText(parts[i]);
+            if (mnemonic == null) {
+                throw new IllegalArgumentException("Unknown mnemonic: " + parts[i].strip());
+            }
+            tokens[i] = mnemonic.code();
+        }
+        return find(tokens);
+    }
+
+    /**
+     * Находит программы, похожие на образец, в порядке убывания сходства. Сама программа-образец, если она есть
+     * в библиотеке, тоже попадает в результат.
+     *
+     * @param codes     программа-образец
+     * @param threshold минимальный коэффициент Жаккара по триграммам
+     */
+    public List<Match> findSimilar(int[] codes, double threshold) {
+        var trigrams = grams(tokens(codes), MAX_GRAM);
+        if (trigrams.length == 0) {
+            return List.of();
+        }
+
+        // Число общих триграмм для каждой программы, у которой есть хотя бы одна общая
+        var common = new int[entries.size()];
+        for (var gram : trigrams) {
+            var postings = index.get(gram);
+            if (postings != null) {
+                for (int id = postings.nextSetBit(0); id >= 0; id = postings.nextSetBit(id + 1)) {
+                    common[id]++;
+                }
+            }
+        }
+
+        var result = new ArrayList<Match>();
+        for (int id = 0; id < common.length; id++) {
+            if (common[id] == 0) {
+                continue;
+            }
+            var entry = entries.get(id);
+            var similarity = (double) common[id] / (trigrams.length + entry.trigrams().length - common[id]);
+            if (similarity >= threshold) {
+                result.add(new Match(entry.hash(), similarity));
+            }
+        }
+        result.sort(Comparator.comparingDouble(Match::similarity).reversed());
+        return result;
+    }
+
+    private List<String> find(int[] sequence) {
+        if (sequence.length == 0) {
+            return List.of();
+        }
+
+        // Кандидаты - пересечение списков по всем n-граммам запроса, затем точная проверка
+        var n = Math.min(sequence.length, MAX_GRAM);
+        BitSet candidates = null;
+        for (var gram : grams(sequence, n)) {
+            var postings = index.get(gram);
+            if (postings == null) {
+                return List.of();
+            }
+            if (candidates == null) {
+                candidates = (BitSet) postings.clone();
+            } else {
+                candidates.and(postings);
+            }
+        }
+
+        var result = new ArrayList<String>();
+        for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+            var entry = entries.get(id);
+            if (sequence.length <= MAX_GRAM || indexOf(entry.tokens(), sequence) >= 0) {
+                result.add(entry.hash());
+            }
+        }
+        return result;
+    }
+
+    private void index(int[] codes) {
+        var hash = hash(codes);
+        if (byHash.containsKey(hash)) {
+            return;
+        }
+
+        var id = entries.size();
+        var tokens = tokens(codes);
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (var gram : grams(tokens, n)) {
+                index.computeIfAbsent(gram, _ -> new BitSet()).set(id);
+            }
+        }
+        entries.add(new Entry(hash, codes, tokens, grams(tokens, MAX_GRAM)));
+        byHash.put(hash, id);
+    }
+
+    /**
+     * Возвращает последовательность команд программы. Регистровые команды приводятся к регистру 0,
+     * адреса переходов пропускаются.
+     */
+    static int[] tokens(int[] codes) {
+        var length = Math.min(codes.length, PROGRAM_MEMORY_SIZE);
+        while (length > 0 && codes[length - 1] == 0) {
+            length--;
+        }
+
+        var tokens = new int[length];
+        var count = 0;
+        var i = 0;
+        while (i < length) {
+            var code = codes[i++] & 0xFF;
+            var mnemonic = Mnemonics.byCode(code);
+            if (mnemonic == null) {
+                tokens[count++] = code;
+                continue;
+            }
+            tokens[count++] = mnemonic.code();
+            if (mnemonic.operand() == Mnemonics.Operand.ADDRESS) {
+                i++;
+            }
+        }
+        return Arrays.copyOf(tokens, count);
+    }
+
+    /**
+     * Возвращает различные n-граммы последовательности. Код n-граммы содержит длину и коды команд.
+     */
+    static int[] grams(int[] tokens, int n) {
+        if (tokens.length < n) {
+            return new int[0];
+        }
+        var grams = new int[tokens.length - n + 1];
+        for (int i = 0; i < grams.length; i++) {
+            var gram = n;
+            for (int j = 0; j < n; j++) {
+                gram = gram << 8 | tokens[i + j];
+            }
+            grams[i] = gram;
+        }
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static int indexOf(int[] tokens, int[] sequence) {
+        outer:
+        for (int i = 0; i <= tokens.length - sequence.length; i++) {
+            for (int j = 0; j < sequence.length; j++) {
+                if (tokens[i + j] != sequence[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String hash(int[] codes) {
+        try {
+            var digest = MessageDigest.getInstance("SHA-256");
+            for (int i = 0; i < PROGRAM_MEMORY_SIZE; i++) {
+                digest.update((byte) codes[i]);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -64,12 +64,39 @@ public class ProgramMemory {
         }
     }
 
+    /**
+     * Копирует содержимое другой памяти программ.
+     */
+    public void copyFrom(ProgramMemory source) {
+        // Блокировки памятей не вкладываются, встречное копирование не приводит к взаимоблокировке
+        int[] codes;
+        synchronized (source.memory) {
+            codes = source.memory.clone();
+        }
+        storeCodes(codes);
+    }
+
     public void storeCodes(int[] codes) {
         synchronized (memory) {
             System.arraycopy(codes, 0, memory, 0, Math.min(codes.length, memory.length));
         }
     }
 
+    public void storeCodes(int[] codes, int count) {
+        synchronized (memory) {
+            System.arraycopy(codes, 0, memory, 0, count);
+        }
+    }
+
+    /**
+     * Копирует первые count шагов программы в target без создания промежуточного массива.
+     */
+    public void copyCodes(int[] target, int count) {
+        synchronized (memory) {
+            System.arraycopy(memory, 0, target, 0, count);
+        }
+    }
+
     public void erase(int size) {
         synchronized (memory) {
             Arrays.fill(memory, 0, size, 0);
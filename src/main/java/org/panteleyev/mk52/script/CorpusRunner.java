@@ -0,0 +1,173 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.script;
+
+import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.engine.EngineMetrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+
+/**
+ * Параллельное исполнение набора сценариев.
+ * <p>
+ * Каждый сценарий воспроизводится на отдельном синхронном движке, поэтому сценарии не влияют друг на друга.
+ */
+public final class CorpusRunner {
+    public static final String SCRIPT_EXTENSION = ".mk52";
+
+    /**
+     * Сценарий набора.
+     *
+     * @param name   имя сценария
+     * @param script сценарий
+     */
+    public record Case(String name, KeystrokeScript script) {
+    }
+
+    /**
+     * Результат исполнения сценария.
+     *
+     * @param name   имя сценария
+     * @param result результат воспроизведения
+     * @param nanos  время исполнения, нс
+     */
+    public record CaseResult(String name, ScriptReplayer.Result result, long nanos) {
+    }
+
+    /**
+     * Отчет об исполнении набора.
+     *
+     * @param results результаты в порядке следования сценариев
+     * @param nanos   общее время исполнения, нс
+     */
+    public record Report(List<CaseResult> results, long nanos) {
+        public Report {
+            results = List.copyOf(results);
+        }
+
+        public List<CaseResult> failures() {
+            return results.stream().filter(r -> !r.result().passed()).toList();
+        }
+
+        public boolean passed() {
+            return failures().isEmpty();
+        }
+
+        public long presses() {
+            return results.stream().mapToLong(r -> r.result().presses()).sum();
+        }
+
+        /**
+         * Возвращает число сценариев в секунду.
+         */
+        public double throughput() {
+            return nanos == 0 ? 0 : results.size() * 1e9 / nanos;
+        }
+
+        public String format() {
+            var builder = new StringBuilder();
+            for (var r : results) {
+                builder.append(String.format("%-32s %-4s %10.3f ms", r.name(),
+                        r.result().passed() ? "OK" : "FAIL", r.nanos() / 1e6));
+                if (!r.result().passed()) {
+                    builder.append("  line ").append(r.result().line()).append(": ").append(r.result().message());
+                }
+                builder.append('\n');
+            }
+            builder.append(String.format("%d cases, %d failed, %d presses, %.3f ms, %.1f cases/s%n",
+                    results.size(), failures().size(), presses(), nanos / 1e6, throughput()));
+            return builder.toString();
+        }
+    }
+
+    private final int parallelism;
+    // Общие счетчики всех движков
+    private final EngineMetrics metrics = new EngineMetrics();
+
+    public CorpusRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public CorpusRunner(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Возвращает общие счетчики движков, на которых исполнялись сценарии.
+     */
+    public EngineMetrics metrics() {
+        return metrics;
+    }
+
+    /**
+     * Загружает все сценарии каталога в порядке имен файлов.
+     */
+    public static List<Case> load(Path directory) {
+        try (var files = Files.list(directory)) {
+            var scriptFiles = files.filter(f -> f.getFileName().toString().endsWith(SCRIPT_EXTENSION))
+                    .sorted(Comparator.comparing(Path::getFileName))
+                    .toList();
+            var cases = new ArrayList<Case>(scriptFiles.size());
+            for (var file : scriptFiles) {
+                try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                    cases.add(new Case(file.getFileName().toString(), KeystrokeScript.parse(reader)));
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException(file.getFileName() + ": " + ex.getMessage(), ex);
+                }
+            }
+            return cases;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    public Report run(List<Case> cases) {
+        var tasks = new ArrayList<Callable<CaseResult>>(cases.size());
+        for (var c : cases) {
+            tasks.add(() -> runCase(c));
+        }
+
+        var start = System.nanoTime();
+        try (var executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, cases.size())))) {
+            var results = new ArrayList<CaseResult>(cases.size());
+            for (var future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return new Report(results, System.nanoTime() - start);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private CaseResult runCase(Case c) {
+        var start = System.nanoTime();
+        ScriptReplayer.Result result;
+        try {
+            var engine = new Engine(false, _ -> {});
+            engine.metrics().setAggregate(metrics);
+            engine.togglePower(true);
+            result = ScriptReplayer.replay(c.script(), engine);
+        } catch (RuntimeException ex) {
+            result = new ScriptReplayer.Result(false, 0, ex.toString(), 0);
+        }
+        return new CaseResult(c.name(), result, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.script;
+
+import org.panteleyev.mk52.eeprom.EepromMode;
+import org.panteleyev.mk52.eeprom.EepromOperation;
+import org.panteleyev.mk52.engine.IR;
+import org.panteleyev.mk52.engine.KeyboardButton;
+import org.panteleyev.mk52.engine.TrigonometricMode;
+import org.panteleyev.mk52.program.Address;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сценарий нажатий клавиш.
+ * <p>
+ * Формат сценария:
+ * <pre>
+ * # Комментарий до конца строки
+ * &#64;power=on                   включение и выключение: on | off
+ * &#64;trig=deg                   переключатель Р-ГРД-Г: rad | grad | deg
+ * &#64;eeprom=erase               переключатель С-З-СЧ: erase | write | read
+ * &#64;eepromMode=program         переключатель Д-П: data | program
+ * F D7 D1*3                   клавиши {@link KeyboardButton}, *N - число повторов
+ * ?display=A04F19392545:7     содержимое индикатора и позиции запятых
+ * ?x=10000000                 регистры стека X, Y, Z, T, X1 в шестнадцатеричном виде
+ * ?r3=0                       регистры 0-E
+ * ?pc=17                      счетчик команд
+ * </pre>
+ * В шестнадцатеричных значениях допускается символ подчеркивания.
+ */
+public record KeystrokeScript(List<ScriptStep> steps) {
+    private static final int PRESSES_PER_LINE = 16;
+
+    private static final Map<String, KeyboardButton> BUTTONS = new HashMap<>();
+
+    static {
+        for (var button : KeyboardButton.values()) {
+            BUTTONS.put(button.name(), button);
+        }
+    }
+
+    public KeystrokeScript {
+        steps = List.copyOf(steps);
+    }
+
+    public static KeystrokeScript parse(String text) {
+        return parse(new StringReader(text));
+    }
+
+    public static KeystrokeScript parse(Reader reader) {
+        var steps = new ArrayList<ScriptStep>();
+        try (var bufferedReader = new BufferedReader(reader)) {
+            var lineNumber = 0;
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                lineNumber++;
+                var commentIndex = line.indexOf('#');
+                if (commentIndex >= 0) {
+                    line = line.substring(0, commentIndex);
+                }
+                for (var token : line.trim().split("\\s+")) {
+                    if (!token.isEmpty()) {
+                        steps.add(parseToken(token, lineNumber));
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new KeystrokeScript(steps);
+    }
+
+    private static ScriptStep parseToken(String token, int line) {
+        try {
+            return switch (token.charAt(0)) {
+                case '@' -> parseSwitch(token, line);
+                case '?' -> parseExpectation(token, line);
+                default -> parsePress(token, line);
+            };
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Line " + line + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static ScriptStep parsePress(String token, int line) {
+        var repeatIndex = token.indexOf('*');
+        var name = repeatIndex < 0 ? token : token.substring(0, repeatIndex);
+        var count = repeatIndex < 0 ? 1 : Integer.parseInt(token.substring(repeatIndex + 1));
+
+        var button = BUTTONS.get(name);
+        if (button == null) {
+            throw new IllegalArgumentException("unknown button " + name);
+        }
+        return new ScriptStep.Press(line, button, count);
+    }
+
+    private static ScriptStep parseSwitch(String token, int line) {
+        var key = key(token);
+        var value = value(token);
+        return switch (key) {
+            case "power" -> switch (value) {
+                case "on" -> new ScriptStep.Power(line, true);
+                case "off" -> new ScriptStep.Power(line, false);
+                default -> throw unknownValue(token);
+            };
+            case "trig" -> new ScriptStep.SetTrigonometricMode(line, switch (value) {
+                case "rad" -> TrigonometricMode.RADIAN;
+                case "grad" -> TrigonometricMode.GRADIAN;
+                case "deg" -> TrigonometricMode.DEGREE;
+                default -> throw unknownValue(token);
+            });
+            case "eeprom" -> new ScriptStep.SetEepromOperation(line, switch (value) {
+                case "erase" -> EepromOperation.ERASE;
+                case "write" -> EepromOperation.WRITE;
+                case "read" -> EepromOperation.READ;
+                default -> throw unknownValue(token);
+            });
+            case "eepromMode" -> new ScriptStep.SetEepromMode(line, switch (value) {
+                case "data" -> EepromMode.DATA;
+                case "program" -> EepromMode.PROGRAM;
+                default -> throw unknownValue(token);
+            });
+            default -> throw new IllegalArgumentException("unknown switch " + key);
+        };
+    }
+
+    private static ScriptStep parseExpectation(String token, int line) {
+        var key = key(token);
+        var value = value(token);
+        return switch (key) {
+            case "display" -> new ScriptStep.ExpectDisplay(line, parseDisplay(value));
+            case "x" -> new ScriptStep.ExpectStack(line, ScriptStep.StackRegister.X, parseHex(value));
+            case "y" -> new ScriptStep.ExpectStack(line, ScriptStep.StackRegister.Y, parseHex(value));
+            case "z" -> new ScriptStep.ExpectStack(line, ScriptStep.StackRegister.Z, parseHex(value));
+            case "t" -> new ScriptStep.ExpectStack(line, ScriptStep.StackRegister.T, parseHex(value));
+            case "x1" -> new ScriptStep.ExpectStack(line, ScriptStep.StackRegister.X1, parseHex(value));
+            case "pc" -> {
+                if (value.length() != 2) {
+                    throw unknownValue(token);
+                }
+                var high = Character.digit(value.charAt(0), 16);
+                var low = Character.digit(value.charAt(1), 16);
+                if (high < 0 || low < 0) {
+                    throw unknownValue(token);
+                }
+                yield new ScriptStep.ExpectProgramCounter(line, new Address(low, high));
+            }
+            default -> {
+                if (key.length() == 2 && key.charAt(0) == 'r') {
+                    var register = Character.digit(key.charAt(1), 16);
+                    if (register >= 0 && register <= 0xE) {
+                        yield new ScriptStep.ExpectRegister(line, register, parseHex(value));
+                    }
+                }
+                throw new IllegalArgumentException("unknown expectation " + key);
+            }
+        };
+    }
+
+    private static IR parseDisplay(String value) {
+        var parts = value.split(":");
+        var dots = 0;
+        for (int i = 1; i < parts.length; i++) {
+            dots |= 1 << Integer.parseInt(parts[i]);
+        }
+        return new IR(parseHex(parts[0]), dots);
+    }
+
+    private static long parseHex(String value) {
+        return Long.parseUnsignedLong(value.replace("_", ""), 16);
+    }
+
+    private static String key(String token) {
+        var index = token.indexOf('=');
+        if (index < 0) {
+            throw new IllegalArgumentException("value expected in " + token);
+        }
+        return token.substring(1, index);
+    }
+
+    private static String value(String token) {
+        return token.substring(token.indexOf('=') + 1);
+    }
+
+    private static IllegalArgumentException unknownValue(String token) {
+        return new IllegalArgumentException("invalid value in " + token);
+    }
+
+    /**
+     * Возвращает текст сценария. Нажатия клавиш группируются в строки, остальные шаги занимают отдельную строку.
+     */
+    public String format() {
+        var builder = new StringBuilder();
+        var presses = 0;
+        for (var step : steps) {
+            if (step instanceof ScriptStep.Press press) {
+                if (presses == PRESSES_PER_LINE) {
+                    builder.append('\n');
+                    presses = 0;
+                } else if (presses > 0) {
+                    builder.append(' ');
+                }
+                builder.append(press.button().name());
+                if (press.count() > 1) {
+                    builder.append('*').append(press.count());
+                }
+                presses++;
+            } else {
+                if (presses > 0) {
+                    builder.append('\n');
+                    presses = 0;
+                }
+                builder.append(formatStep(step)).append('\n');
+            }
+        }
+        if (presses > 0) {
+            builder.append('\n');
+        }
+        return builder.toString();
+    }
+
+    private static String formatStep(ScriptStep step) {
+        return switch (step) {
+            case ScriptStep.Press press -> press.button().name();
+            case ScriptStep.Power power -> "@power=" + (power.on() ? "on" : "off");
+            case ScriptStep.SetTrigonometricMode trig -> "@trig=" + switch (trig.mode()) {
+                case RADIAN -> "rad";
+                case GRADIAN -> "grad";
+                case DEGREE -> "deg";
+            };
+            case ScriptStep.SetEepromOperation eeprom -> "@eeprom=" + eeprom.operation().name().toLowerCase();
+            case ScriptStep.SetEepromMode eeprom -> "@eepromMode=" + eeprom.mode().name().toLowerCase();
+            case ScriptStep.ExpectDisplay display -> "?display=" + formatDisplay(display.expected());
+            case ScriptStep.ExpectStack stack -> "?" + stack.register().name().toLowerCase() + "="
+                    + Long.toHexString(stack.expected()).toUpperCase();
+            case ScriptStep.ExpectRegister register -> "?r" + Integer.toHexString(register.register()) + "="
+                    + Long.toHexString(register.expected()).toUpperCase();
+            case ScriptStep.ExpectProgramCounter pc -> String.format("?pc=%X%X", pc.expected().high(),
+                    pc.expected().low());
+        };
+    }
+
+    private static String formatDisplay(IR ir) {
+        var builder = new StringBuilder(String.format("%012X", ir.indicator()));
+        var dots = ir.dots();
+        for (int i = 0; dots != 0; i++, dots >>= 1) {
+            if ((dots & 1) != 0) {
+                builder.append(':').append(i);
+            }
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.script;
+
+import org.panteleyev.mk52.eeprom.EepromMode;
+import org.panteleyev.mk52.eeprom.EepromOperation;
+import org.panteleyev.mk52.engine.KeyboardButton;
+import org.panteleyev.mk52.engine.TrigonometricMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Запись сеанса работы в виде сценария.
+ * <p>
+ * При включении питания запись начинается заново с текущих положений переключателей.
+ */
+public final class ScriptRecorder {
+    private final List<ScriptStep> steps = new ArrayList<>();
+
+    private TrigonometricMode trigonometricMode = TrigonometricMode.RADIAN;
+    private EepromOperation eepromOperation = EepromOperation.READ;
+    private EepromMode eepromMode = EepromMode.DATA;
+
+    public synchronized void press(KeyboardButton button) {
+        if (!steps.isEmpty() && steps.getLast() instanceof ScriptStep.Press last && last.button() == button) {
+            steps.set(steps.size() - 1, new ScriptStep.Press(0, button, last.count() + 1));
+        } else {
+            steps.add(new ScriptStep.Press(0, button, 1));
+        }
+    }
+
+    public synchronized void power(boolean on) {
+        if (on) {
+            steps.clear();
+            steps.add(new ScriptStep.Power(0, true));
+            steps.add(new ScriptStep.SetTrigonometricMode(0, trigonometricMode));
+            steps.add(new ScriptStep.SetEepromOperation(0, eepromOperation));
+            steps.add(new ScriptStep.SetEepromMode(0, eepromMode));
+        } else {
+            steps.add(new ScriptStep.Power(0, false));
+        }
+    }
+
+    public synchronized void trigonometricMode(TrigonometricMode trigonometricMode) {
+        this.trigonometricMode = trigonometricMode;
+        steps.add(new ScriptStep.SetTrigonometricMode(0, trigonometricMode));
+    }
+
+    public synchronized void eepromOperation(EepromOperation eepromOperation) {
+        this.eepromOperation = eepromOperation;
+        steps.add(new ScriptStep.SetEepromOperation(0, eepromOperation));
+    }
+
+    public synchronized void eepromMode(EepromMode eepromMode) {
+        this.eepromMode = eepromMode;
+        steps.add(new ScriptStep.SetEepromMode(0, eepromMode));
+    }
+
+    public synchronized KeystrokeScript toScript() {
+        return new KeystrokeScript(steps);
+    }
+}
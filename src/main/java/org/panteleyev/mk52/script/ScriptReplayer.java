@@ -0,0 +1,141 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.script;
+
+import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.program.Address;
+
+/**
+ * Синхронное воспроизведение сценария нажатий клавиш.
+ */
+public final class ScriptReplayer {
+    /**
+     * Число шагов программы за один запуск, после которого сценарий считается неудачным.
+     */
+    public static final long DEFAULT_MAX_STEPS = 1_000_000;
+
+    /**
+     * Результат воспроизведения.
+     *
+     * @param passed  все проверки выполнены успешно
+     * @param line    строка сценария с первой неудачной проверкой или 0
+     * @param message описание неудачной проверки
+     * @param presses число нажатых клавиш
+     */
+    public record Result(boolean passed, int line, String message, long presses) {
+    }
+
+    /**
+     * Воспроизводит сценарий на новом включенном движке.
+     */
+    public static Result replay(KeystrokeScript script) {
+        var engine = new Engine(false, _ -> {});
+        engine.togglePower(true);
+        return replay(script, engine);
+    }
+
+    /**
+     * Воспроизводит сценарий до первой неудачной проверки с ограничением {@link #DEFAULT_MAX_STEPS}.
+     *
+     * @param script сценарий
+     * @param engine синхронный движок
+     * @return результат воспроизведения
+     */
+    public static Result replay(KeystrokeScript script, Engine engine) {
+        return replay(script, engine, DEFAULT_MAX_STEPS);
+    }
+
+    /**
+     * Воспроизводит сценарий до первой неудачной проверки. Программа, не остановившаяся за заданное число шагов,
+     * останавливается, сценарий считается неудачным.
+     *
+     * @param script   сценарий
+     * @param engine   синхронный движок
+     * @param maxSteps максимальное число шагов программы за один запуск
+     * @return результат воспроизведения
+     */
+    public static Result replay(KeystrokeScript script, Engine engine, long maxSteps) {
+        if (engine.isAsync()) {
+            throw new IllegalArgumentException("Script can be replayed on synchronous engine only");
+        }
+
+        var stepLimit = engine.getStepLimit();
+        engine.setStepLimit(maxSteps);
+        try {
+            return replaySteps(script, engine, maxSteps);
+        } finally {
+            engine.setStepLimit(stepLimit);
+        }
+    }
+
+    private static Result replaySteps(KeystrokeScript script, Engine engine, long maxSteps) {
+        long presses = 0;
+        for (var step : script.steps()) {
+            var failure = switch (step) {
+                case ScriptStep.Press press -> {
+                    var stopped = true;
+                    for (int i = 0; i < press.count() && stopped; i++) {
+                        engine.processButton(press.button());
+                        presses++;
+                        stopped = !engine.isStepLimitReached();
+                    }
+                    yield stopped ? null : "program did not stop in " + maxSteps + " steps";
+                }
+                case ScriptStep.Power power -> {
+                    engine.togglePower(power.on());
+                    yield null;
+                }
+                case ScriptStep.SetTrigonometricMode trig -> {
+                    engine.setTrigonometricMode(trig.mode());
+                    yield null;
+                }
+                case ScriptStep.SetEepromOperation eeprom -> {
+                    engine.setEepromOperation(eeprom.operation());
+                    yield null;
+                }
+                case ScriptStep.SetEepromMode eeprom -> {
+                    engine.setEepromMode(eeprom.mode());
+                    yield null;
+                }
+                case ScriptStep.ExpectDisplay display ->
+                        check("display", display.expected(), engine.displayProperty().get());
+                case ScriptStep.ExpectStack stack -> {
+                    var snapshot = engine.stack().getSnapshot();
+                    var actual = switch (stack.register()) {
+                        case X -> snapshot.x();
+                        case Y -> snapshot.y();
+                        case Z -> snapshot.z();
+                        case T -> snapshot.t();
+                        case X1 -> snapshot.x1();
+                    };
+                    yield checkHex(stack.register().name(), stack.expected(), actual);
+                }
+                case ScriptStep.ExpectRegister register -> checkHex(
+                        "R" + Integer.toHexString(register.register()).toUpperCase(),
+                        register.expected(),
+                        engine.registers().load(Address.of(register.register())));
+                case ScriptStep.ExpectProgramCounter pc ->
+                        check("PC", pc.expected(), engine.getProgramCounter());
+            };
+
+            if (failure != null) {
+                return new Result(false, step.line(), failure, presses);
+            }
+        }
+        return new Result(true, 0, "", presses);
+    }
+
+    private static String check(String name, Object expected, Object actual) {
+        return expected.equals(actual) ? null : name + ": expected " + expected + " but was " + actual;
+    }
+
+    private static String checkHex(String name, long expected, long actual) {
+        return expected == actual ? null
+                : String.format("%s: expected %X but was %X", name, expected, actual);
+    }
+
+    private ScriptReplayer() {
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.script;
+
+import org.panteleyev.mk52.eeprom.EepromMode;
+import org.panteleyev.mk52.eeprom.EepromOperation;
+import org.panteleyev.mk52.engine.IR;
+import org.panteleyev.mk52.engine.KeyboardButton;
+import org.panteleyev.mk52.engine.TrigonometricMode;
+import org.panteleyev.mk52.program.Address;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Шаг сценария нажатий клавиш.
+ */
+public sealed interface ScriptStep {
+    /**
+     * Номер строки сценария, начиная с 1.
+     */
+    int line();
+
+    enum StackRegister {
+        X,
+        Y,
+        Z,
+        T,
+        X1
+    }
+
+    record Press(int line, KeyboardButton button, int count) implements ScriptStep {
+        public Press {
+            requireNonNull(button);
+            if (count <= 0) {
+                throw new IllegalArgumentException("Repeat count must be positive");
+            }
+        }
+    }
+
+    record Power(int line, boolean on) implements ScriptStep {
+    }
+
+    record SetTrigonometricMode(int line, TrigonometricMode mode) implements ScriptStep {
+    }
+
+    record SetEepromOperation(int line, EepromOperation operation) implements ScriptStep {
+    }
+
+    record SetEepromMode(int line, EepromMode mode) implements ScriptStep {
+    }
+
+    record ExpectDisplay(int line, IR expected) implements ScriptStep {
+    }
+
+    record ExpectStack(int line, StackRegister register, long expected) implements ScriptStep {
+    }
+
+    record ExpectRegister(int line, int register, long expected) implements ScriptStep {
+    }
+
+    record ExpectProgramCounter(int line, Address expected) implements ScriptStep {
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.ui;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import org.panteleyev.mk52.engine.IR;
+
+/**
+ * Индикатор калькулятора.
+ * <p>
+ * Изображения символов готовятся один раз, при обновлении перерисовываются только изменившиеся разряды.
+ */
+final class LcdDisplay extends Canvas {
+    private static final int DIGITS = 12;
+    // Разряды индикатора слева направо: знак мантиссы, мантисса, знак порядка, порядок
+    private static final int[] POSITIONS = {8, 7, 6, 5, 4, 3, 2, 1, 0, 11, 10, 9};
+
+    private static final Font DIGIT_FONT = Font.font("Neat LCD", 30);
+    private static final Font DOT_FONT = Font.font("Neat LCD", 15);
+    private static final Color COLOR = Color.LIGHTGREEN;
+    // Цифра заходит на место точки
+    private static final double DIGIT_OVERLAP = 3;
+
+    private final Image[] digitGlyphs = new Image[16];
+    private final Image dotGlyph;
+    private final double digitAdvance;
+    private final double cellWidth;
+
+    private long indicator;
+    private int dots;
+    private double opacity;
+    private boolean drawn;
+
+    LcdDisplay() {
+        var digitWidth = 0.0;
+        var height = 0.0;
+        for (int i = 0; i < digitGlyphs.length; i++) {
+            digitGlyphs[i] = glyph(Integer.toHexString(i).toUpperCase(), DIGIT_FONT);
+            digitWidth = Math.max(digitWidth, digitGlyphs[i].getWidth());
+            height = Math.max(height, digitGlyphs[i].getHeight());
+        }
+        dotGlyph = glyph(".", DOT_FONT);
+        digitAdvance = digitWidth - DIGIT_OVERLAP;
+        cellWidth = digitAdvance + dotGlyph.getWidth();
+
+        setWidth(cellWidth * DIGITS);
+        setHeight(height);
+        show(IR.EMPTY, 1.0);
+    }
+
+    /**
+     * Показывает содержимое индикатора. Разряды, у которых не изменились цифра и точка, не перерисовываются.
+     */
+    void show(IR ir, double opacity) {
+        var newIndicator = ir.indicator();
+        var newDots = ir.dots();
+        var all = !drawn || opacity != this.opacity;
+
+        var gc = getGraphicsContext2D();
+        gc.setGlobalAlpha(opacity);
+        for (int cell = 0; cell < DIGITS; cell++) {
+            var position = POSITIONS[cell];
+            var digit = (int) (newIndicator >> (position * 4)) & 0xF;
+            var dot = (newDots >> position & 1) == 1;
+            if (!all
+                    && digit == ((int) (indicator >> (position * 4)) & 0xF)
+                    && dot == ((dots >> position & 1) == 1)) {
+                continue;
+            }
+
+            var x = cell * cellWidth;
+            gc.clearRect(x, 0, cellWidth, getHeight());
+            gc.drawImage(digitGlyphs[digit], x, getHeight() - digitGlyphs[digit].getHeight());
+            if (dot) {
+                gc.drawImage(dotGlyph, x + digitAdvance, getHeight() - dotGlyph.getHeight());
+            }
+        }
+
+        indicator = newIndicator;
+        dots = newDots;
+        this.opacity = opacity;
+        drawn = true;
+    }
+
+    private static Image glyph(String text, Font font) {
+        var node = new Text(text);
+        node.setFont(font);
+        node.setFill(COLOR);
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        return node.snapshot(parameters, null);
+    }
+}
@@ -4,17 +4,51 @@
  */
 package org.panteleyev.mk52.ui;
 
+import javafx.application.Platform;
 import javafx.scene.control.Label;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
 import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
 import static org.panteleyev.mk52.util.StringUtil.pcToString;
 
+/**
+ * Содержимое памяти программ.
+ * <p>
+ * Методы {@code store} и {@link #showPc(int)} можно вызывать из любого потока. Изменения накапливаются и
+ * применяются в потоке FX одним заданием, обновляются только изменившиеся ячейки.
+ */
 class MemoryPanel extends VBox {
-    private final Label[] addrs = new Label[PROGRAM_MEMORY_SIZE];
+    private static final String[] HEX = new String[256];
+    private static final String[] ADDRESSES = new String[PROGRAM_MEMORY_SIZE];
+    // Выключенная ячейка
+    private static final int BLANK = -1;
+    private static final String BLANK_TEXT = "  ";
+
+    static {
+        for (int i = 0; i < HEX.length; i++) {
+            HEX[i] = String.format("%02X", i).intern();
+        }
+        for (int i = 0; i < ADDRESSES.length; i++) {
+            ADDRESSES[i] = pcToString(i) + ":";
+        }
+    }
+
     private final Label[] cells = new Label[PROGRAM_MEMORY_SIZE];
-    private int previousPc = 0;
+    // Последние полученные коды и коды, отображаемые сейчас
+    private final AtomicIntegerArray codes = new AtomicIntegerArray(PROGRAM_MEMORY_SIZE);
+    private final int[] shown = new int[PROGRAM_MEMORY_SIZE];
+
+    // Счетчик команд выделяется отдельной меткой поверх адреса
+    private final Label pcLabel = new Label(ADDRESSES[0]);
+    private final AtomicInteger pc = new AtomicInteger();
+    private int shownPc = 0;
+
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
 
     public MemoryPanel() {
         super(5);
@@ -31,44 +65,72 @@ class MemoryPanel extends VBox {
                 column = 0;
             }
 
-            addrs[i] = new RegisterNameLabel(pcToString(i) + ":");
-            cells[i] = new RegisterContentLabel("00");
-            grid.add(addrs[i], column++, row);
+            cells[i] = new RegisterContentLabel(HEX[0]);
+            grid.add(new RegisterNameLabel(ADDRESSES[i]), column++, row);
             grid.add(cells[i], column++, row);
         }
 
+        pcLabel.getStyleClass().add("memoryPc");
+        pcLabel.setMaxWidth(Double.MAX_VALUE);
+        grid.add(pcLabel, 0, 0);
+
         getChildren().addAll(new RegisterNameLabel("Память:"), grid);
     }
 
     public void clear() {
-        for (var cell : cells) {
-            cell.setText("00");
-        }
+        fill(0);
     }
 
     public void turnOff() {
-        for (var cell : cells) {
-            cell.setText("  ");
-        }
+        fill(BLANK);
     }
 
     public void store(int address, int code) {
-        cells[address].setText(String.format("%02X", code));
+        codes.set(address, code & 0xFF);
+        scheduleUpdate();
     }
 
     public void store(int[] codes) {
         for (int i = 0; i < Math.min(codes.length, cells.length); i++) {
-            store(i, codes[i]);
+            this.codes.set(i, codes[i] & 0xFF);
         }
+        scheduleUpdate();
     }
 
     public void showPc(int pc) {
-        addrs[previousPc].getStyleClass().remove("registerContentHighlighted");
-        addrs[previousPc].getStyleClass().add("registerContentLabel");
+        this.pc.set(pc);
+        scheduleUpdate();
+    }
+
+    private void fill(int code) {
+        for (int i = 0; i < cells.length; i++) {
+            codes.set(i, code);
+        }
+        scheduleUpdate();
+    }
 
-        addrs[pc].getStyleClass().remove("registerContentLabel");
-        addrs[pc].getStyleClass().add("registerContentHighlighted");
+    private void scheduleUpdate() {
+        if (updateScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::update);
+        }
+    }
 
-        previousPc = pc;
+    private void update() {
+        updateScheduled.set(false);
+
+        for (int i = 0; i < cells.length; i++) {
+            var code = codes.get(i);
+            if (code != shown[i]) {
+                cells[i].setText(code == BLANK ? BLANK_TEXT : HEX[code]);
+                shown[i] = code;
+            }
+        }
+
+        var newPc = pc.get();
+        if (newPc != shownPc) {
+            pcLabel.setText(ADDRESSES[newPc]);
+            GridPane.setConstraints(pcLabel, (newPc % 10) * 2, newPc / 10);
+            shownPc = newPc;
+        }
     }
 }
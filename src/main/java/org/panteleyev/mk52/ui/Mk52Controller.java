@@ -5,21 +5,28 @@
 package org.panteleyev.mk52.ui;
 
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.event.ActionEvent;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.Alert;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.Label;
+import javafx.scene.control.Menu;
 import javafx.scene.control.MenuBar;
+import javafx.scene.control.MenuItem;
+import javafx.scene.control.RadioMenuItem;
 import javafx.scene.control.SeparatorMenuItem;
+import javafx.scene.control.TextInputDialog;
 import javafx.scene.control.ToggleButton;
+import javafx.scene.control.ToggleGroup;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyCodeCombination;
 import javafx.scene.input.KeyCombination;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
-import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
@@ -27,24 +34,46 @@ import javafx.stage.WindowEvent;
 import org.controlsfx.control.SegmentedButton;
 import org.panteleyev.fx.Controller;
 import org.panteleyev.mk52.ApplicationFiles;
+import org.panteleyev.mk52.Mk52Application;
+import org.panteleyev.mk52.eeprom.EepromLibrary;
 import org.panteleyev.mk52.eeprom.EepromMode;
 import org.panteleyev.mk52.eeprom.EepromOperation;
+import org.panteleyev.mk52.eeprom.MappedEepromStorage;
 import org.panteleyev.mk52.engine.Engine;
 import org.panteleyev.mk52.engine.KeyboardButton;
 import org.panteleyev.mk52.engine.MemoryUpdateCallback;
 import org.panteleyev.mk52.engine.RegistersUpdateCallback;
+import org.panteleyev.mk52.engine.SpeedMode;
 import org.panteleyev.mk52.engine.TrigonometricMode;
+import org.panteleyev.mk52.jfr.DisplayPublishEvent;
+import org.panteleyev.mk52.management.EngineMonitor;
+import org.panteleyev.mk52.program.Address;
+import org.panteleyev.mk52.program.Assembler;
+import org.panteleyev.mk52.program.Disassembler;
 import org.panteleyev.mk52.program.StepExecutionResult;
+import org.panteleyev.mk52.script.ScriptRecorder;
+import org.panteleyev.mk52.util.HexDumpReader;
+import org.panteleyev.mk52.util.HexDumpWriter;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.logging.Level;
 
 import static org.panteleyev.fx.BoxFactory.hBox;
 import static org.panteleyev.fx.BoxFactory.vBox;
@@ -66,46 +95,92 @@ public class Mk52Controller extends Controller {
 
     public static final FileChooser.ExtensionFilter EXTENSION_FILTER =
             new FileChooser.ExtensionFilter("Дамп памяти", "*.txt");
+    public static final FileChooser.ExtensionFilter PROGRAM_EXTENSION_FILTER =
+            new FileChooser.ExtensionFilter("Программа", "*.asm");
+    public static final FileChooser.ExtensionFilter SCRIPT_EXTENSION_FILTER =
+            new FileChooser.ExtensionFilter("Сценарий", "*.mk52");
+
+    // Период автосохранения состояния, секунды
+    private static final long AUTOSAVE_PERIOD = 60;
 
     private final RegistersUpdateCallback registersUpdateCallback = new RegistersUpdateCallback() {
         @Override
         public void update(StepExecutionResult snapshot) {
+            var event = DisplayPublishEvent.isTypeEnabled() ? new DisplayPublishEvent() : null;
+            if (event != null) {
+                event.begin();
+            }
+            engine.metrics().uiUpdatePosted();
             Platform.runLater(() -> {
-                stackAndRegistersPanel.displaySnapshot(snapshot);
-                memoryPanel.showPc(snapshot.programCounter().getEffectiveAddress());
+                if (stackAndRegistersPanel != null) {
+                    stackAndRegistersPanel.displaySnapshot(snapshot);
+                }
+                engine.metrics().uiUpdateApplied();
+                if (event != null && event.shouldCommit()) {
+                    event.pc = snapshot.programCounter().getEffectiveAddress();
+                    event.commit();
+                }
             });
+            var panel = memoryPanel;
+            if (panel != null) {
+                panel.showPc(snapshot.programCounter().getEffectiveAddress());
+            }
         }
     };
 
     private final MemoryUpdateCallback memoryUpdateCallback = new MemoryUpdateCallback() {
         @Override
         public void store(int address, int code) {
-            Platform.runLater(() -> memoryPanel.store(address, code));
+            var panel = memoryPanel;
+            if (panel != null) {
+                panel.store(address, code);
+            }
         }
 
         @Override
         public void store(int[] codes) {
-            Platform.runLater(() -> memoryPanel.store(codes));
+            var panel = memoryPanel;
+            if (panel != null) {
+                panel.store(codes);
+            }
         }
     };
 
-    private final StackAndRegistersPanel stackAndRegistersPanel = new StackAndRegistersPanel();
-    private final MemoryPanel memoryPanel = new MemoryPanel();
+    // Панели инструментов создаются при первом показе
+    private StackAndRegistersPanel stackAndRegistersPanel;
+    private volatile MemoryPanel memoryPanel;
 
     private final Engine engine = new Engine(true, registersUpdateCallback, memoryUpdateCallback);
-    private final Consumer<KeyboardButton> keyboardButtonConsumer = engine::processButton;
-
-    private final Label[] digitCells = new Label[]{
-            new Label("F"), new Label("F"), new Label("F"), new Label("F"),
-            new Label("F"), new Label("F"), new Label("F"), new Label("F"),
-            new Label("F"), new Label("F"), new Label("F"), new Label("F")
-    };
-    private final Label[] dotCells = new Label[]{
-            new Label(" "), new Label(" "), new Label(" "), new Label(" "),
-            new Label(" "), new Label(" "), new Label(" "), new Label(" "),
-            new Label(" "), new Label(" "), new Label(" "), new Label(" ")
+    private final ScriptRecorder scriptRecorder = new ScriptRecorder();
+    private final HexDumpReader memoryDumpReader = new HexDumpReader(2);
+    private final HexDumpWriter memoryDumpWriter = new HexDumpWriter(2, 10);
+
+    private final Map<TrigonometricMode, ToggleButton> trigonometricButtons = new EnumMap<>(TrigonometricMode.class);
+    private final Map<EepromOperation, ToggleButton> eepromOperationButtons = new EnumMap<>(EepromOperation.class);
+    private final Map<EepromMode, ToggleButton> eepromModeButtons = new EnumMap<>(EepromMode.class);
+
+    private final ScheduledExecutorService autosaveExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        var thread = new Thread(runnable, "Autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> autosave;
+
+    private final Menu eepromBankMenu = new Menu("Банк ППЗУ");
+    private final MenuItem exportEepromMenuItem = menuItem("Экспорт ППЗУ...", _ -> onExportEeprom());
+    private final MenuItem importEepromMenuItem = menuItem("Импорт ППЗУ...", _ -> onImportEeprom());
+    private volatile EepromLibrary eepromLibrary;
+    // Открытие файлов ППЗУ в фоне
+    private CompletableFuture<Void> eepromLoading = CompletableFuture.completedFuture(null);
+    // Выбранный банк библиотеки, null - встроенное ППЗУ
+    private String eepromBank;
+    private final Consumer<KeyboardButton> keyboardButtonConsumer = button -> {
+        scriptRecorder.press(button);
+        engine.processButton(button);
     };
 
+    private final LcdDisplay lcdDisplay = new LcdDisplay();
+
     private final ToggleButton onButton = new ToggleButton("Вкл");
 
     private final BorderPane root = new BorderPane();
@@ -139,27 +214,20 @@ public class Mk52Controller extends Controller {
                 return;
             }
 
-            var ri = newValue.indicator();
-            var dots = newValue.dots();
-            var opacity = engine.automaticMode().get() ? 0.3 : 1.0;
-
-            for (int i = 0; i < 12; i++) {
-                digitCells[i].setText(Long.toString(ri & 0xF, 16).toUpperCase());
-                digitCells[i].setOpacity(opacity);
-                dotCells[i].setText((dots & 1) == 1 ? "." : " ");
-                dotCells[i].setOpacity(opacity);
-                ri = ri >> 4;
-                dots = dots >> 1;
-            }
+            lcdDisplay.show(newValue, engine.automaticMode().get() ? 0.3 : 1.0);
         });
 
         setupWindow(root);
         getStage().sizeToScene();
+        getStage().iconifiedProperty().addListener((_, _, iconified) -> engine.setDisplayVisible(!iconified));
 
         setupAccelerators();
 
-        files().read(ApplicationFiles.AppFile.EEPROM, engine::importEeprom);
+        openEeprom();
+        registerMonitor();
 
+        // Восстановленное состояние включает калькулятор, включение после него не сбрасывает регистры и индикатор
+        restoreState();
         onButton.fire();
     }
 
@@ -174,11 +242,25 @@ public class Mk52Controller extends Controller {
                         menuItem("Сохранить...", _ -> onSaveMemoryDump()),
                         menuItem("Загрузить...", _ -> onLoadMemoryDump()),
                         new SeparatorMenuItem(),
+                        menuItem("Сохранить программу...", _ -> onSaveProgram()),
+                        menuItem("Загрузить программу...", _ -> onLoadProgram()),
+                        new SeparatorMenuItem(),
+                        menuItem("Сохранить сеанс...", _ -> onSaveSession()),
+                        new SeparatorMenuItem(),
+                        exportEepromMenuItem,
+                        importEepromMenuItem,
+                        eepromBankMenu,
+                        new SeparatorMenuItem(),
+                        autosaveMenuItem(),
+                        new SeparatorMenuItem(),
                         menuItem("Выход", _ -> onExit())
                 ),
                 menu("Инструменты",
                         checkMenuItem("Регистры и стек", false, SHORTCUT_1, this::onRegistersAndStackPanel),
-                        checkMenuItem("Память", false, SHORTCUT_2, this::onMemoryPanel)
+                        checkMenuItem("Память", false, SHORTCUT_2, this::onMemoryPanel),
+                        new SeparatorMenuItem(),
+                        speedMenu(),
+                        debugMenu()
                 ),
                 menu("Справка",
                         menuItem("О программе", _ -> new AboutDialog(this).showAndWait())
@@ -191,37 +273,7 @@ public class Mk52Controller extends Controller {
         pane.getStyleClass().add("lcdPanel");
         pane.setMouseTransparent(true);
 
-        for (var l : digitCells) {
-            l.getStyleClass().add("lcd");
-        }
-        for (var d : dotCells) {
-            d.getStyleClass().add("dotLcd");
-        }
-        var cellsPane = new HBox(0);
-        cellsPane.getChildren().addAll(
-                // Знак мантиссы
-                digitCells[8], dotCells[8],
-                // Мантисса
-                digitCells[7], dotCells[7],
-                digitCells[6], dotCells[6],
-                digitCells[5], dotCells[5],
-                digitCells[4], dotCells[4],
-                digitCells[3], dotCells[3],
-                digitCells[2], dotCells[2],
-                digitCells[1], dotCells[1],
-                digitCells[0], dotCells[0],
-                // Знак порядка
-                digitCells[11], dotCells[11],
-                // Порядок
-                digitCells[10], dotCells[10],
-                digitCells[9], dotCells[9]
-        );
-        cellsPane.setAlignment(Pos.BOTTOM_LEFT);
-        for (var dc : digitCells) {
-            HBox.setMargin(dc, new Insets(0, 0, 0, -3));
-        }
-
-        pane.setCenter(cellsPane);
+        pane.setCenter(lcdDisplay);
         return pane;
     }
 
@@ -234,36 +286,44 @@ public class Mk52Controller extends Controller {
         var powerSwitch = new SegmentedButton(offButton, onButton);
 
         var eraseButton = new ToggleButton("С");
-        eraseButton.setOnAction(_ -> engine.setEepromOperation(EepromOperation.ERASE));
+        eraseButton.setOnAction(_ -> onEepromOperation(EepromOperation.ERASE));
         eraseButton.setFocusTraversable(false);
         var writeButton = new ToggleButton("З");
-        writeButton.setOnAction(_ -> engine.setEepromOperation(EepromOperation.WRITE));
+        writeButton.setOnAction(_ -> onEepromOperation(EepromOperation.WRITE));
         writeButton.setFocusTraversable(false);
         var readButton = new ToggleButton("СЧ");
-        readButton.setOnAction(_ -> engine.setEepromOperation(EepromOperation.READ));
+        readButton.setOnAction(_ -> onEepromOperation(EepromOperation.READ));
         readButton.setFocusTraversable(false);
         var eepromModeSwitch = new SegmentedButton(eraseButton, writeButton, readButton);
+        eepromOperationButtons.put(EepromOperation.ERASE, eraseButton);
+        eepromOperationButtons.put(EepromOperation.WRITE, writeButton);
+        eepromOperationButtons.put(EepromOperation.READ, readButton);
         readButton.fire();
 
         var radianButton = new ToggleButton("Р");
-        radianButton.setOnAction(_ -> engine.setTrigonometricMode(TrigonometricMode.RADIAN));
+        radianButton.setOnAction(_ -> onTrigonometricMode(TrigonometricMode.RADIAN));
         radianButton.setFocusTraversable(false);
         var gRadianButton = new ToggleButton("ГРД");
-        gRadianButton.setOnAction(_ -> engine.setTrigonometricMode(TrigonometricMode.GRADIAN));
+        gRadianButton.setOnAction(_ -> onTrigonometricMode(TrigonometricMode.GRADIAN));
         gRadianButton.setFocusTraversable(false);
         var degreeButton = new ToggleButton("Г");
-        degreeButton.setOnAction(_ -> engine.setTrigonometricMode(TrigonometricMode.DEGREE));
+        degreeButton.setOnAction(_ -> onTrigonometricMode(TrigonometricMode.DEGREE));
         degreeButton.setFocusTraversable(false);
         var trigonometricSwitch = new SegmentedButton(radianButton, gRadianButton, degreeButton);
+        trigonometricButtons.put(TrigonometricMode.RADIAN, radianButton);
+        trigonometricButtons.put(TrigonometricMode.GRADIAN, gRadianButton);
+        trigonometricButtons.put(TrigonometricMode.DEGREE, degreeButton);
         radianButton.fire();
 
         var dataButton = new ToggleButton("Д");
-        dataButton.setOnAction(_ -> engine.setEepromMode(EepromMode.DATA));
+        dataButton.setOnAction(_ -> onEepromMode(EepromMode.DATA));
         dataButton.setFocusTraversable(false);
         var programButton = new ToggleButton("П");
-        programButton.setOnAction(_ -> engine.setEepromMode(EepromMode.PROGRAM));
+        programButton.setOnAction(_ -> onEepromMode(EepromMode.PROGRAM));
         programButton.setFocusTraversable(false);
         var eepromTypeSwitch = new SegmentedButton(dataButton, programButton);
+        eepromModeButtons.put(EepromMode.DATA, dataButton);
+        eepromModeButtons.put(EepromMode.PROGRAM, programButton);
         dataButton.fire();
 
         var pane = gridPane(List.of(gridRow(
@@ -373,7 +433,7 @@ public class Mk52Controller extends Controller {
     private void onRegistersAndStackPanel(ActionEvent event) {
         if (event.getSource() instanceof CheckMenuItem menuItem) {
             if (menuItem.isSelected()) {
-                toolBox.getChildren().addFirst(stackAndRegistersPanel);
+                toolBox.getChildren().addFirst(stackAndRegistersPanel());
             } else {
                 toolBox.getChildren().remove(stackAndRegistersPanel);
             }
@@ -384,7 +444,7 @@ public class Mk52Controller extends Controller {
     private void onMemoryPanel(ActionEvent event) {
         if (event.getSource() instanceof CheckMenuItem menuItem) {
             if (menuItem.isSelected()) {
-                toolBox.getChildren().addLast(memoryPanel);
+                toolBox.getChildren().addLast(memoryPanel());
             } else {
                 toolBox.getChildren().remove(memoryPanel);
             }
@@ -398,119 +458,390 @@ public class Mk52Controller extends Controller {
             return;
         }
 
-        try (var out = new OutputStreamWriter(new FileOutputStream(file))) {
-            var bytes = engine.getMemoryBytes();
-            for (int i = 0; i < bytes.length; i++) {
-                if (i != 0 && i % 10 == 0) {
-                    out.write("\n");
-                }
-                out.write(String.format("%02X ", bytes[i]));
-            }
-            out.flush();
+        var bytes = engine.getMemoryBytes();
+        memoryDumpWriter.write(file.toPath(), bytes, bytes.length);
+    }
+
+    private void onLoadMemoryDump() {
+        var file = fileChooser("Загрузить дамп памяти", List.of(EXTENSION_FILTER)).showOpenDialog(getStage());
+        if (file == null) {
+            return;
+        }
+
+        var codes = new int[PROGRAM_MEMORY_SIZE];
+        memoryDumpReader.read(file.toPath(), codes);
+        engine.loadMemoryBytes(codes);
+    }
+
+    private void onSaveProgram() {
+        var file = fileChooser("Сохранить программу", List.of(PROGRAM_EXTENSION_FILTER)).showSaveDialog(getStage());
+        if (file == null) {
+            return;
+        }
+
+        try (var out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(Disassembler.disassemble(engine.getMemoryBytes()));
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
 
-    private void onLoadMemoryDump() {
-        var file = fileChooser("Загрузить дамп памяти", List.of(EXTENSION_FILTER)).showOpenDialog(getStage());
+    private void onLoadProgram() {
+        var file = fileChooser("Загрузить программу", List.of(PROGRAM_EXTENSION_FILTER)).showOpenDialog(getStage());
         if (file == null) {
             return;
         }
 
-        try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file)))) {
-            var codes = new int[PROGRAM_MEMORY_SIZE];
-            var index = 0;
+        try (var reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            engine.loadMemoryBytes(Assembler.assemble(reader));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 
-            var lines = reader.lines().toList();
-            outerLoop:
-            for (var line : lines) {
-                if (line.startsWith("#")) {
-                    continue;
-                }
-                var strings = line.trim().split(" ");
-                for (var str : strings) {
-                    if (index >= codes.length) {
-                        break outerLoop;
-                    }
-                    codes[index++] = Integer.parseInt(str, 16);
-                }
-            }
-            engine.loadMemoryBytes(codes);
+    private void onSaveSession() {
+        var file = fileChooser("Сохранить сеанс", List.of(SCRIPT_EXTENSION_FILTER)).showSaveDialog(getStage());
+        if (file == null) {
+            return;
+        }
+
+        try (var out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            out.write(scriptRecorder.toScript().format());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void onExportEeprom() {
+        var file = fileChooser("Экспорт ППЗУ", List.of(EXTENSION_FILTER)).showSaveDialog(getStage());
+        if (file == null) {
+            return;
+        }
+
+        try (var out = new FileOutputStream(file)) {
+            engine.exportEeprom(out);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void onImportEeprom() {
+        var file = fileChooser("Импорт ППЗУ", List.of(EXTENSION_FILTER)).showOpenDialog(getStage());
+        if (file == null) {
+            return;
+        }
+
+        try (var in = new FileInputStream(file)) {
+            engine.importEeprom(in);
         } catch (IOException ex) {
             throw new UncheckedIOException(ex);
         }
     }
 
+    private void onEepromOperation(EepromOperation eepromOperation) {
+        scriptRecorder.eepromOperation(eepromOperation);
+        engine.setEepromOperation(eepromOperation);
+    }
+
+    private void onTrigonometricMode(TrigonometricMode trigonometricMode) {
+        scriptRecorder.trigonometricMode(trigonometricMode);
+        engine.setTrigonometricMode(trigonometricMode);
+    }
+
+    private void onEepromMode(EepromMode eepromMode) {
+        scriptRecorder.eepromMode(eepromMode);
+        engine.setEepromMode(eepromMode);
+    }
+
     private void onPowerOn() {
+        scriptRecorder.power(true);
         engine.togglePower(true);
-        stackAndRegistersPanel.turnOn();
-        memoryPanel.clear();
+        if (stackAndRegistersPanel != null) {
+            stackAndRegistersPanel.turnOn();
+        }
+        if (memoryPanel != null) {
+            memoryPanel.clear();
+        }
     }
 
     private void onPowerOff() {
+        scriptRecorder.power(false);
         engine.togglePower(false);
-        stackAndRegistersPanel.turnOff();
-        memoryPanel.turnOff();
+        if (stackAndRegistersPanel != null) {
+            stackAndRegistersPanel.turnOff();
+        }
+        if (memoryPanel != null) {
+            memoryPanel.turnOff();
+        }
+    }
+
+    private StackAndRegistersPanel stackAndRegistersPanel() {
+        if (stackAndRegistersPanel == null) {
+            stackAndRegistersPanel = new StackAndRegistersPanel();
+            if (engine.isPowered()) {
+                stackAndRegistersPanel.turnOn();
+                stackAndRegistersPanel.displaySnapshot(engine.getSnapshot());
+            } else {
+                stackAndRegistersPanel.turnOff();
+            }
+        }
+        return stackAndRegistersPanel;
+    }
+
+    private MemoryPanel memoryPanel() {
+        if (memoryPanel == null) {
+            var panel = new MemoryPanel();
+            // Панель становится видна обратным вызовам до заполнения, чтобы не пропустить изменения
+            memoryPanel = panel;
+            if (engine.isPowered()) {
+                panel.store(engine.getMemoryBytes());
+                panel.showPc(engine.getProgramCounter().getEffectiveAddress());
+            } else {
+                panel.turnOff();
+            }
+        }
+        return memoryPanel;
     }
 
     @Override
     protected void onWindowHiding() {
-        files().write(ApplicationFiles.AppFile.EEPROM, engine::exportEeprom);
+        autosaveExecutor.shutdownNow();
+        if (engine.isPowered()) {
+            files().write(ApplicationFiles.AppFile.STATE, engine::writeState);
+        } else {
+            files().delete(ApplicationFiles.AppFile.STATE);
+        }
+        eepromLoading.handle((_, _) -> null).join();
+        engine.closeEeprom();
+        if (eepromLibrary != null) {
+            eepromLibrary.close();
+        }
         super.onWindowHiding();
     }
 
+    private void restoreState() {
+        try {
+            files().read(ApplicationFiles.AppFile.STATE, engine::readState);
+        } catch (IllegalArgumentException ex) {
+            Mk52Application.logger().log(Level.WARNING, "Failed to restore state", ex);
+            return;
+        }
+
+        // Переключатели показывают восстановленное состояние
+        trigonometricButtons.get(engine.getTrigonometricMode()).setSelected(true);
+        eepromOperationButtons.get(engine.getEepromOperation()).setSelected(true);
+        eepromModeButtons.get(engine.getEepromMode()).setSelected(true);
+    }
+
+    private Menu speedMenu() {
+        var group = new ToggleGroup();
+        var menu = new Menu("Скорость");
+        for (var speedMode : SpeedMode.values()) {
+            var item = new RadioMenuItem(switch (speedMode) {
+                case REAL_TIME -> "Реальная";
+                case SCALED -> "Ускоренная";
+                case INSTANT -> "Без задержек";
+            });
+            item.setToggleGroup(group);
+            item.setSelected(speedMode == engine.getSpeedMode());
+            item.setOnAction(_ -> engine.setSpeedMode(speedMode));
+            menu.getItems().add(item);
+        }
+        return menu;
+    }
+
+    private Menu debugMenu() {
+        var stepOver = new MenuItem("Шаг с обходом ПП");
+        stepOver.setAccelerator(new KeyCodeCombination(KeyCode.F10));
+        stepOver.setOnAction(_ -> engine.stepOver());
+
+        var stepOut = new MenuItem("Выход из подпрограммы");
+        stepOut.setAccelerator(new KeyCodeCombination(KeyCode.F11, KeyCombination.SHIFT_DOWN));
+        stepOut.setOnAction(_ -> engine.stepOut());
+
+        var runTo = new MenuItem("Исполнить до адреса...");
+        runTo.setOnAction(_ -> onRunTo());
+
+        return new Menu("Отладка", null, stepOver, stepOut, runTo);
+    }
+
+    private void onRunTo() {
+        var dialog = new TextInputDialog();
+        dialog.setTitle("Исполнить до адреса");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Адрес:");
+        dialog.showAndWait()
+                .map(String::trim)
+                .filter(text -> text.matches("[0-9A-Fa-f]{2}"))
+                .ifPresent(text -> engine.runTo(Address.of(Integer.parseInt(text, 16))));
+    }
+
+    private CheckMenuItem autosaveMenuItem() {
+        var menuItem = new CheckMenuItem("Автосохранение");
+        menuItem.setOnAction(_ -> {
+            if (menuItem.isSelected()) {
+                autosave = autosaveExecutor.scheduleWithFixedDelay(this::autosaveState,
+                        AUTOSAVE_PERIOD, AUTOSAVE_PERIOD, TimeUnit.SECONDS);
+            } else if (autosave != null) {
+                autosave.cancel(false);
+            }
+        });
+        return menuItem;
+    }
+
+    private void autosaveState() {
+        // Исполняемая программа сохраняется при выходе или после остановки
+        if (engine.isPowered() && !engine.automaticMode().get()) {
+            files().write(ApplicationFiles.AppFile.STATE, engine::writeState);
+        }
+    }
+
+    /**
+     * Открывает образ ППЗУ и библиотеку банков в фоновом потоке. До завершения работает пустое ППЗУ в памяти,
+     * экспорт и импорт недоступны.
+     */
+    private void openEeprom() {
+        eepromBankMenu.setDisable(true);
+        exportEepromMenuItem.setDisable(true);
+        importEepromMenuItem.setDisable(true);
+        eepromLoading = CompletableFuture.runAsync(() -> {
+            var storage = MappedEepromStorage.open(files().getPath(ApplicationFiles.AppFile.EEPROM_IMAGE));
+            engine.setEepromStorage(storage);
+            if (storage.isCreated()) {
+                // Однократный перенос содержимого из текстового файла прежних версий
+                files().read(ApplicationFiles.AppFile.EEPROM, engine::importEeprom);
+            }
+            eepromLibrary = EepromLibrary.open(files().getPath(ApplicationFiles.AppFile.EEPROM_LIBRARY));
+        }).whenComplete((_, ex) -> Platform.runLater(() -> {
+            // При ошибке остается ППЗУ в памяти
+            exportEepromMenuItem.setDisable(false);
+            importEepromMenuItem.setDisable(false);
+            if (ex != null) {
+                var cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                Mk52Application.logger().log(Level.SEVERE, "Failed to open EEPROM", cause);
+                new Alert(Alert.AlertType.ERROR, "Не удалось открыть ППЗУ: " + cause.getMessage()).showAndWait();
+            } else {
+                updateEepromBankMenu();
+                eepromBankMenu.setDisable(false);
+            }
+        }));
+    }
+
+    private void registerMonitor() {
+        try {
+            EngineMonitor.register("main", engine);
+        } catch (IllegalStateException ex) {
+            Mk52Application.logger().log(Level.WARNING, "Failed to register engine MBean", ex);
+        }
+    }
+
+    private void updateEepromBankMenu() {
+        var group = new ToggleGroup();
+        var items = new ArrayList<MenuItem>();
+
+        var builtIn = new RadioMenuItem("Встроенное");
+        builtIn.setToggleGroup(group);
+        builtIn.setSelected(eepromBank == null);
+        builtIn.setOnAction(_ -> selectEepromBank(null));
+        items.add(builtIn);
+
+        for (var name : eepromLibrary.bankNames()) {
+            var item = new RadioMenuItem(name);
+            item.setToggleGroup(group);
+            item.setSelected(name.equals(eepromBank));
+            item.setOnAction(_ -> selectEepromBank(name));
+            items.add(item);
+        }
+
+        items.add(new SeparatorMenuItem());
+        items.add(menuItem("Новый банк...", _ -> onNewEepromBank()));
+        eepromBankMenu.getItems().setAll(items);
+    }
+
+    private void selectEepromBank(String name) {
+        engine.setEepromStorage(name == null
+                ? MappedEepromStorage.open(files().getPath(ApplicationFiles.AppFile.EEPROM_IMAGE))
+                : eepromLibrary.bank(name));
+        eepromBank = name;
+        updateEepromBankMenu();
+    }
+
+    private void onNewEepromBank() {
+        var dialog = new TextInputDialog();
+        dialog.setTitle("Новый банк ППЗУ");
+        dialog.setHeaderText(null);
+        dialog.setContentText("Название:");
+        // Пустое или существующее имя не принимается
+        dialog.getDialogPane().lookupButton(ButtonType.OK).disableProperty().bind(Bindings.createBooleanBinding(() -> {
+            var name = dialog.getEditor().getText().trim();
+            return name.isEmpty() || eepromLibrary.contains(name);
+        }, dialog.getEditor().textProperty()));
+        dialog.showAndWait()
+                .map(String::trim)
+                .ifPresent(name -> {
+                    try {
+                        eepromLibrary.addBank(name);
+                    } catch (IllegalArgumentException | UncheckedIOException ex) {
+                        Mk52Application.logger().log(Level.WARNING, "Failed to add EEPROM bank", ex);
+                        new Alert(Alert.AlertType.ERROR, "Не удалось создать банк ППЗУ: " + ex.getMessage())
+                                .showAndWait();
+                        return;
+                    }
+                    selectEepromBank(name);
+                });
+    }
+
     private void setupAccelerators() {
         // Цифры
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT0), () -> engine.processButton(KeyboardButton.D0));
+                new KeyCodeCombination(KeyCode.DIGIT0), () -> keyboardButtonConsumer.accept(KeyboardButton.D0));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT1), () -> engine.processButton(KeyboardButton.D1));
+                new KeyCodeCombination(KeyCode.DIGIT1), () -> keyboardButtonConsumer.accept(KeyboardButton.D1));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT2), () -> engine.processButton(KeyboardButton.D2));
+                new KeyCodeCombination(KeyCode.DIGIT2), () -> keyboardButtonConsumer.accept(KeyboardButton.D2));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT3), () -> engine.processButton(KeyboardButton.D3));
+                new KeyCodeCombination(KeyCode.DIGIT3), () -> keyboardButtonConsumer.accept(KeyboardButton.D3));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT4), () -> engine.processButton(KeyboardButton.D4));
+                new KeyCodeCombination(KeyCode.DIGIT4), () -> keyboardButtonConsumer.accept(KeyboardButton.D4));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT5), () -> engine.processButton(KeyboardButton.D5));
+                new KeyCodeCombination(KeyCode.DIGIT5), () -> keyboardButtonConsumer.accept(KeyboardButton.D5));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT6), () -> engine.processButton(KeyboardButton.D6));
+                new KeyCodeCombination(KeyCode.DIGIT6), () -> keyboardButtonConsumer.accept(KeyboardButton.D6));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT7), () -> engine.processButton(KeyboardButton.D7));
+                new KeyCodeCombination(KeyCode.DIGIT7), () -> keyboardButtonConsumer.accept(KeyboardButton.D7));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT8), () -> engine.processButton(KeyboardButton.D8));
+                new KeyCodeCombination(KeyCode.DIGIT8), () -> keyboardButtonConsumer.accept(KeyboardButton.D8));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.DIGIT9), () -> engine.processButton(KeyboardButton.D9));
+                new KeyCodeCombination(KeyCode.DIGIT9), () -> keyboardButtonConsumer.accept(KeyboardButton.D9));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.COMMA), () -> engine.processButton(KeyboardButton.DOT));
+                new KeyCodeCombination(KeyCode.COMMA), () -> keyboardButtonConsumer.accept(KeyboardButton.DOT));
 
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.UP), () -> engine.processButton(KeyboardButton.PUSH));
+                new KeyCodeCombination(KeyCode.UP), () -> keyboardButtonConsumer.accept(KeyboardButton.PUSH));
 
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.F), () -> engine.processButton(KeyboardButton.F));
+                new KeyCodeCombination(KeyCode.F), () -> keyboardButtonConsumer.accept(KeyboardButton.F));
         getStage().getScene().getAccelerators().put(
-                new KeyCodeCombination(KeyCode.K), () -> engine.processButton(KeyboardButton.K));
+                new KeyCodeCombination(KeyCode.K), () -> keyboardButtonConsumer.accept(KeyboardButton.K));
 
         getStage().getScene().getAccelerators().put(
                 new KeyCodeCombination(KeyCode.EQUALS, KeyCombination.SHIFT_DOWN),
-                () -> engine.processButton(KeyboardButton.PLUS));
+                () -> keyboardButtonConsumer.accept(KeyboardButton.PLUS));
         getStage().getScene().getAccelerators().put(
                 new KeyCodeCombination(KeyCode.MINUS),
-                () -> engine.processButton(KeyboardButton.MINUS));
+                () -> keyboardButtonConsumer.accept(KeyboardButton.MINUS));
         getStage().getScene().getAccelerators().put(
                 new KeyCodeCombination(KeyCode.DIGIT8, KeyCombination.SHIFT_DOWN),
-                () -> engine.processButton(KeyboardButton.MULTIPLICATION));
+                () -> keyboardButtonConsumer.accept(KeyboardButton.MULTIPLICATION));
         getStage().getScene().getAccelerators().put(
                 new KeyCodeCombination(KeyCode.SLASH),
-                () -> engine.processButton(KeyboardButton.DIVISION));
+                () -> keyboardButtonConsumer.accept(KeyboardButton.DIVISION));
 
         getStage().getScene().getAccelerators().put(
                 new KeyCodeCombination(KeyCode.LEFT),
-                () -> engine.processButton(KeyboardButton.STEP_LEFT));
+                () -> keyboardButtonConsumer.accept(KeyboardButton.STEP_LEFT));
         getStage().getScene().getAccelerators().put(
                 new KeyCodeCombination(KeyCode.RIGHT),
-                () -> engine.processButton(KeyboardButton.STEP_RIGHT));
+                () -> keyboardButtonConsumer.accept(KeyboardButton.STEP_RIGHT));
     }
 }
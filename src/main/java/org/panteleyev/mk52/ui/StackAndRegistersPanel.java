@@ -9,9 +9,12 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
 import org.panteleyev.mk52.engine.Register;
+import org.panteleyev.mk52.program.Address;
 import org.panteleyev.mk52.program.StepExecutionResult;
+import org.panteleyev.mk52.util.RegisterFormatter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.panteleyev.fx.BoxFactory.hBox;
@@ -27,6 +30,18 @@ class StackAndRegistersPanel extends BorderPane {
     private static final String INITIAL_ADDRESS = "00";
     private static final String INITIAL_REGISTER = padToDisplay(Register.toString(0));
     private static final String REGISTER_OFF = padToDisplay("");
+    private static final String[] ADDRESSES = new String[256];
+
+    static {
+        for (int high = 0; high < 16; high++) {
+            for (int low = 0; low < 16; low++) {
+                ADDRESSES[high << 4 | low] = pcToString(new Address(low, high));
+            }
+        }
+    }
+
+    // Значения регистров X, Y, Z, T, X1
+    private static final int STACK_SIZE = 5;
 
     private final List<Label> registers = new ArrayList<>(REGISTERS_SIZE);
     private final List<Label> callStack = new ArrayList<>(CALL_STACK_SIZE);
@@ -39,6 +54,15 @@ class StackAndRegistersPanel extends BorderPane {
 
     private final Label pcLabel = new RegisterContentLabel(INITIAL_ADDRESS);
 
+    // Отображаемые значения, метка обновляется только при изменении значения
+    private final RegisterFormatter formatter = new RegisterFormatter();
+    private final long[] shownRegisters = new long[REGISTERS_SIZE];
+    private final long[] shownStack = new long[STACK_SIZE];
+    private final int[] shownCallStack = new int[CALL_STACK_SIZE];
+    private int shownPc;
+    // Метки показывают начальное состояние или выключены, сравнивать не с чем
+    private boolean shownValid;
+
     public StackAndRegistersPanel() {
         getStyleClass().add("registerAndStackPanel");
 
@@ -76,6 +100,12 @@ class StackAndRegistersPanel extends BorderPane {
         zLabel.setText(INITIAL_REGISTER);
         tLabel.setText(INITIAL_REGISTER);
         x1Label.setText(INITIAL_REGISTER);
+
+        Arrays.fill(shownRegisters, 0);
+        Arrays.fill(shownStack, 0);
+        Arrays.fill(shownCallStack, 0);
+        shownPc = 0;
+        shownValid = true;
     }
 
     public void turnOff() {
@@ -94,6 +124,8 @@ class StackAndRegistersPanel extends BorderPane {
         zLabel.setText(REGISTER_OFF);
         tLabel.setText(REGISTER_OFF);
         x1Label.setText(REGISTER_OFF);
+
+        shownValid = false;
     }
 
     private Node buildStackPanel() {
@@ -149,23 +181,51 @@ class StackAndRegistersPanel extends BorderPane {
     }
 
     public void displaySnapshot(StepExecutionResult snapshot) {
+        var all = !shownValid;
+
         if (snapshot.registers().length == REGISTERS_SIZE) {
             for (int i = 0; i < REGISTERS_SIZE; i++) {
-                registers.get(i).setText(padToDisplay(Register.toString(snapshot.registers()[i])));
+                var value = snapshot.registers()[i];
+                if (all || value != shownRegisters[i]) {
+                    registers.get(i).setText(formatter.toString(value));
+                    shownRegisters[i] = value;
+                }
             }
         }
 
-        xLabel.setText(padToDisplay(Register.toString(snapshot.stack().x())));
-        yLabel.setText(padToDisplay(Register.toString(snapshot.stack().y())));
-        zLabel.setText(padToDisplay(Register.toString(snapshot.stack().z())));
-        tLabel.setText(padToDisplay(Register.toString(snapshot.stack().t())));
-        x1Label.setText(padToDisplay(Register.toString(snapshot.stack().x1())));
-
-        pcLabel.setText(pcToString(snapshot.programCounter()));
+        var stack = snapshot.stack();
+        showStack(0, xLabel, stack.x(), all);
+        showStack(1, yLabel, stack.y(), all);
+        showStack(2, zLabel, stack.z(), all);
+        showStack(3, tLabel, stack.t(), all);
+        showStack(4, x1Label, stack.x1(), all);
+
+        var pc = addressIndex(snapshot.programCounter());
+        if (all || pc != shownPc) {
+            pcLabel.setText(ADDRESSES[pc]);
+            shownPc = pc;
+        }
 
         var callStackAddr = snapshot.callStack().stack();
         for (int i = 0; i < callStackAddr.length; i++) {
-            callStack.get(i).setText(pcToString(callStackAddr[i]));
+            var address = addressIndex(callStackAddr[i]);
+            if (all || address != shownCallStack[i]) {
+                callStack.get(i).setText(ADDRESSES[address]);
+                shownCallStack[i] = address;
+            }
         }
+
+        shownValid = true;
+    }
+
+    private void showStack(int index, Label label, long value, boolean all) {
+        if (all || value != shownStack[index]) {
+            label.setText(formatter.toString(value));
+            shownStack[index] = value;
+        }
+    }
+
+    private static int addressIndex(Address address) {
+        return address.high() << 4 | address.low();
     }
 }
@@ -0,0 +1,152 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Чтение шестнадцатеричного дампа.
+ * <p>
+ * Значения разделяются пробелами и переводами строки, символ {@code #} начинает комментарий до конца строки.
+ * Ошибки формата сообщаются с номером строки и позиции. Буфер чтения используется повторно, поэтому экземпляр
+ * не должен использоваться одновременно из нескольких потоков.
+ */
+public final class HexDumpReader {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final int maxDigits;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private int line;
+    private int column;
+    private int tokenColumn;
+    private int value;
+    private int digits;
+    private int count;
+
+    /**
+     * @param maxDigits максимальное число цифр в значении
+     */
+    public HexDumpReader(int maxDigits) {
+        if (maxDigits < 1 || maxDigits > 7) {
+            throw new IllegalArgumentException("Invalid number of digits: " + maxDigits);
+        }
+        this.maxDigits = maxDigits;
+    }
+
+    public int read(Path path, int[] values) {
+        try (var channel = FileChannel.open(path)) {
+            return read(channel, values);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Читает значения из потока. Поток не закрывается.
+     */
+    public int read(InputStream in, int[] values) {
+        return read(Channels.newChannel(in), values);
+    }
+
+    /**
+     * Читает значения из канала. Канал не закрывается.
+     *
+     * @param channel канал
+     * @param values  массив для значений
+     * @return число прочитанных значений
+     * @throws IllegalArgumentException если дамп содержит ошибку или значений больше, чем размер массива
+     */
+    public int read(ReadableByteChannel channel, int[] values) {
+        line = 1;
+        column = 0;
+        value = 0;
+        digits = 0;
+        count = 0;
+
+        var comment = false;
+        try {
+            buffer.clear();
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    var c = buffer.get();
+                    column++;
+
+                    if (c == '\n') {
+                        endToken(values);
+                        line++;
+                        column = 0;
+                        comment = false;
+                        continue;
+                    }
+                    if (comment) {
+                        continue;
+                    }
+
+                    var digit = digit(c);
+                    if (digit >= 0) {
+                        if (digits == 0) {
+                            tokenColumn = column;
+                        }
+                        if (++digits > maxDigits) {
+                            throw error(tokenColumn, "value is longer than " + maxDigits + " digits");
+                        }
+                        value = value << 4 | digit;
+                    } else if (c == ' ' || c == '\t' || c == '\r') {
+                        endToken(values);
+                    } else if (c == '#') {
+                        endToken(values);
+                        comment = true;
+                    } else {
+                        throw error(column, c >= 0x20 && c < 0x7F
+                                ? "unexpected character '" + (char) c + "'"
+                                : String.format("unexpected byte 0x%02X", c & 0xFF));
+                    }
+                }
+                buffer.clear();
+            }
+            endToken(values);
+            return count;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void endToken(int[] values) {
+        if (digits == 0) {
+            return;
+        }
+        if (count >= values.length) {
+            throw error(tokenColumn, "more than " + values.length + " values");
+        }
+        values[count++] = value;
+        value = 0;
+        digits = 0;
+    }
+
+    private IllegalArgumentException error(int column, String message) {
+        return new IllegalArgumentException("Line " + line + ", column " + column + ": " + message);
+    }
+
+    private static int digit(byte c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        } else if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        } else if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        } else {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Запись шестнадцатеричного дампа в формате, который читает {@link HexDumpReader}.
+ * <p>
+ * Каждое значение записывается заданным числом цифр и пробелом, значения группируются в строки. Буфер записи
+ * используется повторно, поэтому экземпляр не должен использоваться одновременно из нескольких потоков.
+ */
+public final class HexDumpWriter {
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] DIGITS = "0123456789ABCDEF".getBytes();
+
+    private final int digits;
+    private final int valuesPerLine;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    /**
+     * @param digits        число цифр в значении
+     * @param valuesPerLine число значений в строке
+     */
+    public HexDumpWriter(int digits, int valuesPerLine) {
+        if (digits < 1 || digits > 7) {
+            throw new IllegalArgumentException("Invalid number of digits: " + digits);
+        }
+        if (valuesPerLine < 1) {
+            throw new IllegalArgumentException("Invalid number of values per line: " + valuesPerLine);
+        }
+        this.digits = digits;
+        this.valuesPerLine = valuesPerLine;
+    }
+
+    public void write(Path path, int[] values, int count) {
+        try (var channel = FileChannel.open(path, WRITE, CREATE, TRUNCATE_EXISTING)) {
+            write(channel, values, count);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Записывает значения в поток. Поток не закрывается.
+     */
+    public void write(OutputStream out, int[] values, int count) {
+        write(Channels.newChannel(out), values, count);
+    }
+
+    /**
+     * Записывает первые count значений в канал. Канал не закрывается.
+     */
+    public void write(WritableByteChannel channel, int[] values, int count) {
+        try {
+            buffer.clear();
+            for (int i = 0; i < count; i++) {
+                if (buffer.remaining() < digits + 2) {
+                    flush(channel);
+                }
+                if (i != 0 && i % valuesPerLine == 0) {
+                    buffer.put((byte) '\n');
+                }
+                for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+                    buffer.put(DIGITS[(values[i] >> shift) & 0xF]);
+                }
+                buffer.put((byte) ' ');
+            }
+            flush(channel);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void flush(WritableByteChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.util;
+
+import org.panteleyev.mk52.engine.Register;
+
+import java.util.Arrays;
+
+import static org.panteleyev.mk52.engine.Constants.DISPLAY_SIZE;
+import static org.panteleyev.mk52.util.StringUtil.padToDisplay;
+
+/**
+ * Форматирование регистров для отображения без промежуточных объектов.
+ * <p>
+ * Результат совпадает с {@code padToDisplay(Register.toString(register))}. Недавно отформатированные значения
+ * хранятся в небольшом кэше. Экземпляр не потокобезопасен.
+ */
+public final class RegisterFormatter {
+    /**
+     * Длина отформатированного значения: разряды индикатора и точка.
+     */
+    public static final int LENGTH = DISPLAY_SIZE + 1;
+
+    private static final int CACHE_SIZE = 64;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final char[] buffer = new char[LENGTH];
+    private final long[] cachedRegisters = new long[CACHE_SIZE];
+    private final String[] cachedStrings = new String[CACHE_SIZE];
+
+    /**
+     * Возвращает отформатированное значение регистра, при повторных вызовах с тем же значением - из кэша.
+     */
+    public String toString(long register) {
+        var slot = Long.hashCode(register * 0x9E3779B97F4A7C15L) & (CACHE_SIZE - 1);
+        var cached = cachedStrings[slot];
+        if (cached != null && cachedRegisters[slot] == register) {
+            return cached;
+        }
+
+        var result = new String(buffer, 0, format(register, buffer));
+        cachedRegisters[slot] = register;
+        cachedStrings[slot] = result;
+        return result;
+    }
+
+    /**
+     * Записывает отформатированное значение регистра в target, начиная с нулевой позиции.
+     *
+     * @param target массив длиной не меньше {@link #LENGTH}
+     * @return число записанных символов
+     */
+    public static int format(long register, char[] target) {
+        var exponent = Register.getExponent(register);
+        if (Math.abs(exponent) > 999) {
+            // Такой порядок на индикаторе не помещается, оставляем общий алгоритм
+            var text = padToDisplay(Register.toString(register));
+            text.getChars(0, text.length(), target, 0);
+            return text.length();
+        }
+
+        // Разряды без точки, как в Register.toString
+        Arrays.fill(target, 0, DISPLAY_SIZE, ' ');
+        if (Register.isNegative(register)) {
+            target[0] = '-';
+        }
+
+        var mantissaBits = register & Register.MANTISSA_MASK;
+        for (int i = 7; i >= 0; i--) {
+            target[i + 1] = HEX_DIGITS[(int) (mantissaBits & 0xF)];
+            mantissaBits >>= 4;
+        }
+
+        var dotPosition = 2;
+        if (exponent >= 0 && exponent <= 7) {
+            dotPosition += exponent;
+            exponent = 0;
+        }
+
+        // Убираем концевые нули
+        for (int i = 8; i >= dotPosition; i--) {
+            if (target[i] != '0') {
+                break;
+            }
+            target[i] = ' ';
+        }
+
+        if (exponent != 0) {
+            var absExponent = Math.abs(exponent);
+            if (exponent < 0) {
+                target[10] = '-';
+            } else if (absExponent > 99) {
+                target[10] = HEX_DIGITS[absExponent / 100];
+            }
+            target[11] = HEX_DIGITS[absExponent / 10 % 10];
+            target[12] = HEX_DIGITS[absExponent % 10];
+        }
+
+        // Точка
+        System.arraycopy(target, dotPosition, target, dotPosition + 1, DISPLAY_SIZE - dotPosition);
+        target[dotPosition] = '.';
+        return LENGTH;
+    }
+}
@@ -5,6 +5,7 @@
 package org.panteleyev.mk52;
 
 import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.engine.SpeedMode;
 import org.panteleyev.mk52.engine.TrigonometricMode;
 
 import java.util.function.Consumer;
@@ -18,4 +19,15 @@ public class BaseTest {
     public static final Consumer<Engine> TR_DEGREE = e -> e.setTrigonometricMode(TrigonometricMode.DEGREE);
     public static final Consumer<Engine> TR_GRADIAN = e -> e.setTrigonometricMode(TrigonometricMode.GRADIAN);
     public static final Consumer<Engine> TR_RADIAN = e -> e.setTrigonometricMode(TrigonometricMode.RADIAN);
+
+    /**
+     * Возвращает включенный синхронный калькулятор с загруженной программой.
+     */
+    public static Engine newEngine(int[] program, SpeedMode speedMode) {
+        var engine = new Engine(false, _ -> {});
+        engine.setSpeedMode(speedMode);
+        engine.togglePower(true);
+        engine.loadMemoryBytes(program);
+        return engine;
+    }
 }
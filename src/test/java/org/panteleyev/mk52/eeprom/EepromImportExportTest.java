@@ -31,7 +31,7 @@ public class EepromImportExportTest {
             testBytes[i] = (byte) RANDOM.nextInt(0x10);
         }
 
-        System.arraycopy(testBytes, 0, eeprom.getEeprom(), 0, EEPROM_SIZE);
+        eeprom.setEeprom(testBytes);
 
         try (var out = new ByteArrayOutputStream()) {
             eeprom.exportDump(out);
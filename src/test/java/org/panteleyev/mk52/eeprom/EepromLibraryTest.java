@@ -0,0 +1,119 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.mk52.engine.Registers;
+import org.panteleyev.mk52.program.ProgramMemory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+
+@DisplayName("Библиотека банков ППЗУ")
+public class EepromLibraryTest {
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testBanks() {
+        var path = tempDir.resolve("eeprom.lib");
+
+        try (var library = EepromLibrary.open(path)) {
+            assertEquals(List.of(), library.bankNames());
+
+            var first = library.addBank("Курс 1");
+            var second = library.addBank("Курс 2");
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                first.set(i, i & 0xF);
+                second.set(i, 0xF - (i & 0xF));
+            }
+            first.close();
+            second.close();
+
+            assertThrows(IllegalArgumentException.class, () -> library.addBank("Курс 1"));
+            assertThrows(IllegalArgumentException.class, () -> library.bank("Курс 3"));
+        }
+
+        try (var library = EepromLibrary.open(path)) {
+            assertEquals(List.of("Курс 1", "Курс 2"), library.bankNames());
+            assertTrue(library.contains("Курс 2"));
+            assertFalse(library.contains("Курс 3"));
+
+            var first = library.bank("Курс 1");
+            var second = library.bank("Курс 2");
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                assertEquals(i & 0xF, first.get(i), "Index " + i);
+                assertEquals(0xF - (i & 0xF), second.get(i), "Index " + i);
+            }
+
+            // Банк, добавленный после существующих, не затрагивает их содержимое
+            library.addBank("Курс 3").set(0, 5);
+            assertEquals(0, library.bank("Курс 1").get(0));
+            assertEquals(5, library.bank("Курс 3").get(0));
+        }
+    }
+
+    @Test
+    public void testEepromBank() {
+        var path = tempDir.resolve("eeprom.lib");
+
+        try (var library = EepromLibrary.open(path)) {
+            var bank = library.addBank("Программы");
+            bank.set(10, 7);
+
+            var eeprom = new Eeprom(new ProgramMemory(), new Registers());
+            eeprom.setStorage(bank);
+            assertEquals(7, eeprom.getEeprom()[10]);
+
+            eeprom.clear();
+            assertEquals(0, library.bank("Программы").get(10));
+        }
+    }
+
+    @Test
+    public void testInterruptedAddBank() throws IOException {
+        var path = tempDir.resolve("eeprom.lib");
+        try (var library = EepromLibrary.open(path)) {
+            library.addBank("Курс 1").set(3, 9);
+        }
+        var before = Files.readAllBytes(path);
+
+        try (var library = EepromLibrary.open(path)) {
+            library.addBank("Курс 2").set(3, 4);
+        }
+        var after = Files.readAllBytes(path);
+
+        // Сбой после записи банка и индекса, но до записи заголовка: в файле прежние 16 байт заголовка
+        for (var length : List.of(before.length, before.length + EEPROM_SIZE / 2, after.length)) {
+            var torn = Arrays.copyOf(after, length);
+            System.arraycopy(before, 0, torn, 0, 16);
+            Files.write(path, torn);
+
+            try (var library = EepromLibrary.open(path)) {
+                assertEquals(List.of("Курс 1"), library.bankNames());
+                assertEquals(9, library.bank("Курс 1").get(3));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        var path = tempDir.resolve("eeprom.lib");
+        Files.writeString(path, "0 1 2 3 4 5 6 7 8 9 A B C D E F");
+
+        assertThrows(IllegalArgumentException.class, () -> EepromLibrary.open(path));
+    }
+}
@@ -4,14 +4,19 @@
  */
 package org.panteleyev.mk52.eeprom;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.panteleyev.mk52.engine.Registers;
+import org.panteleyev.mk52.program.ProgramMemory;
 
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
 
 public class EepromTest {
 
@@ -29,4 +34,38 @@ public class EepromTest {
     public void testValueToEepromAddress(long x, EepromAddress expected) {
         assertEquals(expected, Eeprom.valueToEepromAddress(x));
     }
+
+    @Test
+    public void testFork() {
+        var eeprom = new Eeprom(new ProgramMemory(), new Registers());
+        var original = tetrads(1);
+        eeprom.setEeprom(original);
+        eeprom.setAddress(new EepromAddress(100, 14));
+
+        var first = eeprom.fork(new ProgramMemory(), new Registers());
+        var second = first.fork(new ProgramMemory(), new Registers());
+        assertArrayEquals(original, first.getEeprom());
+        assertArrayEquals(original, second.getEeprom());
+        assertEquals(new EepromAddress(100, 14), second.getAddress());
+
+        // Запись в любую из копий не видна остальным
+        var changed = tetrads(2);
+        first.setEeprom(changed);
+        assertArrayEquals(changed, first.getEeprom());
+        assertArrayEquals(original, eeprom.getEeprom());
+        assertArrayEquals(original, second.getEeprom());
+
+        eeprom.setEeprom(tetrads(3));
+        assertArrayEquals(changed, first.getEeprom());
+        assertArrayEquals(original, second.getEeprom());
+        assertArrayEquals(tetrads(3), eeprom.fork(new ProgramMemory(), new Registers()).getEeprom());
+    }
+
+    private static byte[] tetrads(int seed) {
+        var tetrads = new byte[EEPROM_SIZE];
+        for (int i = 0; i < tetrads.length; i++) {
+            tetrads[i] = (byte) ((i * seed + seed) & 0xF);
+        }
+        return tetrads;
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+
+@DisplayName("Файл ППЗУ, отображенный в память")
+public class MappedEepromStorageTest {
+    private static final Random RANDOM = new Random(System.currentTimeMillis());
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testPersistence() {
+        var path = tempDir.resolve("eeprom.bin");
+        var tetrads = new int[EEPROM_SIZE];
+
+        try (var storage = MappedEepromStorage.open(path)) {
+            assertTrue(storage.isCreated());
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                tetrads[i] = RANDOM.nextInt(0x10);
+                storage.set(i, tetrads[i]);
+            }
+        }
+
+        try (var storage = MappedEepromStorage.open(path)) {
+            assertFalse(storage.isCreated());
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                assertEquals(tetrads[i], storage.get(i), "Index " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidFile() throws IOException {
+        var path = tempDir.resolve("eeprom.bin");
+        var content = "0 1 2 3 4 5 6 7 8 9 A B C D E F";
+        Files.writeString(path, content);
+
+        try (var storage = MappedEepromStorage.open(path)) {
+            assertTrue(storage.isCreated());
+            for (int i = 0; i < EEPROM_SIZE; i++) {
+                assertEquals(0, storage.get(i));
+            }
+        }
+        assertEquals(MappedEepromStorage.FILE_SIZE, Files.size(path));
+        // Прежнее содержимое сохранено
+        assertEquals(content, Files.readString(tempDir.resolve("eeprom.bin.bak")));
+    }
+
+    @Test
+    public void testInvalidHeader() throws IOException {
+        var path = tempDir.resolve("eeprom.bin");
+        var bytes = new byte[MappedEepromStorage.FILE_SIZE];
+        Arrays.fill(bytes, (byte) 0x55);
+        Files.write(path, bytes);
+
+        try (var storage = MappedEepromStorage.open(path)) {
+            assertTrue(storage.isCreated());
+            assertEquals(0, storage.get(0));
+        }
+        assertArrayEquals(bytes, Files.readAllBytes(tempDir.resolve("eeprom.bin.bak")));
+
+        // Исправный файл открывается без изменений
+        try (var storage = MappedEepromStorage.open(path)) {
+            assertFalse(storage.isCreated());
+        }
+        assertArrayEquals(bytes, Files.readAllBytes(tempDir.resolve("eeprom.bin.bak")));
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.eeprom;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_LINE_SIZE;
+import static org.panteleyev.mk52.engine.Constants.EEPROM_SIZE;
+import static org.panteleyev.mk52.engine.Constants.TETRADS_PER_EEPROM_LINE;
+
+@DisplayName("Упакованное хранилище ППЗУ")
+public class PackedEepromStorageTest {
+    private static final Random RANDOM = new Random(System.currentTimeMillis());
+
+    private static byte[] randomTetrads() {
+        var tetrads = new byte[EEPROM_SIZE];
+        for (int i = 0; i < tetrads.length; i++) {
+            tetrads[i] = (byte) RANDOM.nextInt(0x10);
+        }
+        return tetrads;
+    }
+
+    private static PackedEepromStorage storage(byte[] tetrads) {
+        var storage = new PackedEepromStorage();
+        for (int i = 0; i < tetrads.length; i++) {
+            storage.set(i, tetrads[i]);
+        }
+        return storage;
+    }
+
+    private static void assertContent(byte[] expected, EepromStorage storage) {
+        for (int i = 0; i < EEPROM_SIZE; i++) {
+            assertEquals(expected[i], storage.get(i), "Index " + i);
+        }
+    }
+
+    // Последние значения проверяют переход через конец ППЗУ
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 14, 27, 500, EEPROM_SIZE - 2, EEPROM_SIZE - 7, 9998, 9999})
+    public void testProgramLine(int start) {
+        var tetrads = randomTetrads();
+        var storage = storage(tetrads);
+
+        var expected = new int[EEPROM_LINE_SIZE];
+        EepromUtils.memoryFromEepromLine(EepromUtils.readEepromLine(tetrads, start), expected, 0);
+        var actual = new int[EEPROM_LINE_SIZE];
+        storage.readProgramLine(start, actual, 0);
+        assertArrayEquals(expected, actual);
+
+        var memory = new int[EEPROM_LINE_SIZE];
+        for (int i = 0; i < memory.length; i++) {
+            memory[i] = RANDOM.nextInt(0x100);
+        }
+        EepromUtils.writeEepromLine(tetrads, start, EepromUtils.memoryToEepromLine(memory, 0), EepromMode.PROGRAM);
+        storage.orProgramLine(start, memory, 0);
+        assertContent(tetrads, storage);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 14, 27, 500, EEPROM_SIZE - 2, EEPROM_SIZE - 7, 9998, 9999})
+    public void testRegister(int start) {
+        var tetrads = randomTetrads();
+        var storage = storage(tetrads);
+
+        assertEquals(EepromUtils.readRegisterFromEeprom(tetrads, start), storage.readRegister(start));
+
+        var register = RANDOM.nextLong() >>> 8;
+        EepromUtils.writeRegisterToEeprom(tetrads, start, register);
+        storage.orRegister(start, register);
+        assertContent(tetrads, storage);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 14, EEPROM_SIZE - TETRADS_PER_EEPROM_LINE, 9996})
+    public void testErase(int start) {
+        var tetrads = randomTetrads();
+        var storage = storage(tetrads);
+
+        var end = start + 3 * TETRADS_PER_EEPROM_LINE;
+        for (int i = start; i < end; i++) {
+            tetrads[EepromUtils.normalizeEepromIndex(i)] = 0;
+        }
+        storage.erase(start, end);
+        assertContent(tetrads, storage);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.panteleyev.mk52.BaseTest;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Точки останова и наблюдения")
+public class BreakpointsTest extends BaseTest {
+    // Обратный отсчет в R3 от 5 до -5
+    private static final int[] COUNTDOWN = new int[]{
+            0x05,       // 00: 5
+            0x43,       // 01: П3
+            0x63,       // 02: ИП3
+            0x01,       // 03: 1
+            0x11,       // 04: -
+            0x43,       // 05: П3
+            0x51,       // 06: БП
+            0x02        // 07: 02
+    };
+
+    @Test
+    public void testBreakpoint() {
+        var engine = newEngine(COUNTDOWN, SpeedMode.INSTANT);
+        engine.breakpoints().addBreakpoint("R3 < 0 && PC == 2");
+        engine.processButton(KeyboardButton.RUN_STOP);
+
+        assertFalse(engine.automaticMode().get());
+        assertEquals(2, engine.getProgramCounter().getEffectiveAddress());
+        assertEquals(-1.0, Register.toDouble(engine.registers().load(3)));
+    }
+
+    @Test
+    public void testWatch() {
+        var engine = newEngine(COUNTDOWN, SpeedMode.INSTANT);
+        var values = new ArrayList<Double>();
+        engine.breakpoints().addWatch("pc == 6", x -> values.add(Register.toDouble(x)));
+        engine.breakpoints().addBreakpoint("R3 <= -3");
+        engine.processButton(KeyboardButton.RUN_STOP);
+
+        assertEquals(-3.0, Register.toDouble(engine.registers().load(3)));
+        assertEquals(8, values.size());
+        assertEquals(4.0, values.getFirst());
+        assertEquals(-3.0, values.getLast());
+    }
+
+    @Test
+    public void testClear() {
+        var engine = newEngine(COUNTDOWN, SpeedMode.INSTANT);
+        engine.breakpoints().addBreakpoint("X == 3 || !(PC != 5)");
+        assertFalse(engine.breakpoints().isEmpty());
+        engine.breakpoints().clear();
+        assertTrue(engine.breakpoints().isEmpty());
+
+        engine.breakpoints().addBreakpoint("-2.5e0 >= R3");
+        engine.processButton(KeyboardButton.RUN_STOP);
+        assertEquals(-3.0, Register.toDouble(engine.registers().load(3)));
+    }
+
+    @Test
+    public void testScheduledEngine() throws InterruptedException {
+        var engine = newEngine(COUNTDOWN, SpeedMode.INSTANT);
+        var values = new ArrayList<Double>();
+        engine.breakpoints().addWatch("PC == 6", x -> values.add(Register.toDouble(x)));
+        engine.breakpoints().addBreakpoint("R3 < 0 && PC == 2");
+
+        try (var scheduler = new EngineScheduler(1)) {
+            scheduler.register(engine);
+            engine.processButton(KeyboardButton.RUN_STOP);
+            var deadline = System.nanoTime() + 10_000_000_000L;
+            while (engine.automaticMode().get() || engine.getEmulatedTime().isZero()) {
+                assertTrue(System.nanoTime() < deadline, "timeout");
+                Thread.sleep(1);
+            }
+        }
+
+        assertEquals(2, engine.getProgramCounter().getEffectiveAddress());
+        assertEquals(-1.0, Register.toDouble(engine.registers().load(3)));
+        assertEquals(6, values.size());
+    }
+
+    @Test
+    public void testThroughput() {
+        var engine = newEngine(COUNTDOWN, SpeedMode.INSTANT);
+        var condition = ConditionParser.compile("X > 5 && R3 != -2.5").condition();
+        engine.stack().loadX(Register.valueOf(3));
+        assertFalse(condition.test(engine));
+        engine.stack().loadX(Register.valueOf(7));
+        assertTrue(condition.test(engine));
+
+        // Сравнение с числом не преобразует значения, граница взята с большим запасом
+        var checks = 10_000_000;
+        var passed = 0;
+        var start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            if (condition.test(engine)) {
+                passed++;
+            }
+        }
+        var elapsed = System.nanoTime() - start;
+        assertEquals(checks, passed);
+        assertTrue(elapsed < 5_000_000_000L, "elapsed " + elapsed);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "R3",
+            "R3 <",
+            "RF < 0",
+            "Q > 1",
+            "(X > 1",
+            "X > 1)",
+            "X = 1",
+            "X > 1 && ",
+            "PC == 200",
+            "1..2 < X"
+    })
+    public void testInvalid(String expression) {
+        assertThrows(IllegalArgumentException.class, () -> new Breakpoints().addBreakpoint(expression));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Очередь команд")
+public class CommandQueueTest {
+    @Test
+    public void testCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new CommandQueue(0));
+        assertThrows(IllegalArgumentException.class, () -> new CommandQueue(12));
+
+        var queue = new CommandQueue(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(() -> {}));
+        }
+        assertFalse(queue.offer(() -> {}));
+
+        queue.poll();
+        assertTrue(queue.offer(() -> {}));
+    }
+
+    @Test
+    public void testOrder() {
+        var result = new ArrayList<Integer>();
+        var queue = new CommandQueue(8);
+        assertNull(queue.poll());
+
+        // Несколько проходов по кольцу
+        for (int i = 0; i < 100; i++) {
+            var value = i;
+            assertTrue(queue.offer(() -> result.add(value)));
+            if (i % 3 == 2) {
+                for (var command = queue.poll(); command != null; command = queue.poll()) {
+                    command.run();
+                }
+            }
+        }
+        for (var command = queue.poll(); command != null; command = queue.poll()) {
+            command.run();
+        }
+
+        assertEquals(100, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(i, result.get(i));
+        }
+    }
+
+    @Test
+    public void testConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int count = 50_000;
+
+        var queue = new CommandQueue(1024);
+        var last = new int[producers];
+        var received = new int[producers];
+        var start = new CountDownLatch(1);
+
+        var threads = new ArrayList<Thread>();
+        for (int p = 0; p < producers; p++) {
+            var producer = p;
+            var thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ex) {
+                    return;
+                }
+                for (int i = 1; i <= count; i++) {
+                    var value = i;
+                    Runnable command = () -> {
+                        // Команды одного отправителя приходят в порядке отправки
+                        assertEquals(last[producer] + 1, value);
+                        last[producer] = value;
+                        received[producer]++;
+                    };
+                    while (!queue.offer(command)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        start.countDown();
+        var total = 0;
+        while (total < producers * count) {
+            var command = queue.poll();
+            if (command == null) {
+                Thread.onSpinWait();
+            } else {
+                command.run();
+                total++;
+            }
+        }
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        assertNull(queue.poll());
+        assertEquals(List.of(count, count, count, count),
+                List.of(received[0], received[1], received[2], received[3]));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.program.Address;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DisplayName("Исполнение до адреса, шаг с обходом и выход из подпрограммы")
+public class DebugStepTest {
+    private static final int[] PROGRAM = new int[]{
+            0x53,       // 00: ПП
+            0x05,       // 01: 05
+            0x01,       // 02: 1
+            0x02,       // 03: 2
+            0x50,       // 04: С/П
+            0x03,       // 05: 3
+            0x53,       // 06: ПП
+            0x09,       // 07: 09
+            0x52,       // 08: В/0
+            0x04,       // 09: 4
+            0x52        // 10: В/0
+    };
+
+    private int updates;
+    private Engine engine;
+
+    @BeforeEach
+    public void setup() {
+        engine = new Engine(false, _ -> updates++);
+        engine.togglePower(true);
+        engine.loadMemoryBytes(PROGRAM);
+        updates = 0;
+    }
+
+    @Test
+    public void testStepOver() {
+        engine.stepOver();
+        assertEquals(2, engine.getProgramCounter().getEffectiveAddress());
+        assertEquals(1, updates);
+        assertFalse(engine.automaticMode().get());
+
+        engine.stepOver();
+        assertEquals(3, engine.getProgramCounter().getEffectiveAddress());
+        assertEquals(2, updates);
+    }
+
+    @Test
+    public void testStepOut() {
+        engine.processButton(KeyboardButton.GOSUB);
+        assertEquals(5, engine.getProgramCounter().getEffectiveAddress());
+
+        updates = 0;
+        engine.stepOut();
+        assertEquals(2, engine.getProgramCounter().getEffectiveAddress());
+        assertEquals(1, updates);
+        assertEquals(new IR(0xFFFF4FFFFFFFL, 1 << 7), engine.displayProperty().get());
+    }
+
+    @Test
+    public void testRunTo() {
+        engine.runTo(Address.of(0x09));
+        assertEquals(9, engine.getProgramCounter().getEffectiveAddress());
+        assertEquals(1, updates);
+
+        // Адрес не встретится, программа останавливается командой С/П
+        engine.runTo(Address.of(0x09));
+        assertEquals(5, engine.getProgramCounter().getEffectiveAddress());
+        assertFalse(engine.automaticMode().get());
+    }
+
+    @Test
+    public void testDisplayAfterStop() {
+        engine.loadMemoryBytes(new int[]{0x10, 0x10, 0x50});
+        engine.processButton(KeyboardButton.D3);
+        engine.processButton(KeyboardButton.PUSH);
+        engine.processButton(KeyboardButton.D4);
+
+        engine.stepOver();
+        assertEquals(7.0, Register.toDouble(engine.stack().xValue()));
+        assertEquals(new IR(0xFFFF7FFFFFFFL, 1 << 7), engine.displayProperty().get());
+
+        engine.runTo(Address.of(0x02));
+        assertEquals(7.0, Register.toDouble(engine.stack().xValue()));
+        assertEquals(new IR(0xFFFF7FFFFFFFL, 1 << 7), engine.displayProperty().get());
+    }
+
+    @Test
+    public void testEmulatedTime() {
+        var time = engine.getEmulatedTime();
+        engine.stepOver();
+        assertEquals(1, updates);
+        assertFalse(engine.getEmulatedTime().equals(time));
+    }
+}
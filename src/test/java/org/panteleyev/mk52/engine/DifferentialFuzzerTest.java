@@ -0,0 +1,51 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.program.OpCode;
+
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Дифференциальное тестирование группового исполнения")
+public class DifferentialFuzzerTest {
+    @Test
+    public void testNoDivergence() {
+        var report = new DifferentialFuzzer(200).fuzz(52, 500);
+        assertEquals(500, report.programs());
+        assertTrue(report.steps() >= 500);
+        assertTrue(report.divergences().isEmpty(), report::format);
+    }
+
+    @Test
+    public void testReproducibleProgram() {
+        assertArrayEquals(
+                DifferentialFuzzer.randomProgram(new SplittableRandom(17)),
+                DifferentialFuzzer.randomProgram(new SplittableRandom(17))
+        );
+    }
+
+    @Test
+    public void testExcludedOpCodes() {
+        var excluded = Set.of(OpCode.RANDOM, OpCode.K_MINUS, OpCode.K_MULT, OpCode.K_DIV);
+        for (int seed = 0; seed < 100; seed++) {
+            var program = DifferentialFuzzer.randomProgram(new SplittableRandom(seed));
+            for (int i = 0; i < program.length; i++) {
+                var opCode = OpCode.findByCode(program[i]);
+                assertFalse(excluded.contains(opCode), "Seed " + seed + ", step " + i);
+                if (opCode != null && opCode.hasAddress()) {
+                    i++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.BaseTest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Копия калькулятора")
+public class EngineForkTest extends BaseTest {
+    // Квадраты натуральных чисел через подпрограмму
+    private static final int[] SQUARES = new int[]{
+            0x60,       // 00: ИП0
+            0x01,       // 01: 1
+            0x10,       // 02: +
+            0x40,       // 03: П0
+            0x53,       // 04: ПП
+            0x09,       // 05: 09
+            0x50,       // 06: С/П
+            0x51,       // 07: БП
+            0x00,       // 08: 00
+            0x22,       // 09: F x²
+            0x52        // 10: В/О
+    };
+
+    @Test
+    public void testForkStopped() {
+        var engine = newEngine(SQUARES, SpeedMode.INSTANT);
+        engine.processButton(KeyboardButton.RUN_STOP);
+        assertEquals(1.0, Register.toDouble(engine.stack().xValue()));
+
+        var fork = engine.fork();
+        assertFalse(fork.isAsync());
+        assertTrue(fork.isPowered());
+        assertArrayEquals(engine.saveState(), fork.saveState());
+        assertEquals(engine.getEmulatedTime(), fork.getEmulatedTime());
+        assertEquals(engine.getCurrentDisplay(), fork.displayProperty().get());
+
+        // Обе программы продолжаются одинаково
+        engine.processButton(KeyboardButton.RUN_STOP);
+        fork.processButton(KeyboardButton.RUN_STOP);
+        assertArrayEquals(engine.saveState(), fork.saveState());
+        assertEquals(4.0, Register.toDouble(fork.stack().xValue()));
+
+        // Изменения копии не видны исходному калькулятору
+        var state = engine.saveState();
+        fork.processButton(KeyboardButton.D7);
+        fork.processButton(KeyboardButton.STORE);
+        fork.processButton(KeyboardButton.D0);
+        fork.loadMemoryBytes(new int[]{0x51, 0x00});
+        assertArrayEquals(state, engine.saveState());
+        assertNotEquals(engine.registers().load(0), fork.registers().load(0));
+    }
+
+    @Test
+    public void testForkInsideSubroutine() {
+        var engine = newEngine(SQUARES, SpeedMode.INSTANT);
+        engine.processButton(KeyboardButton.RUN_STOP);
+
+        // Остановка внутри подпрограммы, перед F x²
+        engine.automaticMode().set(true);
+        engine.processor().run(6);
+        assertTrue(engine.automaticMode().get());
+        assertEquals(9, engine.getProgramCounter().getEffectiveAddress());
+
+        var fork = engine.fork();
+        assertFalse(fork.automaticMode().get());
+        assertEquals(9, fork.getProgramCounter().getEffectiveAddress());
+        assertArrayEquals(engine.callStack().getSnapshot().stack(), fork.callStack().getSnapshot().stack());
+
+        fork.run();
+        engine.processor().run(100);
+        assertFalse(engine.automaticMode().get());
+        assertArrayEquals(engine.saveState(), fork.saveState());
+        assertEquals(engine.getEmulatedTime(), fork.getEmulatedTime());
+        assertEquals(4.0, Register.toDouble(fork.stack().xValue()));
+    }
+
+    @Test
+    public void testForkOfAsyncEngine() {
+        var engine = new Engine(true, _ -> {});
+        var fork = engine.fork();
+        assertFalse(fork.isAsync());
+        assertFalse(fork.isPowered());
+
+        fork.togglePower(true);
+        fork.processButton(KeyboardButton.D5);
+        assertEquals(5.0, Register.toDouble(fork.stack().xValue()));
+        assertFalse(engine.isPowered());
+    }
+}
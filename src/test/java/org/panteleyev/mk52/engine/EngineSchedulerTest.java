@@ -0,0 +1,119 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.BaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Планировщик движков")
+public class EngineSchedulerTest extends BaseTest {
+    private static final int[] LOOP = new int[]{
+            0x05,       // 00: 5
+            0x40,       // 01: П0
+            0x02,       // 02: 2
+            0x5D,       // 03: FL0
+            0x02,       // 04: 02
+            0x50        // 05: С/П
+    };
+
+    private static final int[] DIGITS = new int[]{
+            0x01,       // 00: 1
+            0x02,       // 01: 2
+            0x03,       // 02: 3
+            0x50        // 03: С/П
+    };
+
+    @Test
+    public void testManyEngines() throws InterruptedException {
+        var expected = newEngine(LOOP, SpeedMode.INSTANT);
+        expected.processButton(KeyboardButton.RUN_STOP);
+
+        var engines = new ArrayList<Engine>();
+        try (var scheduler = new EngineScheduler(4)) {
+            for (int i = 0; i < 200; i++) {
+                var engine = newEngine(LOOP, SpeedMode.INSTANT);
+                scheduler.register(engine);
+                engines.add(engine);
+            }
+            assertThrows(IllegalArgumentException.class, () -> scheduler.register(engines.getFirst()));
+            assertThrows(IllegalArgumentException.class, () -> scheduler.register(new Engine(true, _ -> {})));
+
+            for (var engine : engines) {
+                engine.processButton(KeyboardButton.RUN_STOP);
+            }
+            awaitStop(engines);
+
+            // По 13 шагов программы на каждый движок, запуск исполняется вместе с первым шагом
+            assertTrue(scheduler.getDispatches() >= engines.size() * 13L);
+            assertEquals(200, scheduler.getEngines());
+
+            for (var engine : engines) {
+                scheduler.unregister(engine);
+            }
+            assertEquals(0, scheduler.getEngines());
+        }
+
+        for (var engine : engines) {
+            assertArrayEquals(expected.saveState(), engine.saveState());
+            assertEquals(expected.getEmulatedTime(), engine.getEmulatedTime());
+        }
+    }
+
+    @Test
+    public void testRealTime() throws InterruptedException {
+        var engine = newEngine(DIGITS, SpeedMode.SCALED);
+        try (var scheduler = new EngineScheduler(1)) {
+            scheduler.register(engine);
+
+            var start = System.nanoTime();
+            engine.processButton(KeyboardButton.RUN_STOP);
+            awaitStop(List.of(engine));
+            var elapsed = System.nanoTime() - start;
+
+            // Последний шаг не ожидается
+            var paced = SpeedMode.SCALED.scale(engine.getEmulatedTime()).toNanos();
+            var last = SpeedMode.SCALED.scale(Constants.DUR_023).toNanos();
+            assertTrue(elapsed >= paced - last, "elapsed " + elapsed);
+            assertTrue(scheduler.getFairness() > 0.99);
+        }
+
+        assertEquals(new IR(0xFFFF123FFFFFL, 1 << 5), engine.displayProperty().get());
+    }
+
+    @Test
+    public void testStop() throws InterruptedException {
+        var engine = newEngine(new int[]{0x51, 0x00}, SpeedMode.INSTANT);
+        try (var scheduler = new EngineScheduler(2)) {
+            scheduler.register(engine);
+            engine.processButton(KeyboardButton.RUN_STOP);
+            Thread.sleep(20);
+            assertTrue(engine.automaticMode().get());
+
+            engine.processButton(KeyboardButton.RUN_STOP);
+            awaitStop(List.of(engine));
+            assertFalse(engine.automaticMode().get());
+        }
+    }
+
+    private static void awaitStop(List<Engine> engines) throws InterruptedException {
+        var deadline = System.nanoTime() + 10_000_000_000L;
+        for (var engine : engines) {
+            while (engine.automaticMode().get() || engine.getEmulatedTime().isZero()) {
+                assertTrue(System.nanoTime() < deadline, "timeout");
+                Thread.sleep(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Исполнение программы на множестве исходных данных")
+public class LockstepRunnerTest {
+    // Вычисление факториала
+    private static final int[] FACTORIAL = new int[]{
+            0x42, 0x01, 0x43, 0x62, 0x01, 0x11, 0x59, 0x16, 0x62, 0x63,
+            0x12, 0x43, 0x14, 0x42, 0x51, 0x03, 0x63, 0x50
+    };
+
+    // 1/x, ВП 2, С/П - ввод порядка исполняется на обычном процессоре
+    private static final int[] ONE_BY_X = new int[]{
+            0x23, 0x01, 0x0C, 0x02, 0x12, 0x50
+    };
+
+    // Цикл с L0 и подпрограммой
+    private static final int[] LOOP = new int[]{
+            0x40,       // 00: x→П0
+            0x0D,       // 01: Cx
+            0x53,       // 02: ПП
+            0x07,       // 03: 07
+            0x5D,       // 04: FL0
+            0x02,       // 05: 02
+            0x50,       // 06: С/П
+            0x60,       // 07: П→x0
+            0x10,       // 08: +
+            0x52        // 09: В/О
+    };
+
+    private static Engine runScalar(int[] program, long x) {
+        var engine = new Engine(false, _ -> {});
+        engine.togglePower(true);
+        engine.loadMemoryBytes(program);
+        engine.stack().loadX(x);
+        engine.run();
+        return engine;
+    }
+
+    private static void assertSameAsScalar(int[] program, long[] inputs) {
+        var runner = new LockstepRunner(program, inputs.length);
+        for (int lane = 0; lane < inputs.length; lane++) {
+            runner.setX(lane, inputs[lane]);
+        }
+        runner.run(10_000);
+
+        for (int lane = 0; lane < inputs.length; lane++) {
+            var engine = runScalar(program, inputs[lane]);
+            var snapshot = engine.stack().getSnapshot();
+
+            assertEquals(engine.x2().get(), runner.display(lane), "Lane " + lane);
+            assertEquals(snapshot.x(), runner.x(lane), "Lane " + lane);
+            assertEquals(snapshot.y(), runner.y(lane), "Lane " + lane);
+            assertEquals(engine.getProgramCounter(), runner.programCounter(lane), "Lane " + lane);
+
+            var registers = new long[Constants.REGISTERS_SIZE];
+            for (int r = 0; r < registers.length; r++) {
+                registers[r] = runner.register(lane, r);
+            }
+            assertArrayEquals(engine.registers().getSnapshot(), registers, "Lane " + lane);
+        }
+    }
+
+    @Test
+    public void testFactorial() {
+        var inputs = new long[10];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Register.valueOf(i + 1);
+        }
+        assertSameAsScalar(FACTORIAL, inputs);
+
+        var runner = new LockstepRunner(FACTORIAL, 1);
+        runner.setX(0, Register.valueOf(5));
+        runner.run(10_000);
+        assertEquals(LockstepRunner.LaneStatus.STOPPED, runner.status(0));
+        assertEquals(0, runner.scalarLanes());
+        assertEquals(Register.valueOf(120), runner.x(0));
+    }
+
+    @Test
+    public void testScalarFallback() {
+        var inputs = new long[]{0, Register.valueOf(2), Register.valueOf(-4), Register.valueOf(0.5)};
+        assertSameAsScalar(ONE_BY_X, inputs);
+
+        var runner = new LockstepRunner(ONE_BY_X, inputs.length);
+        for (int lane = 0; lane < inputs.length; lane++) {
+            runner.setX(lane, inputs[lane]);
+        }
+        runner.run(10_000);
+        assertEquals(LockstepRunner.LaneStatus.ERROR, runner.status(0));
+        assertEquals(LockstepRunner.LaneStatus.STOPPED, runner.status(1));
+        assertEquals(inputs.length, runner.scalarLanes());
+    }
+
+    @Test
+    public void testLoopAndSubroutine() {
+        var inputs = new long[8];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = Register.valueOf(i * 3 + 1);
+        }
+        assertSameAsScalar(LOOP, inputs);
+    }
+
+    @Test
+    public void testStepLimit() {
+        var runner = new LockstepRunner(new int[]{0x51, 0x00}, 2);
+        runner.run(100);
+        assertEquals(LockstepRunner.LaneStatus.STEP_LIMIT, runner.status(0));
+        assertEquals(LockstepRunner.LaneStatus.STEP_LIMIT, runner.status(1));
+        assertTrue(runner.steps(0) <= 100);
+    }
+
+    @Test
+    public void testResumeExponentEntry() {
+        var input = Register.valueOf(2);
+        var runner = new LockstepRunner(ONE_BY_X, 1);
+        runner.setX(0, input);
+
+        // Остановка сразу после ВП, ввод порядка продолжается после возобновления
+        runner.run(3);
+        assertEquals(LockstepRunner.LaneStatus.STEP_LIMIT, runner.status(0));
+        runner.resume();
+        runner.run(10_000);
+
+        var engine = runScalar(ONE_BY_X, input);
+        assertEquals(LockstepRunner.LaneStatus.STOPPED, runner.status(0));
+        assertEquals(engine.stack().xValue(), runner.x(0));
+        assertEquals(engine.x2().get(), runner.display(0));
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Темп эмуляции")
+public class PacerTest {
+    @Test
+    public void testDeadline() {
+        var clock = new AtomicLong(1_000);
+        var pacer = new Pacer(clock::get);
+
+        pacer.advance(Duration.ofNanos(500));
+        assertEquals(1_500, pacer.getDeadline());
+
+        // Позднее пробуждение не сдвигает следующий срок
+        clock.set(1_700);
+        pacer.await();
+        pacer.advance(Duration.ofNanos(500));
+        assertEquals(2_000, pacer.getDeadline());
+
+        // После простоя темп начинается от текущего времени
+        clock.set(2_000 + Pacer.MAX_LAG + 1);
+        pacer.advance(Duration.ofNanos(500));
+        assertEquals(2_000 + Pacer.MAX_LAG + 501, pacer.getDeadline());
+    }
+
+    @Test
+    public void testDrift() {
+        final int steps = 200;
+        final var step = Duration.ofMillis(1);
+
+        var pacer = new Pacer();
+        var start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            pacer.advance(step);
+            pacer.await();
+        }
+        var elapsed = System.nanoTime() - start;
+
+        // Верхняя граница зависит от загрузки машины, компенсация отставания проверяется в testDeadline
+        assertTrue(elapsed >= step.toNanos() * steps, "elapsed " + elapsed);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.BaseTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Вывод результатов остановками программы")
+public class ProgramOutputTest extends BaseTest {
+    // Квадраты натуральных чисел
+    private static final int[] SQUARES = new int[]{
+            0x60,       // 00: ИП0
+            0x01,       // 01: 1
+            0x10,       // 02: +
+            0x40,       // 03: П0
+            0x22,       // 04: F x²
+            0x50,       // 05: С/П
+            0x51,       // 06: БП
+            0x00        // 07: 00
+    };
+
+    @Test
+    public void testStream() {
+        var output = new ProgramOutput(newEngine(SQUARES, SpeedMode.INSTANT), 100);
+        var squares = output.stream()
+                .limit(1000)
+                .mapToDouble(result -> Register.toDouble(result.x()))
+                .toArray();
+
+        assertEquals(1000, squares.length);
+        for (int i = 0; i < squares.length; i++) {
+            assertEquals((double) (i + 1) * (i + 1), squares[i], 1e-6 * squares[i]);
+        }
+    }
+
+    @Test
+    public void testBreakpoint() {
+        var engine = newEngine(SQUARES, SpeedMode.INSTANT);
+        engine.breakpoints().addBreakpoint("PC == 4 && R0 == 3");
+        var results = new ProgramOutput(engine, 100).stream().limit(4).toList();
+
+        var breakpoints = results.stream().map(ProgramOutput.Result::breakpoint).toList();
+        assertEquals(List.of(false, false, true, false), breakpoints);
+        assertEquals(3.0, Register.toDouble(results.get(2).x()));
+        assertEquals(9.0, Register.toDouble(results.get(3).x()));
+    }
+
+    @Test
+    public void testEndOfOutput() {
+        // Бесконечный цикл без остановки
+        var loop = newEngine(new int[]{0x51, 0x00}, SpeedMode.INSTANT);
+        assertEquals(0, new ProgramOutput(loop, 1000).stream().count());
+        assertFalse(loop.automaticMode().get());
+
+        // Переполнение: 10^30 в квадрате, затем снова в квадрате
+        var overflow = newEngine(new int[]{0x22, 0x50, 0x51, 0x00}, SpeedMode.INSTANT);
+        for (var button : List.of(KeyboardButton.D1, KeyboardButton.EE, KeyboardButton.D3, KeyboardButton.D0)) {
+            overflow.processButton(button);
+        }
+        assertEquals(1, new ProgramOutput(overflow, 1000).stream().count());
+
+        assertThrows(IllegalArgumentException.class, () -> new ProgramOutput(new Engine(true, _ -> {}), 1));
+    }
+
+    @Test
+    public void testPublisher() throws Exception {
+        var publisher = new ProgramOutput(newEngine(SQUARES, SpeedMode.INSTANT), 100).publisher(Runnable::run);
+
+        var received = new ArrayList<ProgramOutput.Result>();
+        var completed = new CompletableFuture<Void>();
+        var subscription = new CompletableFuture<Flow.Subscription>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription.complete(s);
+            }
+
+            @Override
+            public void onNext(ProgramOutput.Result item) {
+                received.add(item);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                completed.completeExceptionally(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                completed.complete(null);
+            }
+        });
+
+        // Результаты вычисляются только по запросу
+        assertEquals(0, received.size());
+        subscription.get().request(3);
+        assertEquals(3, received.size());
+        subscription.get().request(2);
+        assertEquals(5, received.size());
+        assertEquals(25.0, Register.toDouble(received.getLast().x()), 1e-9);
+        subscription.get().cancel();
+        subscription.get().request(1);
+        assertEquals(5, received.size());
+
+        // Второй подписчик
+        var error = new CompletableFuture<Throwable>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+            }
+
+            @Override
+            public void onNext(ProgramOutput.Result item) {
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertInstanceOf(IllegalStateException.class, error.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testInvalidRequest() {
+        var publisher = new ProgramOutput(newEngine(SQUARES, SpeedMode.INSTANT), 100).publisher(Runnable::run);
+
+        var signals = new ArrayList<String>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(ProgramOutput.Result item) {
+                signals.add("next");
+                // Ошибка не передается, пока обрабатывается onNext
+                subscription.request(0);
+                signals.add("end of next");
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                signals.add(throwable.getClass().getSimpleName());
+            }
+
+            @Override
+            public void onComplete() {
+                signals.add("complete");
+            }
+        });
+        assertEquals(List.of("next", "end of next", "IllegalArgumentException"), signals);
+    }
+
+    @Test
+    public void testFailingSubscriber() {
+        var publisher = new ProgramOutput(newEngine(SQUARES, SpeedMode.INSTANT), 100).publisher(Runnable::run);
+
+        var received = new ArrayList<ProgramOutput.Result>();
+        var error = new CompletableFuture<Throwable>();
+        publisher.subscribe(new Flow.Subscriber<>() {
+            @Override
+            public void onSubscribe(Flow.Subscription s) {
+                s.request(5);
+            }
+
+            @Override
+            public void onNext(ProgramOutput.Result item) {
+                received.add(item);
+                if (received.size() == 2) {
+                    throw new IllegalStateException("Subscriber failure");
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.complete(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+
+        // Подписка отменена после исключения
+        assertEquals(2, received.size());
+        assertEquals("Subscriber failure", error.getNow(null).getMessage());
+    }
+}
@@ -4,11 +4,13 @@
  */
 package org.panteleyev.mk52.engine;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.params.provider.Arguments.argumentSet;
@@ -279,4 +281,42 @@ public class RegisterTest {
     public void testXToIndicator(long x, IR expected) {
         assertEquals(expected, Register.xToIndicator(x));
     }
+
+    private static List<Arguments> testCompareArguments() {
+        return List.of(
+                // Ненормализованное и нормализованное число
+                arguments(0x7000000006L, 0x60000000L, 0),
+                arguments(0x40206586025L, 0x39965860250L, 0),
+                arguments(0L, 0x900000000L, 0),
+                arguments(0x31415926L, 0x30000000L, 1),
+                arguments(0x931415926L, 0x930000000L, -1),
+                arguments(0x911931415926L, 0L, -1),
+                arguments(0x1045230000L, 0x1945230000L, 1),
+                arguments(0x991000000000L, 0x10000000L, -1),
+                arguments(0x1045230000L, 0x45230000L, 1)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testCompareArguments")
+    public void testCompare(long a, long b, int expected) {
+        assertEquals(expected, Integer.signum(Register.compare(a, b)));
+        assertEquals(-expected, Integer.signum(Register.compare(b, a)));
+    }
+
+    @Test
+    public void testCompareAsDouble() {
+        var random = new Random(52);
+        for (int i = 0; i < 10_000; i++) {
+            var a = Register.valueOf(randomValue(random));
+            var b = random.nextInt(10) == 0 ? a : Register.valueOf(randomValue(random));
+            assertEquals(Integer.signum(Double.compare(Register.toDouble(a), Register.toDouble(b))),
+                    Integer.signum(Register.compare(a, b)), Register.toString(a) + " vs " + Register.toString(b));
+        }
+    }
+
+    private static double randomValue(Random random) {
+        var value = random.nextInt(100_000_000) * Math.pow(10, random.nextInt(-99, 92));
+        return random.nextBoolean() ? value : -value;
+    }
 }
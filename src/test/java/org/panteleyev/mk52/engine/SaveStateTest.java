@@ -0,0 +1,103 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.eeprom.EepromMode;
+import org.panteleyev.mk52.eeprom.EepromOperation;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Сохранение и восстановление состояния")
+public class SaveStateTest {
+    // Останавливается внутри подпрограммы
+    private static final int[] PROGRAM = new int[]{
+            0x53,       // 00: ПП
+            0x05,       // 01: 05
+            0x50,       // 02: С/П
+            0x00,       // 03
+            0x00,       // 04
+            0x44,       // 05: x→П4
+            0x50,       // 06: С/П
+            0x52        // 07: В/О
+    };
+
+    private static final List<KeyboardButton> CONTINUATION = List.of(
+            KeyboardButton.D5, KeyboardButton.EE, KeyboardButton.D2, KeyboardButton.PUSH,
+            KeyboardButton.LOAD, KeyboardButton.D4, KeyboardButton.PLUS,
+            KeyboardButton.RUN_STOP, KeyboardButton.RUN_STOP
+    );
+
+    @Test
+    public void testRestore() {
+        var engine = new Engine(false, _ -> {});
+        engine.togglePower(true);
+        engine.setTrigonometricMode(TrigonometricMode.GRADIAN);
+        engine.setEepromOperation(EepromOperation.WRITE);
+        engine.setEepromMode(EepromMode.PROGRAM);
+        engine.loadMemoryBytes(PROGRAM);
+        engine.processButton(KeyboardButton.D7);
+        engine.processButton(KeyboardButton.RUN_STOP);
+        // Ввод числа не завершен
+        for (var button : List.of(KeyboardButton.D1, KeyboardButton.DOT, KeyboardButton.D2)) {
+            engine.processButton(button);
+        }
+
+        var state = engine.saveState();
+        assertTrue(state.length < 1024);
+
+        var restored = new Engine(false, _ -> {});
+        restored.togglePower(true);
+        restored.restoreState(state);
+        assertArrayEquals(state, restored.saveState());
+        assertEquals(engine.displayProperty().get(), restored.displayProperty().get());
+        assertEquals(TrigonometricMode.GRADIAN, restored.getTrigonometricMode());
+        assertEquals(EepromOperation.WRITE, restored.getEepromOperation());
+        assertEquals(EepromMode.PROGRAM, restored.getEepromMode());
+
+        for (var button : CONTINUATION) {
+            engine.processButton(button);
+            restored.processButton(button);
+            assertEquals(engine.displayProperty().get(), restored.displayProperty().get(), button.name());
+        }
+        assertArrayEquals(engine.saveState(), restored.saveState());
+    }
+
+    @Test
+    public void testPowerOn() {
+        var engine = new Engine(false, _ -> {});
+        engine.togglePower(true);
+        engine.processButton(KeyboardButton.D3);
+        var state = engine.saveState();
+
+        var restored = new Engine(false, _ -> {});
+        restored.restoreState(state);
+        assertTrue(restored.isPowered());
+        assertEquals(engine.displayProperty().get(), restored.displayProperty().get());
+    }
+
+    @Test
+    public void testInvalidState() {
+        var engine = new Engine(false, _ -> {});
+        engine.togglePower(true);
+        var state = engine.saveState();
+
+        assertThrows(IllegalArgumentException.class, () -> engine.restoreState(new byte[10]));
+
+        var corrupted = state.clone();
+        corrupted[0] = 'X';
+        assertThrows(IllegalArgumentException.class, () -> engine.restoreState(corrupted));
+
+        var badMode = state.clone();
+        badMode[6] = 100;
+        assertThrows(IllegalArgumentException.class, () -> engine.restoreState(badMode));
+    }
+}
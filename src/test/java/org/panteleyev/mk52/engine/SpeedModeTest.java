@@ -0,0 +1,44 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.eeprom.Eeprom;
+import org.panteleyev.mk52.program.OpCode;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Скорость эмуляции")
+public class SpeedModeTest {
+    @Test
+    public void testScale() {
+        assertEquals(Eeprom.RW_DURATION, SpeedMode.REAL_TIME.scale(Eeprom.RW_DURATION));
+        assertEquals(Duration.ofMillis(200), SpeedMode.SCALED.scale(Eeprom.RW_DURATION));
+        assertEquals(Duration.ZERO, SpeedMode.INSTANT.scale(Eeprom.RW_DURATION));
+
+        assertTrue(SpeedMode.SCALED.isVisible(Eeprom.RW_DURATION));
+        assertFalse(SpeedMode.SCALED.isVisible(Eeprom.SET_ADDRESS_DURATION));
+        assertFalse(SpeedMode.INSTANT.isVisible(Eeprom.RW_DURATION));
+    }
+
+    @Test
+    public void testEmulatedTime() {
+        var engine = new Engine(false, _ -> {});
+        engine.setSpeedMode(SpeedMode.INSTANT);
+        engine.togglePower(true);
+
+        engine.processButton(KeyboardButton.EEPROM_ADDRESS);
+        engine.processButton(KeyboardButton.EEPROM_EXCHANGE);
+        engine.processButton(KeyboardButton.D1);
+
+        assertEquals(Eeprom.SET_ADDRESS_DURATION.plus(Eeprom.RW_DURATION).plus(OpCode.ONE.duration()),
+                engine.getEmulatedTime());
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.engine.KeyboardButton;
+import org.panteleyev.mk52.engine.SpeedMode;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("События JFR")
+public class FlightRecorderEventsTest {
+    // Цикл на 100 повторений
+    private static final int[] PROGRAM = new int[]{
+            0x01,       // 00: 1
+            0x00,       // 01: 0
+            0x00,       // 02: 0
+            0x40,       // 03: x→П0
+            0x5D,       // 04: FL0
+            0x04,       // 05: 04
+            0x50        // 06: С/П
+    };
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testEvents() throws IOException {
+        var path = tempDir.resolve("mk52.jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable(RunEvent.class);
+            recording.enable(InstructionEvent.class);
+            recording.enable(EepromExchangeEvent.class);
+            recording.start();
+
+            var engine = new Engine(false, _ -> {});
+            engine.setSpeedMode(SpeedMode.INSTANT);
+            engine.togglePower(true);
+            engine.loadMemoryBytes(PROGRAM);
+            engine.processButton(KeyboardButton.RUN_STOP);
+            engine.processButton(KeyboardButton.EEPROM_EXCHANGE);
+
+            recording.stop();
+            recording.dump(path);
+        }
+
+        var events = RecordingFile.readAllEvents(path);
+
+        var runs = byName(events, "org.panteleyev.mk52.Run");
+        assertEquals(1, runs.size());
+        var run = runs.getFirst();
+        assertEquals(105L, run.getLong("instructions"));
+        assertEquals(RunEvent.OUTCOME_STOP, run.getString("outcome"));
+        assertTrue(run.getDuration("emulatedTime").isPositive());
+
+        var instructions = byName(events, "org.panteleyev.mk52.Instruction");
+        assertEquals(105 / InstructionEvent.SAMPLE_INTERVAL, instructions.size());
+
+        var exchanges = byName(events, "org.panteleyev.mk52.EepromExchange");
+        assertEquals(1, exchanges.size());
+        assertEquals("READ", exchanges.getFirst().getString("operation"));
+    }
+
+    @Test
+    public void testDisplayPublishEnabled() {
+        // Событие выключено по умолчанию и не создается без записи
+        assertFalse(DisplayPublishEvent.isTypeEnabled());
+        try (var recording = new Recording()) {
+            recording.enable(DisplayPublishEvent.class);
+            recording.start();
+            assertTrue(DisplayPublishEvent.isTypeEnabled());
+        }
+        assertFalse(DisplayPublishEvent.isTypeEnabled());
+    }
+
+    private static List<RecordedEvent> byName(List<RecordedEvent> events, String name) {
+        return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .toList();
+    }
+}
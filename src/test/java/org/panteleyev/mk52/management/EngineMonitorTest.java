@@ -0,0 +1,80 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.management;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.engine.EngineMetrics;
+import org.panteleyev.mk52.engine.KeyboardButton;
+
+import javax.management.JMException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DisplayName("Метрики JMX")
+public class EngineMonitorTest {
+    // Переполнение первого яруса: 10^99 * 10^99
+    private static final List<KeyboardButton> OVERFLOW = List.of(
+            KeyboardButton.D1, KeyboardButton.EE, KeyboardButton.D9, KeyboardButton.D9,
+            KeyboardButton.PUSH, KeyboardButton.MULTIPLICATION
+    );
+
+    @Test
+    public void testEngine() throws JMException {
+        var engine = new Engine(false, _ -> {});
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = EngineMonitor.register("test", engine);
+        try {
+            assertEquals("OFF", server.getAttribute(name, "Mode"));
+
+            engine.togglePower(true);
+            engine.loadMemoryBytes(new int[]{0x01, 0x02, 0x50});
+            engine.processButton(KeyboardButton.RUN_STOP);
+            for (var button : OVERFLOW) {
+                engine.processButton(button);
+            }
+            engine.processButton(KeyboardButton.EEPROM_EXCHANGE);
+
+            assertEquals("MANUAL", server.getAttribute(name, "Mode"));
+            assertEquals("03", server.getAttribute(name, "ProgramCounter"));
+            // Три команды программы и шесть нажатий клавиш
+            assertEquals(9L, server.getAttribute(name, "Instructions"));
+            assertEquals(1L, server.getAttribute(name, "ErrorTier1"));
+            assertEquals(0L, server.getAttribute(name, "ErrorTier2"));
+            assertEquals(1L, server.getAttribute(name, "EepromOperations"));
+            assertEquals(0L, server.getAttribute(name, "PendingUiUpdates"));
+
+            // Повторная регистрация с тем же именем
+            assertThrows(IllegalStateException.class, () -> EngineMonitor.register("test", engine));
+        } finally {
+            EnginePoolMonitor.unregister(name);
+        }
+    }
+
+    @Test
+    public void testPool() throws JMException {
+        var aggregate = new EngineMetrics();
+        var name = EnginePoolMonitor.register("pool", aggregate);
+        try {
+            for (int i = 0; i < 3; i++) {
+                var engine = new Engine(false, _ -> {});
+                engine.metrics().setAggregate(aggregate);
+                engine.togglePower(true);
+                engine.processButton(KeyboardButton.D1);
+                engine.processButton(KeyboardButton.PUSH);
+            }
+
+            var server = ManagementFactory.getPlatformMBeanServer();
+            assertEquals(6L, server.getAttribute(name, "Instructions"));
+            assertEquals(0L, server.getAttribute(name, "ErrorTier1"));
+        } finally {
+            EnginePoolMonitor.unregister(name);
+        }
+    }
+}
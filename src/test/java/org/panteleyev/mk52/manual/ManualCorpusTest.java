@@ -0,0 +1,49 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.manual;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.panteleyev.mk52.script.CorpusRunner;
+import org.panteleyev.mk52.script.KeystrokeScript;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Таблицы руководства в виде сценариев")
+public class ManualCorpusTest {
+    private static Path corpusDirectory() throws URISyntaxException {
+        return Path.of(ManualCorpusTest.class.getResource("/corpus").toURI());
+    }
+
+    @Test
+    public void testCorpus() throws URISyntaxException {
+        var cases = CorpusRunner.load(corpusDirectory());
+        assertFalse(cases.isEmpty());
+
+        var report = new CorpusRunner().run(cases);
+        assertEquals(cases.size(), report.results().size());
+        assertTrue(report.passed(), report::format);
+    }
+
+    @Test
+    public void testFailureReport() {
+        var cases = List.of(
+                new CorpusRunner.Case("pass", KeystrokeScript.parse("D2 ?display=FFFF2FFFFFFF:7")),
+                new CorpusRunner.Case("fail", KeystrokeScript.parse("D2\n?display=FFFF3FFFFFFF:7"))
+        );
+        var report = new CorpusRunner(2).run(cases);
+        assertFalse(report.passed());
+        assertEquals(1, report.failures().size());
+        assertEquals("fail", report.failures().getFirst().name());
+        assertEquals(2, report.failures().getFirst().result().line());
+        assertEquals(2, report.presses());
+    }
+}
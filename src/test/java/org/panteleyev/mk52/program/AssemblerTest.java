@@ -0,0 +1,142 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.program;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.engine.KeyboardButton;
+import org.panteleyev.mk52.engine.Register;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+import static org.panteleyev.mk52.engine.Constants.PROGRAM_MEMORY_SIZE;
+
+@DisplayName("Ассемблер и дизассемблер")
+public class AssemblerTest {
+    // Вычисление факториала
+    private static final String FACTORIAL = """
+                    x→П 2
+                    1
+                    x→П 3
+            loop:   П→x 2   # счетчик
+                    1
+                    -
+                    Fx≥0 done
+                    П→x 2
+                    П→x 3
+                    ×
+                    x→П 3
+                    XY
+                    x→П 2
+                    БП loop
+            done:   П→x 3
+                    С/П
+            """;
+
+    private static final int[] FACTORIAL_CODES = new int[]{
+            0x42, 0x01, 0x43, 0x62, 0x01, 0x11, 0x59, 0x16, 0x62, 0x63,
+            0x12, 0x43, 0x14, 0x42, 0x51, 0x03, 0x63, 0x50
+    };
+
+    @Test
+    public void testAssemble() {
+        var codes = Assembler.assemble(FACTORIAL);
+        assertEquals(PROGRAM_MEMORY_SIZE, codes.length);
+        assertArrayEquals(FACTORIAL_CODES, Arrays.copyOf(codes, FACTORIAL_CODES.length));
+
+        var engine = new Engine(false, _ -> {});
+        engine.togglePower(true);
+        engine.loadMemoryBytes(codes);
+        engine.processButton(KeyboardButton.D6);
+        engine.run();
+        assertEquals(Register.valueOf(720), engine.stack().getSnapshot().x());
+    }
+
+    @Test
+    public void testAllCodes() {
+        var codes = new int[PROGRAM_MEMORY_SIZE];
+        var location = 0;
+        for (var opCode : OpCode.values()) {
+            if (opCode.code() < 0) {
+                continue;
+            }
+            assertNotNull(Mnemonics.byCode(opCode.code()), opCode.name());
+            codes[location++] = opCode.code();
+            if (opCode.hasAddress()) {
+                codes[location++] = 0xA4;
+            }
+            if (location > PROGRAM_MEMORY_SIZE - 2) {
+                assertArrayEquals(codes, Assembler.assemble(Disassembler.disassemble(codes)));
+                Arrays.fill(codes, 0);
+                location = 0;
+            }
+        }
+        assertArrayEquals(codes, Assembler.assemble(Disassembler.disassemble(codes)));
+    }
+
+    private static List<Arguments> testSpellingArguments() {
+        return List.of(
+                arguments("К БП 7", 0x87),
+                arguments("КБП 7", 0x87),
+                arguments("k bp", null),
+                arguments("П->x e", 0x6E),
+                arguments("П→х а", 0x6A),
+                arguments("Kx>=0 d", 0x9D),
+                arguments("К x≠0 c", 0x7C),
+                arguments("F sin", 0x1C),
+                arguments("F x^y", 0x24),
+                arguments("В↑", 0x0E),
+                arguments("$FF", 0xFF)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testSpellingArguments")
+    public void testSpelling(String source, Integer expected) {
+        if (expected == null) {
+            assertThrows(IllegalArgumentException.class, () -> Assembler.assemble(source));
+        } else {
+            assertEquals(expected, Assembler.assemble(source)[0]);
+        }
+    }
+
+    private static List<Arguments> testErrorArguments() {
+        return List.of(
+                arguments("БП missing", "Line 1: unknown label missing"),
+                arguments("1\n\nБП 1A", "Line 3: invalid address 1A"),
+                arguments("x→П f", "Line 1: invalid register f"),
+                arguments("a: 1\na: 2", "Line 2: duplicate label a"),
+                arguments("00: 1\n02: 2", "Line 2: address 02 does not match location 1"),
+                arguments("С/П 12", "Line 1: unexpected operand in С/П 12"),
+                arguments("1\n".repeat(PROGRAM_MEMORY_SIZE + 1), "Line 106: program does not fit into memory")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testErrorArguments")
+    public void testError(String source, String message) {
+        var exception = assertThrows(IllegalArgumentException.class, () -> Assembler.assemble(source));
+        assertEquals(message, exception.getMessage());
+    }
+
+    @Test
+    public void testDisassemble() {
+        var codes = Assembler.assemble(FACTORIAL);
+        var text = Disassembler.disassemble(codes);
+        assertEquals("06: Fx≥0 16", text.lines().toList().get(6));
+        assertEquals("17: С/П", text.lines().toList().getLast());
+        assertArrayEquals(codes, Assembler.assemble(text));
+    }
+}
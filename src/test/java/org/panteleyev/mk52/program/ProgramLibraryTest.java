@@ -0,0 +1,130 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.program;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisplayName("Библиотека программ")
+public class ProgramLibraryTest {
+    private static final String SUM = """
+                    Cx
+                    x→П 1
+            loop:   П→x 2
+                    Кx→П 3
+                    П→x 1
+                    +
+                    x→П 1
+                    FL0 loop
+                    П→x 1
+                    С/П
+            """;
+
+    // Отличается от SUM регистрами и завершением
+    private static final String SUM_VARIANT = """
+                    Cx
+                    x→П 4
+            loop:   П→x 5
+                    Кx→П 6
+                    П→x 4
+                    +
+                    x→П 4
+                    FL0 loop
+                    П→x 4
+                    В/О
+            """;
+
+    private static final String FACTORIAL = """
+                    x→П 2
+                    1
+                    x→П 3
+            loop:   П→x 2
+                    1
+                    -
+                    Fx≥0 done
+                    П→x 2
+                    П→x 3
+                    ×
+                    x→П 3
+                    П→x 2
+                    1
+                    -
+                    x→П 2
+                    БП loop
+            done:   П→x 3
+                    С/П
+            """;
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    public void testContentAddress() {
+        var library = new ProgramLibrary();
+        var codes = Assembler.assemble(SUM);
+        var hash = library.add(codes);
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, library.add(codes.clone()));
+        assertEquals(1, library.size());
+        assertArrayEquals(codes, library.get(hash).orElseThrow());
+        assertTrue(library.get("0".repeat(64)).isEmpty());
+    }
+
+    @Test
+    public void testFindSequence() {
+        var library = new ProgramLibrary();
+        var sum = library.add(Assembler.assemble(SUM));
+        var variant = library.add(Assembler.assemble(SUM_VARIANT));
+        var factorial = library.add(Assembler.assemble(FACTORIAL));
+
+        assertEquals(List.of(sum, variant), library.find(OpCode.IND_STORE_R0, OpCode.LOAD_R1));
+        assertEquals(List.of(sum, variant), library.find("Кx→П; П→x; +; x→П; FL0"));
+        assertEquals(List.of(sum), library.find("FL0; П→x; С/П"));
+        assertEquals(List.of(factorial), library.find("-; Fx≥0"));
+        assertEquals(List.of(sum, variant, factorial), library.find("x→П"));
+        assertEquals(List.of(), library.find("БП; Кx→П"));
+        assertThrows(IllegalArgumentException.class, () -> library.find("Кx→П; FL9"));
+    }
+
+    @Test
+    public void testFindSimilar() {
+        var library = new ProgramLibrary();
+        var sum = library.add(Assembler.assemble(SUM));
+        var variant = library.add(Assembler.assemble(SUM_VARIANT));
+        library.add(Assembler.assemble(FACTORIAL));
+
+        var matches = library.findSimilar(Assembler.assemble(SUM), 0.5);
+        assertEquals(2, matches.size());
+        assertEquals(new ProgramLibrary.Match(sum, 1.0), matches.getFirst());
+        assertEquals(variant, matches.get(1).hash());
+        assertTrue(matches.get(1).similarity() < 1.0);
+    }
+
+    @Test
+    public void testPersistence() {
+        var created = ProgramLibrary.open(tempDir);
+        var hash = created.add(Assembler.assemble(FACTORIAL));
+        created.add(Assembler.assemble(SUM));
+
+        var library = ProgramLibrary.open(tempDir);
+        assertEquals(2, library.size());
+        assertEquals(List.of(hash), library.find(OpCode.GOTO));
+
+        var memory = new ProgramMemory();
+        library.load(hash, memory);
+        assertArrayEquals(Assembler.assemble(FACTORIAL), memory.getMemoryBytes());
+        assertThrows(IllegalArgumentException.class, () -> library.load("0".repeat(64), memory));
+    }
+}
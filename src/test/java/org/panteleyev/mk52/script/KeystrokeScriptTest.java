@@ -0,0 +1,129 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.script;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.panteleyev.mk52.engine.Engine;
+import org.panteleyev.mk52.engine.KeyboardButton;
+import org.panteleyev.mk52.engine.TrigonometricMode;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@DisplayName("Сценарии нажатий клавиш")
+public class KeystrokeScriptTest {
+    // Таблица 11 руководства
+    private static final String TABLE_11 = """
+            # Программа
+            F EE
+            D4 PUSH K GOTO D3 ?display=F03F83F0EF04
+            F MINUS D2 PLUS ?display=F06F10F02F21
+            K GOTO D4 PLUS D3 ?display=F09F03F10F84
+            MULTIPLICATION K GOTO DOT MINUS ?display=F12F11F8AF12
+            RUN_STOP ?display=F13F50F11F8A
+            F SIGN RETURN ?display=FFFF0FFFFFFF:7
+            # Данные
+            D5 STORE D3
+            D7 STORE D4
+            D1 D2 STORE DOT ?display=FFFF12FFFFFF:6
+            # Выполнение
+            RUN_STOP ?display=FFFF18FFFFFF:6
+            # Контроль регистров
+            LOAD D3 ?display=FFFF00000004:0
+            LOAD D4 ?display=FFFF00000008:0
+            LOAD DOT ?display=FFFF00000012:0
+            """;
+
+    @Test
+    public void testReplay() {
+        var result = ScriptReplayer.replay(KeystrokeScript.parse(TABLE_11));
+        assertTrue(result.passed(), result.message());
+        assertEquals(42, result.presses());
+    }
+
+    @Test
+    public void testFailedExpectation() {
+        var script = KeystrokeScript.parse("""
+                D2 PUSH D3 PLUS
+                ?x=50000000
+                ?x=60000000
+                D1
+                """);
+        var result = ScriptReplayer.replay(script);
+        assertFalse(result.passed());
+        assertEquals(3, result.line());
+        assertEquals(4, result.presses());
+    }
+
+    @Test
+    public void testProgramDidNotStop() {
+        var script = KeystrokeScript.parse("""
+                @power=on
+                F EE GOTO D0 D0 F SIGN
+                RETURN RUN_STOP
+                D1
+                """);
+        var result = ScriptReplayer.replay(script, new Engine(false, _ -> {}), 1000);
+        assertFalse(result.passed());
+        assertEquals(3, result.line());
+        assertEquals("program did not stop in 1000 steps", result.message());
+        assertEquals(9, result.presses());
+    }
+
+    @Test
+    public void testFormat() {
+        var script = KeystrokeScript.parse("""
+                @power=on @trig=deg @eeprom=write @eepromMode=program
+                D1*3 PUSH ?x=111 ?r0=0 ?pc=0A ?display=FFFF111FFFFF:7
+                """);
+        var text = script.format();
+        assertEquals(text, KeystrokeScript.parse(text).format());
+        assertEquals(script.steps().size(), KeystrokeScript.parse(text).steps().size());
+    }
+
+    private static List<Arguments> testParseErrorArguments() {
+        return List.of(
+                arguments("D1 D2\nUNKNOWN", "Line 2: unknown button UNKNOWN"),
+                arguments("@trig=turns", "Line 1: invalid value in @trig=turns"),
+                arguments("?rf=0", "Line 1: unknown expectation rf"),
+                arguments("?pc=G1", "Line 1: invalid value in ?pc=G1"),
+                arguments("?pc=1", "Line 1: invalid value in ?pc=1"),
+                arguments("\n\n?x", "Line 3: value expected in ?x")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testParseErrorArguments")
+    public void testParseError(String text, String message) {
+        var exception = assertThrows(IllegalArgumentException.class, () -> KeystrokeScript.parse(text));
+        assertEquals(message, exception.getMessage());
+    }
+
+    @Test
+    public void testRecorder() {
+        var recorder = new ScriptRecorder();
+        recorder.trigonometricMode(TrigonometricMode.DEGREE);
+        recorder.power(true);
+        recorder.press(KeyboardButton.D2);
+        recorder.press(KeyboardButton.D2);
+        recorder.press(KeyboardButton.PUSH);
+        recorder.press(KeyboardButton.PLUS);
+
+        var script = KeystrokeScript.parse(recorder.toScript().format() + "?x=10_44000000\n");
+        var result = ScriptReplayer.replay(script);
+        assertTrue(result.passed(), result.message());
+        assertEquals(new ScriptStep.SetTrigonometricMode(0, TrigonometricMode.DEGREE),
+                recorder.toScript().steps().get(1));
+    }
+}
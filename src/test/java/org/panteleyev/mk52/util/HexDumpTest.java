@@ -0,0 +1,86 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+@DisplayName("Шестнадцатеричный дамп")
+public class HexDumpTest {
+    private static final Random RANDOM = new Random(System.currentTimeMillis());
+
+    private static int read(HexDumpReader reader, String text, int[] values) {
+        return reader.read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), values);
+    }
+
+    @Test
+    public void testWrite() {
+        var out = new ByteArrayOutputStream();
+        new HexDumpWriter(2, 3).write(out, new int[]{0x01, 0xAB, 0x5F, 0x00, 0x10, 0xFF}, 5);
+        assertEquals("01 AB 5F \n00 10 ", out.toString());
+    }
+
+    @Test
+    public void testRoundTrip() {
+        // Размер больше буфера записи и чтения
+        var values = new int[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = RANDOM.nextInt(0x100);
+        }
+
+        var out = new ByteArrayOutputStream();
+        new HexDumpWriter(2, 10).write(out, values, values.length);
+
+        var actual = new int[values.length];
+        var count = new HexDumpReader(2).read(new ByteArrayInputStream(out.toByteArray()), actual);
+        assertEquals(values.length, count);
+        assertArrayEquals(values, actual);
+    }
+
+    @Test
+    public void testComments() {
+        var values = new int[8];
+        var count = read(new HexDumpReader(2), """
+                # Заголовок
+                01 02\t0a # Комментарий
+                \r
+                  ff#
+                """, values);
+        assertEquals(4, count);
+        assertArrayEquals(new int[]{1, 2, 0xA, 0xFF}, Arrays.copyOf(values, count));
+    }
+
+    private static List<Arguments> testErrorsArguments() {
+        return List.of(
+                arguments(1, "0 1 2\n3 G", "Line 2, column 3: unexpected character 'G'"),
+                arguments(1, "0 12", "Line 1, column 3: value is longer than 1 digits"),
+                arguments(2, "# Комментарий\n00 1,", "Line 2, column 5: unexpected character ','"),
+                arguments(1, "0 1 2 3\n4", "Line 2, column 1: more than 4 values")
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("testErrorsArguments")
+    public void testErrors(int digits, String text, String message) {
+        var exception = assertThrows(IllegalArgumentException.class,
+                () -> read(new HexDumpReader(digits), text, new int[4]));
+        assertEquals(message, exception.getMessage());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ Copyright © 2025 Petr Panteleyev <petr@panteleyev.org>
+ SPDX-License-Identifier: BSD-2-Clause
+ */
+package org.panteleyev.mk52.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.panteleyev.mk52.engine.Register;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.panteleyev.mk52.util.StringUtil.padToDisplay;
+
+@DisplayName("Форматирование регистров")
+public class RegisterFormatterTest {
+    @ParameterizedTest
+    @ValueSource(longs = {
+            0L,
+            Register.ONE,
+            Register.MINUS_ONE,
+            Register.PI,
+            0x0_12345678L,
+            0x9_12345678L,
+            0x099_1_10000000L,
+            0x901_9_25000000L,
+            0x099_0_99999999L,
+            0x010_0_10000000L,
+            0x007_0_12345678L,
+            0x008_0_12345678L,
+            0x0_F0000000L,
+            0x0_8FFFFFFFL
+    })
+    public void testFormat(long register) {
+        var expected = padToDisplay(Register.toString(register));
+        var buffer = new char[RegisterFormatter.LENGTH];
+        var length = RegisterFormatter.format(register, buffer);
+
+        assertEquals(expected, new String(buffer, 0, length));
+        assertEquals(expected, new RegisterFormatter().toString(register));
+    }
+
+    @Test
+    public void testRandomValues() {
+        var random = new Random(52);
+        var formatter = new RegisterFormatter();
+        for (int i = 0; i < 10_000; i++) {
+            var register = 0L;
+            for (int t = 0; t < 12; t++) {
+                register = register << 4 | random.nextInt(10);
+            }
+            if (random.nextBoolean()) {
+                register |= 0x9000_0000_0000L;
+            }
+            if (random.nextBoolean()) {
+                register |= 0x9_0000_0000L;
+            }
+            assertEquals(padToDisplay(Register.toString(register)), formatter.toString(register),
+                    String.format("%012X", register));
+        }
+    }
+
+    @Test
+    public void testCache() {
+        var formatter = new RegisterFormatter();
+        var first = formatter.toString(Register.PI);
+        assertSame(first, formatter.toString(Register.PI));
+    }
+}